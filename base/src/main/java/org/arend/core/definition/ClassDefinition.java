@@ -19,7 +19,9 @@ import java.util.*;
 
 public class ClassDefinition extends Definition implements CoreClassDefinition {
   private final Set<ClassDefinition> mySuperClasses = new LinkedHashSet<>();
+  private Set<ClassDefinition> myAncestors;
   private final LinkedHashSet<ClassField> myFields = new LinkedHashSet<>();
+  private final Map<ClassField, Integer> myFieldIndices = new HashMap<>();
   private final List<ClassField> myPersonalFields = new ArrayList<>();
   private final Map<ClassField, AbsExpression> myImplemented = new HashMap<>();
   private final Map<ClassField, PiExpression> myOverridden = new HashMap<>();
@@ -193,12 +195,37 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   @Override
   public boolean isSubClassOf(@NotNull CoreClassDefinition classDefinition) {
     if (this.equals(classDefinition)) return true;
+    Set<ClassDefinition> ancestors = myAncestors;
+    if (ancestors != null) return ancestors.contains(classDefinition);
     for (ClassDefinition superClass : mySuperClasses) {
       if (superClass.isSubClassOf(classDefinition)) return true;
     }
     return false;
   }
 
+  private Set<ClassDefinition> getAncestors() {
+    Set<ClassDefinition> ancestors = myAncestors;
+    if (ancestors != null) {
+      return ancestors;
+    }
+
+    ancestors = new HashSet<>();
+    ancestors.add(this);
+    for (ClassDefinition superClass : mySuperClasses) {
+      ancestors.addAll(superClass.getAncestors());
+    }
+    return ancestors;
+  }
+
+  /**
+   * Computes the set of all super classes of this class, so that {@link #isSubClassOf} does not traverse the hierarchy.
+   * This method should be invoked when all super classes are added and the hierarchy above them will not change.
+   */
+  public void updateAncestors() {
+    myAncestors = null;
+    myAncestors = getAncestors();
+  }
+
   @NotNull
   @Override
   public Set<? extends ClassDefinition> getSuperClasses() {
@@ -207,6 +234,7 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
 
   public void addSuperClass(ClassDefinition superClass) {
     mySuperClasses.add(superClass);
+    myAncestors = null;
   }
 
   @NotNull
@@ -224,8 +252,22 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
     return myFields.size() - myImplemented.size();
   }
 
+  public int getNumberOfFields() {
+    return myFields.size();
+  }
+
+  /**
+   * @return the position of the field in {@link #getFields} or -1 if it is not a field of this class.
+   */
+  public int getFieldIndex(ClassField field) {
+    Integer index = myFieldIndices.get(field);
+    return index == null ? -1 : index;
+  }
+
   public void addField(ClassField field) {
-    myFields.add(field);
+    if (myFields.add(field)) {
+      myFieldIndices.put(field, myFieldIndices.size());
+    }
   }
 
   public void addPersonalField(ClassField field) {
@@ -233,7 +275,9 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
   }
 
   public void addFields(Collection<? extends ClassField> fields) {
-    myFields.addAll(fields);
+    for (ClassField field : fields) {
+      addField(field);
+    }
   }
 
   @Override
@@ -322,7 +366,9 @@ public class ClassDefinition extends Definition implements CoreClassDefinition {
 
   public void clear() {
     mySuperClasses.clear();
+    myAncestors = null;
     myFields.clear();
+    myFieldIndices.clear();
     myPersonalFields.clear();
     myImplemented.clear();
     myOverridden.clear();
@@ -3,7 +3,9 @@ package org.arend.core.definition;
 import org.arend.core.context.binding.Variable;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.EmptyDependentLink;
+import org.arend.core.expr.DefCallExpression;
 import org.arend.core.expr.Expression;
+import org.arend.core.expr.ExpressionInterner;
 import org.arend.core.sort.Sort;
 import org.arend.ext.core.definition.CoreDefinition;
 import org.arend.naming.reference.TCReferable;
@@ -11,11 +13,14 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public abstract class Definition implements Variable, CoreDefinition {
   private TCReferable myReferable;
   private TypeCheckingStatus myStatus;
   private UniverseKind myUniverseKind = UniverseKind.NO_UNIVERSES;
+  private volatile Map<Integer, DefCallExpression> mySharedCalls;
 
   public Definition(TCReferable referable, TypeCheckingStatus status) {
     myReferable = referable;
@@ -38,6 +43,23 @@ public abstract class Definition implements Variable, CoreDefinition {
     return myReferable;
   }
 
+  /**
+   * Gets calls of this definition without arguments which are shared by {@link ExpressionInterner}.
+   */
+  public Map<Integer, DefCallExpression> getSharedCalls() {
+    Map<Integer, DefCallExpression> calls = mySharedCalls;
+    if (calls == null) {
+      synchronized (this) {
+        calls = mySharedCalls;
+        if (calls == null) {
+          calls = new ConcurrentHashMap<>();
+          mySharedCalls = calls;
+        }
+      }
+    }
+    return calls;
+  }
+
   public DependentLink getParameters() {
     return EmptyDependentLink.getInstance();
   }
@@ -17,12 +17,14 @@ import org.jetbrains.annotations.NotNull;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class FunctionDefinition extends Definition implements Function, CoreFunctionDefinition {
   private DependentLink myParameters;
   private Expression myResultType;
   private Expression myResultTypeLevel;
   private Body myBody;
+  private volatile Supplier<? extends Body> myBodyLoader;
   private List<Integer> myParametersTypecheckingOrder;
   private Kind myKind = Kind.FUNC;
   private boolean myBodyIsHidden = false;
@@ -38,11 +40,24 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
 
   @Override
   public Body getBody() {
-    return myKind != Kind.FUNC || myBodyIsHidden ? null : myBody;
+    return myKind != Kind.FUNC || myBodyIsHidden ? null : loadBody();
   }
 
   @Override
   public Body getActualBody() {
+    return loadBody();
+  }
+
+  private Body loadBody() {
+    if (myBodyLoader != null) {
+      synchronized (this) {
+        Supplier<? extends Body> loader = myBodyLoader;
+        if (loader != null) {
+          myBody = loader.get();
+          myBodyLoader = null;
+        }
+      }
+    }
     return myBody;
   }
 
@@ -56,6 +71,23 @@ public class FunctionDefinition extends Definition implements Function, CoreFunc
 
   public void setBody(Body body) {
     myBody = body;
+    myBodyLoader = null;
+  }
+
+  /**
+   * @return false if the body is set by {@link #setBodyLoader} and was not accessed yet, true otherwise.
+   */
+  public boolean isBodyLoaded() {
+    return myBodyLoader == null;
+  }
+
+  /**
+   * Sets a loader that computes the body when it is accessed for the first time.
+   * It is used to avoid deserialization of bodies which are never used.
+   */
+  public void setBodyLoader(Supplier<? extends Body> loader) {
+    myBody = null;
+    myBodyLoader = loader;
   }
 
   public boolean isSFunc() {
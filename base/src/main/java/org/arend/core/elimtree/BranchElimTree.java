@@ -1,6 +1,7 @@
 package org.arend.core.elimtree;
 
 import org.arend.core.constructor.SingleConstructor;
+import org.arend.core.definition.Constructor;
 import org.arend.core.expr.ConCallExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.IntegerExpression;
@@ -9,8 +10,22 @@ import org.arend.util.Decision;
 
 import java.util.*;
 
+/**
+ * A node of an elim tree that matches an argument.
+ * Children are stored in arrays in the order they were added.
+ * Children that correspond to constructors of data types are also indexed by {@link Constructor#getIndex},
+ * so that the child of a constructor is found without hashing.
+ */
 public class BranchElimTree extends ElimTree {
-  private final Map<BranchKey, ElimTree> myChildren = new HashMap<>();
+  private static final BranchKey[] EMPTY_KEYS = new BranchKey[0];
+  private static final ElimTree[] EMPTY_CHILDREN = new ElimTree[0];
+
+  private BranchKey[] myKeys = EMPTY_KEYS;
+  private ElimTree[] myChildren = EMPTY_CHILDREN;
+  private int mySize;
+  private Constructor[] myConstructors = null;
+  private ElimTree[] myConstructorChildren = null;
+  private volatile List<Map.Entry<BranchKey, ElimTree>> myEntries = null;
   private final boolean myKeepConCall;
 
   public BranchElimTree(int skip, boolean keepConCall) {
@@ -23,37 +38,96 @@ public class BranchElimTree extends ElimTree {
   }
 
   public ElimTree getSingleConstructorChild() {
-    if (myChildren.size() == 1) {
-      Map.Entry<BranchKey, ElimTree> entry = myChildren.entrySet().iterator().next();
-      return entry.getKey() instanceof SingleConstructor ? entry.getValue() : null;
-    } else {
-      return null;
-    }
+    return isSingleConstructorTree() ? myChildren[0] : null;
   }
 
   public SingleConstructor getSingleConstructorKey() {
-    if (myChildren.size() == 1) {
-      Map.Entry<BranchKey, ElimTree> entry = myChildren.entrySet().iterator().next();
-      return entry.getKey() instanceof SingleConstructor ? (SingleConstructor) entry.getKey() : null;
-    } else {
-      return null;
-    }
+    return isSingleConstructorTree() ? (SingleConstructor) myKeys[0] : null;
   }
 
+  /**
+   * @return an unmodifiable collection of children.
+   *         It is computed once and reused until a child is added.
+   */
   public Collection<Map.Entry<BranchKey, ElimTree>> getChildren() {
-    return myChildren.entrySet();
+    List<Map.Entry<BranchKey, ElimTree>> entries = myEntries;
+    if (entries == null) {
+      List<Map.Entry<BranchKey, ElimTree>> list = new ArrayList<>(mySize);
+      for (int i = 0; i < mySize; i++) {
+        list.add(new AbstractMap.SimpleImmutableEntry<>(myKeys[i], myChildren[i]));
+      }
+      entries = Collections.unmodifiableList(list);
+      myEntries = entries;
+    }
+    return entries;
+  }
+
+  public int getNumberOfChildren() {
+    return mySize;
   }
 
   public ElimTree getChild(BranchKey key) {
-    return myChildren.get(key);
+    if (key instanceof Constructor && myConstructors != null) {
+      int index = ((Constructor) key).getIndex();
+      if (index >= 0 && index < myConstructors.length && myConstructors[index] == key) {
+        return myConstructorChildren[index];
+      }
+    }
+    for (int i = 0; i < mySize; i++) {
+      if (Objects.equals(myKeys[i], key)) {
+        return myChildren[i];
+      }
+    }
+    return null;
   }
 
   public void addChild(BranchKey key, ElimTree elimTree) {
-    myChildren.put(key, elimTree);
+    myEntries = null;
+    for (int i = 0; i < mySize; i++) {
+      if (Objects.equals(myKeys[i], key)) {
+        myChildren[i] = elimTree;
+        updateConstructorChild(key, elimTree);
+        return;
+      }
+    }
+
+    if (mySize == myKeys.length) {
+      int length = Math.max(2, mySize * 2);
+      myKeys = Arrays.copyOf(myKeys, length);
+      myChildren = Arrays.copyOf(myChildren, length);
+    }
+    myKeys[mySize] = key;
+    myChildren[mySize] = elimTree;
+    mySize++;
+    updateConstructorChild(key, elimTree);
+  }
+
+  private void updateConstructorChild(BranchKey key, ElimTree elimTree) {
+    if (!(key instanceof Constructor)) {
+      return;
+    }
+    int index = ((Constructor) key).getIndex();
+    if (index < 0) {
+      return;
+    }
+
+    if (myConstructors == null) {
+      int length = Math.max(index + 1, ((Constructor) key).getDataType().getConstructors().size());
+      myConstructors = new Constructor[length];
+      myConstructorChildren = new ElimTree[length];
+    } else if (index >= myConstructors.length) {
+      myConstructors = Arrays.copyOf(myConstructors, index + 1);
+      myConstructorChildren = Arrays.copyOf(myConstructorChildren, index + 1);
+    }
+    // Constructors of different data types with the same index are found by the linear search
+    if (myConstructors[index] == null || myConstructors[index] == key) {
+      myConstructors[index] = (Constructor) key;
+      myConstructorChildren[index] = elimTree;
+    }
   }
 
   private boolean isSingleConstructorTree() {
-    return myChildren.size() == 1 && myChildren.keySet().iterator().next() instanceof SingleConstructor;
+    return mySize == 1 && myKeys[0] instanceof SingleConstructor;
   }
 
   private List<Expression> getNewArguments(List<? extends Expression> arguments, Expression argument, int index) {
@@ -71,7 +145,7 @@ public class BranchElimTree extends ElimTree {
     } else {
       ConCallExpression conCall = argument.cast(ConCallExpression.class);
       if (conCall != null) {
-        ElimTree elimTree = myChildren.get(conCall.getDefinition());
+        ElimTree elimTree = getChild(conCall.getDefinition());
         if (elimTree != null) {
           newArguments = new ArrayList<>(conCall.getDefCallArguments().size() + arguments.size() - index - 1);
           newArguments.addAll(conCall.getDefCallArguments());
@@ -83,7 +157,7 @@ public class BranchElimTree extends ElimTree {
         IntegerExpression intExpr = argument.cast(IntegerExpression.class);
         if (intExpr != null) {
           boolean isZero = intExpr.isZero();
-          ElimTree elimTree = myChildren.get(isZero ? Prelude.ZERO : Prelude.SUC);
+          ElimTree elimTree = getChild(isZero ? Prelude.ZERO : Prelude.SUC);
           if (elimTree != null) {
             newArguments = new ArrayList<>();
             if (!isZero) {
@@ -121,21 +195,21 @@ public class BranchElimTree extends ElimTree {
     } else {
       ConCallExpression conCall = argument.cast(ConCallExpression.class);
       if (conCall != null) {
-        ElimTree elimTree = myChildren.get(conCall.getDefinition());
+        ElimTree elimTree = getChild(conCall.getDefinition());
         if (elimTree != null) {
           return elimTree.isWHNF(newArguments).min(decision);
         } else {
-          elimTree = myChildren.get(null);
+          elimTree = getChild(null);
           return elimTree == null ? decision : elimTree.isWHNF(newArguments).min(decision);
         }
       } else {
         IntegerExpression intExpr = argument.cast(IntegerExpression.class);
         if (intExpr != null) {
-          ElimTree elimTree = myChildren.get(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
+          ElimTree elimTree = getChild(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
           if (elimTree != null) {
             return elimTree.isWHNF(newArguments).min(decision);
           } else {
-            elimTree = myChildren.get(null);
+            elimTree = getChild(null);
             return elimTree == null ? decision : elimTree.isWHNF(newArguments).min(decision);
           }
         }
@@ -163,21 +237,21 @@ public class BranchElimTree extends ElimTree {
     } else {
       ConCallExpression conCall = argument.cast(ConCallExpression.class);
       if (conCall != null) {
-        ElimTree elimTree = myChildren.get(conCall.getDefinition());
+        ElimTree elimTree = getChild(conCall.getDefinition());
         if (elimTree != null) {
           return elimTree.getStuckExpression(newArguments, expression);
         } else {
-          elimTree = myChildren.get(null);
+          elimTree = getChild(null);
           return elimTree != null ? elimTree.getStuckExpression(newArguments, expression) : expression;
         }
       } else {
         IntegerExpression intExpr = argument.cast(IntegerExpression.class);
         if (intExpr != null) {
-          ElimTree elimTree = myChildren.get(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
+          ElimTree elimTree = getChild(intExpr.isZero() ? Prelude.ZERO : Prelude.SUC);
           if (elimTree != null) {
             return elimTree.getStuckExpression(newArguments, expression);
           } else {
-            elimTree = myChildren.get(null);
+            elimTree = getChild(null);
             return elimTree != null ? elimTree.getStuckExpression(newArguments, expression) : expression;
           }
         }
@@ -14,6 +14,7 @@ import org.arend.core.expr.visitor.ExpressionVisitor;
 import org.arend.core.expr.visitor.ExpressionVisitor2;
 import org.arend.core.expr.visitor.NormalizeVisitor;
 import org.arend.core.expr.visitor.StripVisitor;
+import org.arend.core.expr.visitor.VariablesMaskVisitor;
 import org.arend.core.sort.Sort;
 import org.arend.core.subst.InPlaceLevelSubstVisitor;
 import org.arend.ext.core.definition.CoreClassField;
@@ -28,7 +29,7 @@ import java.util.*;
 
 public class ClassCallExpression extends DefCallExpression implements Type, CoreClassCallExpression {
   private final ClassCallBinding myThisBinding = new ClassCallBinding();
-  private final Map<ClassField, Expression> myImplementations;
+  private final ImplementationMap myImplementations;
   private Sort mySort;
   private UniverseKind myUniverseKind;
 
@@ -62,14 +63,18 @@ public class ClassCallExpression extends DefCallExpression implements Type, Core
 
   public ClassCallExpression(ClassDefinition definition, Sort sortArgument) {
     super(definition, sortArgument);
-    myImplementations = Collections.emptyMap();
+    myImplementations = new ImplementationMap(definition);
     mySort = definition.getSort().subst(sortArgument.toLevelSubstitution());
     myUniverseKind = definition.getUniverseKind();
   }
 
+  /**
+   * If {@code implementations} is not an {@link ImplementationMap} of {@code definition}, it is copied.
+   * To add implementations after the expression is created, use {@link #getImplementedHere}.
+   */
   public ClassCallExpression(ClassDefinition definition, Sort sortArgument, Map<ClassField, Expression> implementations, Sort sort, UniverseKind universeKind) {
     super(definition, sortArgument);
-    myImplementations = implementations;
+    myImplementations = implementations instanceof ImplementationMap && ((ImplementationMap) implementations).getDefinition() == definition ? (ImplementationMap) implementations : new ImplementationMap(definition, implementations);
     mySort = sort;
     myUniverseKind = universeKind;
   }
@@ -105,6 +110,14 @@ public class ClassCallExpression extends DefCallExpression implements Type, Core
     return myImplementations;
   }
 
+  /**
+   * Implementations can be added after the expression is created, so the summary is not cached.
+   */
+  @Override
+  public int getVariablesMask() {
+    return accept(VariablesMaskVisitor.INSTANCE, null);
+  }
+
   @NotNull
   @Override
   public Collection<? extends Map.Entry<? extends CoreClassField, ? extends CoreExpression>> getImplementations() {
@@ -170,7 +183,7 @@ public class ClassCallExpression extends DefCallExpression implements Type, Core
   }
 
   public DependentLink getClassFieldParameters() {
-    Map<ClassField, Expression> implementations = new HashMap<>();
+    Map<ClassField, Expression> implementations = new ImplementationMap(getDefinition());
     NewExpression newExpr = new NewExpression(null, new ClassCallExpression(getDefinition(), getSortArgument(), implementations, Sort.PROP, UniverseKind.NO_UNIVERSES));
     newExpr.getClassCall().copyImplementationsFrom(this);
 
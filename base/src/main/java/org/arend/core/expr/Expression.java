@@ -25,6 +25,7 @@ import org.arend.ext.reference.Precedence;
 import org.arend.prelude.Prelude;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.prettyprint.PrettyPrintVisitor;
+import org.arend.typechecking.computation.TypecheckingProfiler;
 import org.arend.typechecking.implicitargs.equations.DummyEquations;
 import org.arend.typechecking.implicitargs.equations.Equations;
 import org.arend.util.Decision;
@@ -38,6 +39,8 @@ import java.util.List;
 import java.util.Set;
 
 public abstract class Expression implements Body, CoreExpression {
+  private int myVariablesMask;
+
   public abstract <P, R> R accept(ExpressionVisitor<? super P, ? extends R> visitor, P params);
 
   public abstract <P1, P2, R> R accept(ExpressionVisitor2<? super P1, ? super P2, ? extends R> visitor, P1 param1, P2 param2);
@@ -107,8 +110,27 @@ public abstract class Expression implements Body, CoreExpression {
     return getType(true);
   }
 
+  /**
+   * @return a summary of variables that occur in this expression; see {@link VariablesMaskVisitor}.
+   */
+  public int getVariablesMask() {
+    int mask = myVariablesMask;
+    if (mask == 0) {
+      mask = accept(VariablesMaskVisitor.INSTANCE, null) | VariablesMaskVisitor.COMPUTED;
+      myVariablesMask = mask;
+    }
+    return mask;
+  }
+
+  /**
+   * @return true if this expression definitely does not refer to bindings.
+   */
+  public boolean isClosed() {
+    return VariablesMaskVisitor.isClosed(getVariablesMask());
+  }
+
   public boolean findBinding(Variable binding) {
-    return accept(new FindBindingVisitor(Collections.singleton(binding)), null) != null;
+    return !VariablesMaskVisitor.doesNotContain(getVariablesMask(), VariablesMaskVisitor.getMask(binding)) && accept(new FindBindingVisitor(Collections.singleton(binding)), null) != null;
   }
 
   public Variable findBinding(Set<? extends Variable> bindings) {
@@ -154,7 +176,12 @@ public abstract class Expression implements Body, CoreExpression {
   @NotNull
   @Override
   public Expression normalize(@NotNull NormalizationMode mode) {
-    return accept(NormalizeVisitor.INSTANCE, mode);
+    long time = TypecheckingProfiler.start(TypecheckingProfiler.Category.NORMALIZATION);
+    try {
+      return accept(NormalizeVisitor.getInstance(), mode);
+    } finally {
+      TypecheckingProfiler.stop(TypecheckingProfiler.Category.NORMALIZATION, time);
+    }
   }
 
   @Nullable
@@ -15,15 +15,15 @@ public class ExpressionFactory {
   }
 
   public static DataCallExpression Interval() {
-    return new DataCallExpression(Prelude.INTERVAL, Sort.PROP, Collections.emptyList());
+    return ExpressionInterner.dataCall(Prelude.INTERVAL, Sort.PROP, Collections.emptyList());
   }
 
   public static ConCallExpression Left() {
-    return (ConCallExpression) ConCallExpression.make(Prelude.LEFT, Sort.PROP, Collections.emptyList(), Collections.emptyList());
+    return (ConCallExpression) ExpressionInterner.conCall(Prelude.LEFT, Sort.PROP, Collections.emptyList(), Collections.emptyList());
   }
 
   public static ConCallExpression Right() {
-    return (ConCallExpression) ConCallExpression.make(Prelude.RIGHT, Sort.PROP, Collections.emptyList(), Collections.emptyList());
+    return (ConCallExpression) ExpressionInterner.conCall(Prelude.RIGHT, Sort.PROP, Collections.emptyList(), Collections.emptyList());
   }
 
   public static DependentLink parameter(boolean explicit, String var, Type type) {
@@ -51,15 +51,15 @@ public class ExpressionFactory {
   }
 
   public static DataCallExpression Nat() {
-    return new DataCallExpression(Prelude.NAT, Sort.PROP, Collections.emptyList());
+    return ExpressionInterner.dataCall(Prelude.NAT, Sort.PROP, Collections.emptyList());
   }
 
   public static DataCallExpression Int() {
-    return new DataCallExpression(Prelude.INT, Sort.PROP, Collections.emptyList());
+    return ExpressionInterner.dataCall(Prelude.INT, Sort.PROP, Collections.emptyList());
   }
 
   public static IntegerExpression Zero() {
-    return new SmallIntegerExpression(0);
+    return ExpressionInterner.smallInteger(0);
   }
 
   public static Expression Suc(Expression expr) {
@@ -0,0 +1,123 @@
+package org.arend.core.expr;
+
+import org.arend.core.definition.Constructor;
+import org.arend.core.definition.DataDefinition;
+import org.arend.core.sort.Level;
+import org.arend.core.sort.Sort;
+import org.arend.prelude.Prelude;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shares closed core expressions which occur very often,
+ * such as levels, sorts, universes, small numbers, and calls of data types and constructors without arguments.
+ * Shared expressions do not contain variables, so in-place level substitutions do not change them.
+ */
+public final class ExpressionInterner {
+  private static final int MAX_CONSTANT = 16;
+  private static final Level[] LEVELS = new Level[MAX_CONSTANT + 1];
+  private static final Sort[] SORTS = new Sort[MAX_CONSTANT * (MAX_CONSTANT + 2)];
+  private static final UniverseExpression[] UNIVERSES = new UniverseExpression[SORTS.length];
+  private static final SmallIntegerExpression[] SMALL_INTEGERS = new SmallIntegerExpression[256];
+
+  private static volatile boolean ourEnabled = true;
+
+  static {
+    for (int i = 0; i < LEVELS.length; i++) {
+      LEVELS[i] = new Level(i - 1);
+    }
+    for (int p = 0; p < MAX_CONSTANT; p++) {
+      for (int h = 0; h <= MAX_CONSTANT; h++) {
+        SORTS[sortIndex(p, h)] = new Sort(LEVELS[p + 1], LEVELS[h]);
+      }
+      SORTS[sortIndex(p, MAX_CONSTANT + 1)] = new Sort(LEVELS[p + 1], Level.INFINITY);
+    }
+    for (int i = 0; i < SORTS.length; i++) {
+      UNIVERSES[i] = new UniverseExpression(SORTS[i]);
+    }
+    for (int i = 0; i < SMALL_INTEGERS.length; i++) {
+      SMALL_INTEGERS[i] = new SmallIntegerExpression(i);
+    }
+  }
+
+  private ExpressionInterner() {}
+
+  public static boolean isEnabled() {
+    return ourEnabled;
+  }
+
+  /**
+   * Enables or disables sharing of expressions created after this call.
+   */
+  public static void setEnabled(boolean enabled) {
+    ourEnabled = enabled;
+  }
+
+  private static int sortIndex(int pConstant, int hIndex) {
+    return pConstant * (MAX_CONSTANT + 2) + hIndex;
+  }
+
+  /**
+   * @return the index of a shared sort or -1 if the sort is not shared.
+   */
+  private static int sortIndex(Level pLevel, Level hLevel) {
+    if (!pLevel.isClosed() || pLevel.isInfinity() || pLevel.getConstant() < 0 || pLevel.getConstant() >= MAX_CONSTANT || !hLevel.isClosed()) {
+      return -1;
+    }
+    if (hLevel.isInfinity()) {
+      return sortIndex(pLevel.getConstant(), MAX_CONSTANT + 1);
+    }
+    int hConstant = hLevel.getConstant();
+    return hConstant >= -1 && hConstant < MAX_CONSTANT ? sortIndex(pLevel.getConstant(), hConstant + 1) : -1;
+  }
+
+  private static int sortIndex(Sort sort) {
+    return sortIndex(sort.getPLevel(), sort.getHLevel());
+  }
+
+  public static Level level(int constant) {
+    return ourEnabled && constant >= -1 && constant < MAX_CONSTANT ? LEVELS[constant + 1] : new Level(constant);
+  }
+
+  public static Sort sort(Level pLevel, Level hLevel) {
+    int index = ourEnabled ? sortIndex(pLevel, hLevel) : -1;
+    return index >= 0 ? SORTS[index] : new Sort(pLevel, hLevel);
+  }
+
+  public static UniverseExpression universe(Sort sort) {
+    int index = ourEnabled ? sortIndex(sort) : -1;
+    return index >= 0 ? UNIVERSES[index] : new UniverseExpression(sort);
+  }
+
+  public static SmallIntegerExpression smallInteger(int value) {
+    return ourEnabled && value >= 0 && value < SMALL_INTEGERS.length ? SMALL_INTEGERS[value] : new SmallIntegerExpression(value);
+  }
+
+  public static DataCallExpression dataCall(DataDefinition definition, Sort sortArgument, List<Expression> arguments) {
+    if (!ourEnabled || definition == null || !arguments.isEmpty()) {
+      return new DataCallExpression(definition, sortArgument, arguments);
+    }
+
+    int index = sortIndex(sortArgument);
+    if (index < 0) {
+      return new DataCallExpression(definition, sortArgument, arguments);
+    }
+    return (DataCallExpression) definition.getSharedCalls().computeIfAbsent(index, k -> new DataCallExpression(definition, SORTS[k], Collections.emptyList()));
+  }
+
+  public static Expression conCall(Constructor constructor, Sort sortArgument, List<Expression> dataTypeArguments, List<Expression> arguments) {
+    if (constructor == Prelude.ZERO) {
+      return smallInteger(0);
+    }
+    if (!ourEnabled || constructor == null || !dataTypeArguments.isEmpty() || !arguments.isEmpty()) {
+      return ConCallExpression.make(constructor, sortArgument, dataTypeArguments, arguments);
+    }
+
+    int index = sortIndex(sortArgument);
+    if (index < 0) {
+      return ConCallExpression.make(constructor, sortArgument, dataTypeArguments, arguments);
+    }
+    return constructor.getSharedCalls().computeIfAbsent(index, k -> new ConCallExpression(constructor, SORTS[k], Collections.emptyList(), Collections.emptyList()));
+  }
+}
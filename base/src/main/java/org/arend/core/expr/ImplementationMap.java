@@ -0,0 +1,263 @@
+package org.arend.core.expr;
+
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.ClassField;
+
+import java.util.*;
+
+/**
+ * A map from fields of a class to their implementations.
+ * Implementations are stored in an array indexed by {@link ClassDefinition#getFieldIndex}, and the map is iterated in the order of fields.
+ * Fields that do not belong to the class are kept in an ordinary map.
+ */
+public class ImplementationMap extends AbstractMap<ClassField, Expression> {
+  private static final ClassField[] EMPTY_FIELDS = new ClassField[0];
+  private static final Expression[] EMPTY_IMPLEMENTATIONS = new Expression[0];
+
+  private final ClassDefinition myDefinition;
+  // Fields are stored to check that the index of a field has not changed
+  private ClassField[] myFields = EMPTY_FIELDS;
+  private Expression[] myImplementations = EMPTY_IMPLEMENTATIONS;
+  private int mySize;
+  private Map<ClassField, Expression> myOtherImplementations;
+  private EntrySet myEntrySet;
+
+  public ImplementationMap(ClassDefinition definition) {
+    myDefinition = definition;
+  }
+
+  public ImplementationMap(ClassDefinition definition, Map<? extends ClassField, ? extends Expression> implementations) {
+    myDefinition = definition;
+    if (implementations instanceof ImplementationMap && ((ImplementationMap) implementations).myDefinition == definition && ((ImplementationMap) implementations).myOtherImplementations == null) {
+      ImplementationMap map = (ImplementationMap) implementations;
+      if (map.mySize > 0) {
+        myFields = map.myFields.clone();
+        myImplementations = map.myImplementations.clone();
+        mySize = map.mySize;
+      }
+    } else {
+      putAll(implementations);
+    }
+  }
+
+  public ClassDefinition getDefinition() {
+    return myDefinition;
+  }
+
+  private int getIndex(Object key) {
+    if (!(key instanceof ClassField)) {
+      return -1;
+    }
+    int index = myDefinition.getFieldIndex((ClassField) key);
+    return index >= 0 && index < myFields.length && myFields[index] == key ? index : -1;
+  }
+
+  @Override
+  public int size() {
+    return myOtherImplementations == null ? mySize : mySize + myOtherImplementations.size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return getIndex(key) >= 0 || myOtherImplementations != null && myOtherImplementations.containsKey(key);
+  }
+
+  @Override
+  public Expression get(Object key) {
+    int index = getIndex(key);
+    if (index >= 0) {
+      return myImplementations[index];
+    }
+    return myOtherImplementations == null ? null : myOtherImplementations.get(key);
+  }
+
+  @Override
+  public Expression put(ClassField key, Expression value) {
+    int index = getIndex(key);
+    if (index >= 0) {
+      Expression old = myImplementations[index];
+      myImplementations[index] = value;
+      return old;
+    }
+
+    if (myOtherImplementations == null || !myOtherImplementations.containsKey(key)) {
+      index = myDefinition.getFieldIndex(key);
+      if (index >= 0) {
+        if (index >= myFields.length) {
+          int length = Math.max(index + 1, myDefinition.getNumberOfFields());
+          myFields = Arrays.copyOf(myFields, length);
+          myImplementations = Arrays.copyOf(myImplementations, length);
+        }
+        if (myFields[index] == null) {
+          myFields[index] = key;
+          myImplementations[index] = value;
+          mySize++;
+          return null;
+        }
+      }
+    }
+
+    if (myOtherImplementations == null) {
+      myOtherImplementations = new LinkedHashMap<>();
+    }
+    return myOtherImplementations.put(key, value);
+  }
+
+  private void removeAt(int index) {
+    myFields[index] = null;
+    myImplementations[index] = null;
+    mySize--;
+  }
+
+  @Override
+  public Expression remove(Object key) {
+    int index = getIndex(key);
+    if (index >= 0) {
+      Expression old = myImplementations[index];
+      removeAt(index);
+      return old;
+    }
+    return myOtherImplementations == null ? null : myOtherImplementations.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    if (mySize > 0) {
+      Arrays.fill(myFields, null);
+      Arrays.fill(myImplementations, null);
+      mySize = 0;
+    }
+    myOtherImplementations = null;
+  }
+
+  @Override
+  public Set<Entry<ClassField, Expression>> entrySet() {
+    if (myEntrySet == null) {
+      myEntrySet = new EntrySet();
+    }
+    return myEntrySet;
+  }
+
+  private class EntrySet extends AbstractSet<Entry<ClassField, Expression>> {
+    @Override
+    public Iterator<Entry<ClassField, Expression>> iterator() {
+      return new EntryIterator();
+    }
+
+    @Override
+    public int size() {
+      return ImplementationMap.this.size();
+    }
+
+    @Override
+    public void clear() {
+      ImplementationMap.this.clear();
+    }
+  }
+
+  private class ArrayEntry implements Entry<ClassField, Expression> {
+    private final int myIndex;
+
+    ArrayEntry(int index) {
+      myIndex = index;
+    }
+
+    @Override
+    public ClassField getKey() {
+      return myFields[myIndex];
+    }
+
+    @Override
+    public Expression getValue() {
+      return myImplementations[myIndex];
+    }
+
+    @Override
+    public Expression setValue(Expression value) {
+      Expression old = myImplementations[myIndex];
+      myImplementations[myIndex] = value;
+      return old;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> entry = (Entry<?, ?>) obj;
+      return getKey() == entry.getKey() && Objects.equals(getValue(), entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(getKey()) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+
+  private class EntryIterator implements Iterator<Entry<ClassField, Expression>> {
+    private int myNext = -1;
+    private int myCurrent = -1;
+    private Iterator<Entry<ClassField, Expression>> myOtherIterator;
+
+    EntryIterator() {
+      findNext();
+    }
+
+    private void findNext() {
+      do {
+        myNext++;
+      } while (myNext < myFields.length && myFields[myNext] == null);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (myNext < myFields.length) {
+        return true;
+      }
+      if (myOtherIterator == null) {
+        if (myOtherImplementations == null) {
+          return false;
+        }
+        myOtherIterator = myOtherImplementations.entrySet().iterator();
+      }
+      return myOtherIterator.hasNext();
+    }
+
+    @Override
+    public Entry<ClassField, Expression> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      if (myOtherIterator != null) {
+        myCurrent = -1;
+        return myOtherIterator.next();
+      }
+      myCurrent = myNext;
+      findNext();
+      return new ArrayEntry(myCurrent);
+    }
+
+    @Override
+    public void remove() {
+      if (myOtherIterator != null) {
+        myOtherIterator.remove();
+        return;
+      }
+      if (myCurrent < 0) {
+        throw new IllegalStateException();
+      }
+      removeAt(myCurrent);
+      myCurrent = -1;
+    }
+  }
+}
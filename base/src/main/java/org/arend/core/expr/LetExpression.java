@@ -15,7 +15,6 @@ import org.arend.util.Decision;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -62,7 +61,7 @@ public class LetExpression extends Expression implements CoreLetExpression {
     NewExpression newExpr = expression.cast(NewExpression.class);
     if (newExpr != null && pattern.getFields() != null && pattern.getFields().size() == pattern.getPatterns().size()) {
       ClassCallExpression classCall = newExpr.getClassCall();
-      Map<ClassField, Expression> implementations = new HashMap<>();
+      Map<ClassField, Expression> implementations = new ImplementationMap(classCall.getDefinition());
       ClassCallExpression resultClassCall = new ClassCallExpression(classCall.getDefinition(), classCall.getSortArgument(), implementations, Sort.PROP, UniverseKind.NO_UNIVERSES);
 
       boolean someNotImplemented = false;
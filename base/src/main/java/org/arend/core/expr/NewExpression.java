@@ -11,7 +11,6 @@ import org.arend.util.Decision;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
 import java.util.Map;
 
 public class NewExpression extends Expression implements CoreNewExpression {
@@ -27,7 +26,7 @@ public class NewExpression extends Expression implements CoreNewExpression {
     NewExpression newExpr = renewExpression == null ? null : renewExpression.cast(NewExpression.class);
     if (newExpr != null) {
       myRenewExpression = newExpr.myRenewExpression;
-      Map<ClassField, Expression> implementations = new HashMap<>();
+      Map<ClassField, Expression> implementations = new ImplementationMap(classCall.getDefinition());
       NewExpression myNewExpr = new NewExpression(newExpr, classCall);
       for (ClassField field : classCall.getDefinition().getFields()) {
         if (classCall.getDefinition().isImplemented(field)) {
@@ -99,7 +98,7 @@ public class NewExpression extends Expression implements CoreNewExpression {
       return myClassCall;
     }
 
-    Map<ClassField, Expression> implementations = new HashMap<>();
+    Map<ClassField, Expression> implementations = new ImplementationMap(myClassCall.getDefinition());
     for (ClassField field : myClassCall.getDefinition().getFields()) {
       if (myClassCall.getDefinition().isImplemented(field)) {
         continue;
@@ -7,9 +7,14 @@ import org.arend.ext.core.expr.CoreExpressionVisitor;
 import org.arend.util.Decision;
 import org.jetbrains.annotations.NotNull;
 
+/**
+ * An explicit substitution which is applied to the expression when it is needed.
+ * If several substitutions are applied to an expression, they are composed into one.
+ */
 public class SubstExpression extends Expression {
   private final Expression myExpression;
   private final ExprSubstitution mySubstitution;
+  private Expression mySubstExpression;
 
   private SubstExpression(Expression expression, ExprSubstitution substitution) {
     myExpression = expression;
@@ -21,9 +26,11 @@ public class SubstExpression extends Expression {
       return expression;
     }
     if (expression instanceof SubstExpression) {
-      ExprSubstitution newSubstitution = new ExprSubstitution(((SubstExpression) expression).mySubstitution);
+      SubstExpression substExpr = (SubstExpression) expression;
+      ExprSubstitution newSubstitution = new ExprSubstitution(substExpr.mySubstitution);
       newSubstitution.subst(substitution);
       newSubstitution.addAll(substitution);
+      expression = substExpr.myExpression;
       substitution = newSubstitution;
     }
     return new SubstExpression(expression, substitution);
@@ -38,7 +45,15 @@ public class SubstExpression extends Expression {
   }
 
   public Expression getSubstExpression() {
-    return myExpression instanceof InferenceReferenceExpression && ((InferenceReferenceExpression) myExpression).getSubstExpression() == null ? myExpression : myExpression.subst(mySubstitution);
+    if (mySubstExpression != null) {
+      return mySubstExpression;
+    }
+    if (myExpression instanceof InferenceReferenceExpression && ((InferenceReferenceExpression) myExpression).getSubstExpression() == null) {
+      return myExpression;
+    }
+    // The result does not change after the inference variable is solved, so it is computed once
+    mySubstExpression = myExpression.subst(mySubstitution);
+    return mySubstExpression;
   }
 
   @Override
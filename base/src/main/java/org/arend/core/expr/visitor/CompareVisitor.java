@@ -53,7 +53,7 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
     } else if (elimTree1 instanceof BranchElimTree && elimTree2 instanceof BranchElimTree) {
       BranchElimTree branchElimTree1 = (BranchElimTree) elimTree1;
       BranchElimTree branchElimTree2 = (BranchElimTree) elimTree2;
-      if (branchElimTree1.keepConCall() != branchElimTree2.keepConCall() || branchElimTree1.getChildren().size() != branchElimTree2.getChildren().size()) {
+      if (branchElimTree1.keepConCall() != branchElimTree2.keepConCall() || branchElimTree1.getNumberOfChildren() != branchElimTree2.getNumberOfChildren()) {
         return false;
       }
       SingleConstructor single1 = branchElimTree1.getSingleConstructorKey();
@@ -144,6 +144,10 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
   }
 
   public boolean normalizedCompare(Expression expr1, Expression expr2, Expression type) {
+    if (expr1 == expr2) {
+      return true;
+    }
+
     Expression stuck1 = expr1.getStuckExpression();
     Expression stuck2 = expr2.getStuckExpression();
     if (stuck1 != null && stuck1.isError() && (stuck2 == null || !stuck2.isInstance(InferenceReferenceExpression.class)) ||
@@ -522,7 +526,7 @@ public class CompareVisitor implements ExpressionVisitor2<Expression, Expression
           }
         }
       } else {
-        Map<ClassField, Expression> implementations = new HashMap<>();
+        Map<ClassField, Expression> implementations = new ImplementationMap(classCall1.getDefinition());
         codSort = classCall1.getSort();
         ClassCallExpression classCall = new ClassCallExpression(classCall1.getDefinition(), classCall1.getSortArgument(), implementations, codSort, classCall1.getUniverseKind());
         int i = 0;
@@ -122,7 +122,7 @@ public class ElimBindingVisitor extends BaseExpressionVisitor<Void, Expression>
   }
 
   public ClassCallExpression visitClassCall(ClassCallExpression expr, boolean removeImplementations) {
-    Map<ClassField, Expression> newFieldSet = new HashMap<>();
+    Map<ClassField, Expression> newFieldSet = new ImplementationMap(expr.getDefinition());
     ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getSortArgument(), newFieldSet, expr.getSort(), expr.getUniverseKind());
     if (myKeepVisitor != null) {
       myKeepVisitor.getBindings().add(expr.getThisBinding());
@@ -12,28 +12,34 @@ import java.util.Set;
 
 public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
   private final Set<? extends Variable> myBindings;
+  private final int myBindingsMask;
 
   public FindBindingVisitor(Set<? extends Variable> binding) {
     myBindings = binding;
+    myBindingsMask = VariablesMaskVisitor.getMask(binding);
   }
 
   Set<? extends Variable> getBindings() {
     return myBindings;
   }
 
+  private Variable find(Expression expr) {
+    return VariablesMaskVisitor.doesNotContain(expr.getVariablesMask(), myBindingsMask) ? null : expr.accept(this, null);
+  }
+
   @Override
   public Variable visitApp(AppExpression expr, Void params) {
-    Variable result = expr.getFunction().accept(this, null);
+    Variable result = find(expr.getFunction());
     if (result != null) {
       return result;
     }
-    return expr.getArgument().accept(this, null);
+    return find(expr.getArgument());
   }
 
   @Override
   public Variable visitDefCall(DefCallExpression expr, Void params) {
     for (Expression arg : expr.getDefCallArguments()) {
-      Variable result = arg.accept(this, null);
+      Variable result = find(arg);
       if (result != null) {
         return result;
       }
@@ -44,7 +50,7 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
   @Override
   public Variable visitConCall(ConCallExpression expr, Void params) {
     for (Expression arg : expr.getDataTypeArguments()) {
-      Variable result = arg.accept(this, null);
+      Variable result = find(arg);
       if (result != null) {
         return result;
       }
@@ -55,7 +61,7 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
   @Override
   public Variable visitClassCall(ClassCallExpression expr, Void params) {
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
-      Variable result = entry.getValue().accept(this, null);
+      Variable result = find(entry.getValue());
       if (result != null) {
         return result;
       }
@@ -70,24 +76,24 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitInferenceReference(InferenceReferenceExpression expr, Void params) {
-    return expr.getSubstExpression() != null ? expr.getSubstExpression().accept(this, null) : myBindings.contains(expr.getVariable()) ? expr.getVariable() : null;
+    return expr.getSubstExpression() != null ? find(expr.getSubstExpression()) : myBindings.contains(expr.getVariable()) ? expr.getVariable() : null;
   }
 
   @Override
   public Variable visitSubst(SubstExpression expr, Void params) {
-    return expr.getSubstExpression().accept(this, null);
+    return find(expr.getSubstExpression());
   }
 
   @Override
   public Variable visitLam(LamExpression expr, Void params) {
     Variable result = visitDependentLink(expr.getParameters());
-    return result != null ? result : expr.getBody().accept(this, null);
+    return result != null ? result : find(expr.getBody());
   }
 
   @Override
   public Variable visitPi(PiExpression expr, Void params) {
     Variable result = visitDependentLink(expr.getParameters());
-    return result != null ? result : expr.getCodomain().accept(this, null);
+    return result != null ? result : find(expr.getCodomain());
   }
 
   @Override
@@ -103,12 +109,12 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
   @Override
   public Variable visitTuple(TupleExpression expr, Void params) {
     for (Expression field : expr.getFields()) {
-      Variable result = field.accept(this, null);
+      Variable result = find(field);
       if (result != null) {
         return result;
       }
     }
-    return expr.getSigmaType().accept(this, null);
+    return find(expr.getSigmaType());
   }
 
   @Override
@@ -118,13 +124,13 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitProj(ProjExpression expr, Void params) {
-    return expr.getExpression().accept(this, null);
+    return find(expr.getExpression());
   }
 
   private Variable visitDependentLink(DependentLink link) {
     for (; link.hasNext(); link = link.getNext()) {
       link = link.getNextTyped(null);
-      Variable result = link.getTypeExpr().accept(this, null);
+      Variable result = find(link.getTypeExpr());
       if (result != null) {
         return result;
       }
@@ -135,41 +141,41 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
   @Override
   public Variable visitNew(NewExpression expr, Void params) {
     Variable result = visitClassCall(expr.getClassCall(), null);
-    return result != null ? result : expr.getRenewExpression() == null ? null : expr.getRenewExpression().accept(this, null);
+    return result != null ? result : expr.getRenewExpression() == null ? null : find(expr.getRenewExpression());
   }
 
   @Override
   public Variable visitPEval(PEvalExpression expr, Void params) {
-    return expr.getExpression().accept(this, null);
+    return find(expr.getExpression());
   }
 
   @Override
   public Variable visitLet(LetExpression letExpression, Void params) {
     for (LetClause clause : letExpression.getClauses()) {
-      Variable result = clause.getExpression().accept(this, null);
+      Variable result = find(clause.getExpression());
       if (result != null) {
         return result;
       }
     }
-    return letExpression.getExpression().accept(this, null);
+    return find(letExpression.getExpression());
   }
 
   @Override
   public Variable visitCase(CaseExpression expr, Void params) {
     for (Expression argument : expr.getArguments()) {
-      Variable result = argument.accept(this, null);
+      Variable result = find(argument);
       if (result != null) {
         return result;
       }
     }
 
-    Variable result = expr.getResultType().accept(this, null);
+    Variable result = find(expr.getResultType());
     if (result != null) {
       return result;
     }
 
     if (expr.getResultTypeLevel() != null) {
-      result = expr.getResultTypeLevel().accept(this, null);
+      result = find(expr.getResultTypeLevel());
       if (result != null) {
         return result;
       }
@@ -201,10 +207,10 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
       for (IntervalElim.CasePair casePair : intervalElim.getCases()) {
         Variable var = null;
         if (casePair.proj1 != null) {
-          var = casePair.proj1.accept(this, null);
+          var = find(casePair.proj1);
         }
         if (var == null && casePair.proj2 != null) {
-          var = casePair.proj2.accept(this, null);
+          var = find(casePair.proj2);
         }
         if (var != null) {
           return var;
@@ -226,7 +232,7 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
         return result;
       }
       if (clause.getExpression() != null) {
-        result = clause.getExpression().accept(this, null);
+        result = find(clause.getExpression());
         if (result != null) {
           return result;
         }
@@ -237,8 +243,8 @@ public class FindBindingVisitor extends BaseExpressionVisitor<Void, Variable> {
 
   @Override
   public Variable visitOfType(OfTypeExpression expr, Void params) {
-    Variable result = expr.getExpression().accept(this, null);
-    return result != null ? result : expr.getTypeOf().accept(this, null);
+    Variable result = find(expr.getExpression());
+    return result != null ? result : find(expr.getTypeOf());
   }
 
   @Override
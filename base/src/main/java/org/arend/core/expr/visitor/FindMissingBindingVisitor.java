@@ -24,19 +24,23 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
     return myBindings;
   }
 
+  private Variable find(Expression expr) {
+    return expr.isClosed() ? null : expr.accept(this, null);
+  }
+
   @Override
   public Variable visitApp(AppExpression expr, Void params) {
-    Variable result = expr.getFunction().accept(this, null);
+    Variable result = find(expr.getFunction());
     if (result != null) {
       return result;
     }
-    return expr.getArgument().accept(this, null);
+    return find(expr.getArgument());
   }
 
   @Override
   public Variable visitDefCall(DefCallExpression expr, Void params) {
     for (Expression arg : expr.getDefCallArguments()) {
-      Variable result = arg.accept(this, null);
+      Variable result = find(arg);
       if (result != null) {
         return result;
       }
@@ -47,7 +51,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitConCall(ConCallExpression expr, Void params) {
     for (Expression arg : expr.getDataTypeArguments()) {
-      Variable result = arg.accept(this, null);
+      Variable result = find(arg);
       if (result != null) {
         return result;
       }
@@ -58,7 +62,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitClassCall(ClassCallExpression expr, Void params) {
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
-      Variable result = entry.getValue().accept(this, null);
+      Variable result = find(entry.getValue());
       if (result != null) {
         return result;
       }
@@ -73,12 +77,12 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
 
   @Override
   public Variable visitInferenceReference(InferenceReferenceExpression expr, Void params) {
-    return expr.getSubstExpression() != null ? expr.getSubstExpression().accept(this, null) : null;
+    return expr.getSubstExpression() != null ? find(expr.getSubstExpression()) : null;
   }
 
   @Override
   public Variable visitSubst(SubstExpression expr, Void params) {
-    return expr.getSubstExpression().accept(this, null);
+    return find(expr.getSubstExpression());
   }
 
   @Override
@@ -88,7 +92,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
       return result;
     }
 
-    result = expr.getBody().accept(this, null);
+    result = find(expr.getBody());
     freeParameters(expr.getParameters());
     return result;
   }
@@ -100,7 +104,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
       return result;
     }
 
-    result = expr.getCodomain().accept(this, null);
+    result = find(expr.getCodomain());
     freeParameters(expr.getParameters());
     return result;
   }
@@ -118,12 +122,12 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitTuple(TupleExpression expr, Void params) {
     for (Expression field : expr.getFields()) {
-      Variable result = field.accept(this, null);
+      Variable result = find(field);
       if (result != null) {
         return result;
       }
     }
-    return expr.getSigmaType().accept(this, null);
+    return find(expr.getSigmaType());
   }
 
   @Override
@@ -137,13 +141,13 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
 
   @Override
   public Variable visitProj(ProjExpression expr, Void params) {
-    return expr.getExpression().accept(this, null);
+    return find(expr.getExpression());
   }
 
   private Variable visitParameters(DependentLink parameters) {
     for (DependentLink link = parameters; link.hasNext(); link = link.getNext()) {
       DependentLink link1 = link.getNextTyped(null);
-      Variable result = link1.getTypeExpr().accept(this, null);
+      Variable result = find(link1.getTypeExpr());
       if (result != null) {
         for (; parameters != link; parameters = parameters.getNext()) {
           myBindings.remove(parameters);
@@ -168,24 +172,24 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitNew(NewExpression expr, Void params) {
     Variable result = visitClassCall(expr.getClassCall(), null);
-    return result != null ? result : expr.getRenewExpression() == null ? null : expr.getRenewExpression().accept(this, null);
+    return result != null ? result : expr.getRenewExpression() == null ? null : find(expr.getRenewExpression());
   }
 
   @Override
   public Variable visitPEval(PEvalExpression expr, Void params) {
-    return expr.getExpression().accept(this, null);
+    return find(expr.getExpression());
   }
 
   @Override
   public Variable visitLet(LetExpression letExpression, Void params) {
     for (LetClause clause : letExpression.getClauses()) {
-      Variable result = clause.getExpression().accept(this, null);
+      Variable result = find(clause.getExpression());
       if (result != null) {
         return result;
       }
       myBindings.add(clause);
     }
-    Variable result = letExpression.getExpression().accept(this, null);
+    Variable result = find(letExpression.getExpression());
     letExpression.getClauses().forEach(myBindings::remove);
     return result;
   }
@@ -193,7 +197,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
   @Override
   public Variable visitCase(CaseExpression expr, Void params) {
     for (Expression argument : expr.getArguments()) {
-      Variable result = argument.accept(this, null);
+      Variable result = find(argument);
       if (result != null) {
         return result;
       }
@@ -204,9 +208,9 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
       return result;
     }
 
-    result = expr.getResultType().accept(this, null);
+    result = find(expr.getResultType());
     if (result == null && expr.getResultTypeLevel() != null) {
-      result = expr.getResultTypeLevel().accept(this, null);
+      result = find(expr.getResultTypeLevel());
     }
     freeParameters(expr.getParameters());
     if (result != null) {
@@ -223,7 +227,7 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
         return result;
       }
       if (clause.getExpression() != null) {
-        result = clause.getExpression().accept(this, null);
+        result = find(clause.getExpression());
         if (result != null) {
           return result;
         }
@@ -236,8 +240,8 @@ public class FindMissingBindingVisitor extends BaseExpressionVisitor<Void, Varia
 
   @Override
   public Variable visitOfType(OfTypeExpression expr, Void params) {
-    Variable result = expr.getExpression().accept(this, null);
-    return result != null ? result : expr.getTypeOf().accept(this, null);
+    Variable result = find(expr.getExpression());
+    return result != null ? result : find(expr.getTypeOf());
   }
 
   @Override
@@ -1,8 +1,7 @@
 package org.arend.core.expr.visitor;
 
 import org.arend.core.context.binding.Binding;
-import org.arend.core.expr.Expression;
-import org.arend.core.expr.ReferenceExpression;
+import org.arend.core.expr.*;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -25,4 +24,36 @@ public class FreeVariablesCollector extends VoidExpressionVisitor<Void> {
     myResult.add(expr.getBinding());
     return null;
   }
+
+  // Closed subexpressions are skipped
+
+  @Override
+  public Void visitApp(AppExpression expr, Void params) {
+    return expr.isClosed() ? null : super.visitApp(expr, params);
+  }
+
+  @Override
+  public Void visitDefCall(DefCallExpression expr, Void params) {
+    return expr.isClosed() ? null : super.visitDefCall(expr, params);
+  }
+
+  @Override
+  public Void visitConCall(ConCallExpression expr, Void params) {
+    return expr.isClosed() ? null : super.visitConCall(expr, params);
+  }
+
+  @Override
+  public Void visitLam(LamExpression expr, Void params) {
+    return expr.isClosed() ? null : super.visitLam(expr, params);
+  }
+
+  @Override
+  public Void visitPi(PiExpression expr, Void params) {
+    return expr.isClosed() ? null : super.visitPi(expr, params);
+  }
+
+  @Override
+  public Void visitSigma(SigmaExpression expr, Void params) {
+    return expr.isClosed() ? null : super.visitSigma(expr, params);
+  }
 }
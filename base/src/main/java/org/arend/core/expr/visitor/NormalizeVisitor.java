@@ -3,6 +3,7 @@ package org.arend.core.expr.visitor;
 import org.arend.core.constructor.IdpConstructor;
 import org.arend.core.constructor.SingleConstructor;
 import org.arend.core.context.binding.EvaluatingBinding;
+import org.arend.core.context.binding.Variable;
 import org.arend.core.context.binding.inference.TypeClassInferenceVariable;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
@@ -19,17 +20,229 @@ import org.arend.typechecking.computation.ComputationRunner;
 import org.arend.util.Pair;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 import static org.arend.core.expr.ExpressionFactory.*;
 
 public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, Expression>  {
-  public static final NormalizeVisitor INSTANCE = new NormalizeVisitor();
+  public static final NormalizeVisitor INSTANCE = new NormalizeVisitor(Engine.SUBSTITUTION, null);
+
+  /**
+   * Normalization engines.
+   * {@link #SUBSTITUTION} substitutes arguments into the bodies of functions, lambdas, and clauses before evaluating them.
+   * {@link #ENVIRONMENT} evaluates them in an environment and substitutes only subexpressions that occur in the result,
+   * so that, for example, branches of {@code \case} which are not chosen are never substituted.
+   */
+  public enum Engine { SUBSTITUTION, ENVIRONMENT }
+
+  private static final ThreadLocal<NormalizeVisitor> CURRENT_INSTANCE = new ThreadLocal<>();
+
+  private final boolean myUseEnvironments;
+  private final WhnfCache myWhnfCache;
+
+  /**
+   * Creates a visitor for a single session, such as a typechecking session.
+   *
+   * @param whnfCache a cache of weak head normal forms of function calls or null if they should not be cached.
+   */
+  public NormalizeVisitor(Engine engine, WhnfCache whnfCache) {
+    myUseEnvironments = engine == Engine.ENVIRONMENT;
+    myWhnfCache = whnfCache;
+  }
+
+  /**
+   * @return the visitor used by {@link Expression#normalize} in the current thread.
+   */
+  public static NormalizeVisitor getInstance() {
+    NormalizeVisitor visitor = CURRENT_INSTANCE.get();
+    return visitor != null ? visitor : INSTANCE;
+  }
+
+  /**
+   * Runs a computation in which {@link Expression#normalize} uses this visitor in the current thread.
+   */
+  public <T> T run(Supplier<T> computation) {
+    NormalizeVisitor prevVisitor = CURRENT_INSTANCE.get();
+    CURRENT_INSTANCE.set(this);
+    try {
+      return computation.get();
+    } finally {
+      if (prevVisitor != null) {
+        CURRENT_INSTANCE.set(prevVisitor);
+      } else {
+        CURRENT_INSTANCE.remove();
+      }
+    }
+  }
+
+  public Engine getEngine() {
+    return myUseEnvironments ? Engine.ENVIRONMENT : Engine.SUBSTITUTION;
+  }
+
+  /**
+   * An expression together with the environment in which it occurs.
+   * It is substituted only when it is needed and the result is remembered.
+   */
+  private static final class Closure {
+    private final Expression myExpression;
+    private final Environment myEnvironment;
+    private final LevelSubstitution myLevelSubstitution;
+    private Expression myValue;
+
+    Closure(Expression expression, Environment environment, LevelSubstitution levelSubstitution) {
+      myExpression = expression;
+      myEnvironment = environment;
+      myLevelSubstitution = levelSubstitution;
+    }
 
-  private NormalizeVisitor() {
+    Closure(Expression value) {
+      this(value, null, LevelSubstitution.EMPTY);
+      myValue = value;
+    }
+
+    Expression getValue() {
+      if (myValue == null) {
+        myValue = Environment.subst(myEnvironment, myExpression, myLevelSubstitution);
+      }
+      return myValue;
+    }
+  }
+
+  /**
+   * A list of variables bound to closures; the empty environment is represented by null.
+   */
+  private static final class Environment {
+    private final Variable myVariable;
+    private final Closure myClosure;
+    private final Environment myNext;
+
+    Environment(Variable variable, Closure closure, Environment next) {
+      myVariable = variable;
+      myClosure = closure;
+      myNext = next;
+    }
+
+    static Environment make(ExprSubstitution substitution) {
+      Environment environment = null;
+      for (Map.Entry<Variable, Expression> entry : substitution.getEntries()) {
+        environment = new Environment(entry.getKey(), new Closure(entry.getValue()), environment);
+      }
+      return environment;
+    }
+
+    static Closure lookup(Environment environment, Variable variable) {
+      for (; environment != null; environment = environment.myNext) {
+        if (environment.myVariable == variable) {
+          return environment.myClosure;
+        }
+      }
+      return null;
+    }
+
+    /**
+     * Substitutes closures of variables that may occur in {@code expr}.
+     */
+    static Expression subst(Environment environment, Expression expr, LevelSubstitution levelSubstitution) {
+      ExprSubstitution substitution = new ExprSubstitution();
+      int mask = expr.getVariablesMask();
+      for (; environment != null; environment = environment.myNext) {
+        if (!VariablesMaskVisitor.doesNotContain(mask, VariablesMaskVisitor.getMask(environment.myVariable)) && substitution.get(environment.myVariable) == null) {
+          substitution.add(environment.myVariable, environment.myClosure.getValue());
+        }
+      }
+      return substitution.isEmpty() && levelSubstitution.isEmpty() ? expr : expr.subst(substitution, levelSubstitution);
+    }
+  }
+
+  /**
+   * Normalizes {@code expr.subst(substitution, levelSubstitution)}.
+   */
+  private Expression evaluate(Expression expr, ExprSubstitution substitution, LevelSubstitution levelSubstitution, NormalizationMode mode) {
+    if (!myUseEnvironments) {
+      return expr.subst(substitution, levelSubstitution).accept(this, mode);
+    }
+
+    Environment environment = Environment.make(substitution);
+    // Arguments of the current expression in the reversed order
+    List<Closure> arguments = new ArrayList<>();
+    List<Boolean> isExplicit = new ArrayList<>();
+    while (true) {
+      if (expr instanceof AppExpression) {
+        arguments.add(new Closure(((AppExpression) expr).getArgument(), environment, levelSubstitution));
+        isExplicit.add(((AppExpression) expr).isExplicit());
+        expr = ((AppExpression) expr).getFunction();
+        continue;
+      }
+
+      if (expr instanceof ReferenceExpression) {
+        Closure closure = Environment.lookup(environment, ((ReferenceExpression) expr).getBinding());
+        if (closure != null) {
+          if (closure.myValue != null) {
+            expr = closure.myValue;
+            environment = null;
+            levelSubstitution = LevelSubstitution.EMPTY;
+          } else {
+            expr = closure.myExpression;
+            environment = closure.myEnvironment;
+            levelSubstitution = closure.myLevelSubstitution;
+          }
+          continue;
+        }
+      }
+
+      if (expr instanceof LamExpression && !arguments.isEmpty()) {
+        LamExpression lamExpr = (LamExpression) expr;
+        SingleDependentLink link = lamExpr.getParameters();
+        for (; link.hasNext() && !arguments.isEmpty(); link = link.getNext()) {
+          environment = new Environment(link, arguments.remove(arguments.size() - 1), environment);
+          isExplicit.remove(isExplicit.size() - 1);
+        }
+        expr = link.hasNext() ? new LamExpression(lamExpr.getResultSort(), link, lamExpr.getBody()) : lamExpr.getBody();
+        continue;
+      }
+
+      if (expr instanceof CaseExpression && !((CaseExpression) expr).isSCase()) {
+        CaseExpression caseExpr = (CaseExpression) expr;
+        List<Expression> caseArgs = new ArrayList<>(caseExpr.getArguments().size());
+        for (Expression argument : caseExpr.getArguments()) {
+          caseArgs.add(Environment.subst(environment, argument, levelSubstitution));
+        }
+        Pair<Expression, ExprSubstitution> clause = evalClause(caseExpr.getElimBody(), caseArgs, new ExprSubstitution());
+        if (clause != null) {
+          for (Map.Entry<Variable, Expression> entry : clause.proj2.getEntries()) {
+            environment = new Environment(entry.getKey(), new Closure(entry.getValue()), environment);
+          }
+          expr = clause.proj1;
+          continue;
+        }
+      }
+
+      Expression function = Environment.subst(environment, expr, levelSubstitution).accept(this, mode);
+      if (arguments.isEmpty()) {
+        return function;
+      }
+
+      if (function.isInstance(LamExpression.class)) {
+        expr = function.cast(LamExpression.class);
+        environment = null;
+        levelSubstitution = LevelSubstitution.EMPTY;
+        continue;
+      }
+
+      for (int i = arguments.size() - 1; i >= 0; i--) {
+        Expression argument = arguments.get(i).getValue();
+        function = AppExpression.make(function, mode == NormalizationMode.WHNF ? argument : argument.accept(this, mode), isExplicit.get(i));
+      }
+      return function;
+    }
   }
 
   @Override
   public Expression visitApp(AppExpression expr, NormalizationMode mode) {
+    if (myUseEnvironments) {
+      return evaluate(expr, new ExprSubstitution(), LevelSubstitution.EMPTY, mode);
+    }
+
     Expression function = expr.getFunction().accept(this, mode);
     LamExpression lamExpr = function.cast(LamExpression.class);
     if (lamExpr != null) {
@@ -344,11 +557,11 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, E
       body = elim.getOtherwise();
     }
 
-    Expression result;
+    Pair<Expression, ExprSubstitution> result;
     if (body instanceof Expression) {
-      result = mode == NormalizationMode.RNF || mode == NormalizationMode.RNF_EXP ? null : ((Expression) body).subst(getDataTypeArgumentsSubstitution(expr).add(definition.getParameters(), defCallArgs), expr.getSortArgument().toLevelSubstitution());
+      result = mode == NormalizationMode.RNF || mode == NormalizationMode.RNF_EXP ? null : new Pair<>((Expression) body, getDataTypeArgumentsSubstitution(expr).add(definition.getParameters(), defCallArgs));
     } else if (body instanceof ElimBody) {
-      result = eval((ElimBody) body, defCallArgs, getDataTypeArgumentsSubstitution(expr), expr.getSortArgument().toLevelSubstitution());
+      result = evalClause((ElimBody) body, defCallArgs, getDataTypeArgumentsSubstitution(expr));
     } else {
       assert body == null;
       result = null;
@@ -356,7 +569,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, E
 
     ComputationRunner.checkCanceled();
 
-    return result == null ? applyDefCall(expr, mode) : result.accept(this, mode);
+    return result == null ? applyDefCall(expr, mode) : evaluate(result.proj1, result.proj2, expr.getSortArgument().toLevelSubstitution(), mode);
   }
 
   public Stack<Expression> makeStack(List<? extends Expression> arguments) {
@@ -386,6 +599,17 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, E
   }
 
   public Expression eval(ElimBody elimBody, List<? extends Expression> arguments, ExprSubstitution substitution, LevelSubstitution levelSubstitution) {
+    Pair<Expression, ExprSubstitution> clause = evalClause(elimBody, arguments, substitution);
+    return clause == null ? null : clause.proj1.subst(clause.proj2, levelSubstitution);
+  }
+
+  /**
+   * Finds the clause that matches given arguments.
+   *
+   * @return the expression of the clause together with the substitution which extends {@code substitution} with matched arguments,
+   *         or null if the arguments do not match any clause.
+   */
+  private Pair<Expression, ExprSubstitution> evalClause(ElimBody elimBody, List<? extends Expression> arguments, ExprSubstitution substitution) {
     Stack<Expression> stack = makeStack(arguments);
     List<Expression> result = new ArrayList<>();
 
@@ -402,7 +626,7 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, E
         for (DependentLink link = clause.getParameters(); link.hasNext(); link = link.getNext(), i++) {
           substitution.add(link, result.get(leafElimTree.getArgumentIndex(i)));
         }
-        return Objects.requireNonNull(clause.getExpression()).subst(substitution, levelSubstitution);
+        return new Pair<>(Objects.requireNonNull(clause.getExpression()), substitution);
       }
 
       elimTree = updateStack(stack, result, (BranchElimTree) elimTree);
@@ -519,14 +743,27 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, E
       return FieldCallExpression.make((ClassField) expr.getDefinition(), expr.getSortArgument(), mode == NormalizationMode.NF ? thisExpr.accept(this, mode) : thisExpr);
     }
 
-    return expr.getDefinition() instanceof Function ? visitFunctionDefCall(expr, mode) : applyDefCall(expr, mode);
+    if (!(expr.getDefinition() instanceof Function)) {
+      return applyDefCall(expr, mode);
+    }
+
+    if (myWhnfCache == null || mode != NormalizationMode.WHNF || !(expr instanceof FunCallExpression) || !WhnfCache.isCacheable((FunCallExpression) expr)) {
+      return visitFunctionDefCall(expr, mode);
+    }
+
+    Expression result = myWhnfCache.get((FunCallExpression) expr);
+    if (result == null) {
+      result = visitFunctionDefCall(expr, mode);
+      myWhnfCache.put((FunCallExpression) expr, result);
+    }
+    return result;
   }
 
   @Override
   public ClassCallExpression visitClassCall(ClassCallExpression expr, NormalizationMode mode) {
     if (mode == NormalizationMode.WHNF) return expr;
 
-    Map<ClassField, Expression> fieldSet = new HashMap<>();
+    Map<ClassField, Expression> fieldSet = new ImplementationMap(expr.getDefinition());
     ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getSortArgument(), fieldSet, expr.getSort(), expr.getUniverseKind());
     for (Map.Entry<ClassField, Expression> entry : expr.getImplementedHere().entrySet()) {
       fieldSet.put(entry.getKey(), entry.getValue().accept(this, mode).subst(expr.getThisBinding(), new ReferenceExpression(result.getThisBinding())));
@@ -663,9 +900,9 @@ public class NormalizeVisitor extends BaseExpressionVisitor<NormalizationMode, E
   @Override
   public Expression visitCase(CaseExpression expr, NormalizationMode mode) {
     if (!expr.isSCase()) {
-      Expression result = eval(expr.getElimBody(), expr.getArguments(), new ExprSubstitution(), LevelSubstitution.EMPTY);
+      Pair<Expression, ExprSubstitution> result = evalClause(expr.getElimBody(), expr.getArguments(), new ExprSubstitution());
       if (result != null) {
-        return result.accept(this, mode);
+        return evaluate(result.proj1, result.proj2, LevelSubstitution.EMPTY, mode);
       }
     }
     if (mode == NormalizationMode.WHNF) {
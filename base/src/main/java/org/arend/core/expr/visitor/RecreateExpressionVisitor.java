@@ -8,7 +8,6 @@ import org.arend.core.subst.SubstVisitor;
 import org.arend.ext.core.expr.CoreExpression;
 import org.arend.ext.core.ops.ExpressionMapper;
 
-import java.util.HashMap;
 import java.util.Map;
 
 public class RecreateExpressionVisitor extends SubstVisitor {
@@ -53,7 +52,7 @@ public class RecreateExpressionVisitor extends SubstVisitor {
       return (Expression) result;
     }
 
-    Map<ClassField, Expression> fieldSet = new HashMap<>();
+    Map<ClassField, Expression> fieldSet = new ImplementationMap(expr.getDefinition());
     ClassCallExpression classCall = new ClassCallExpression(expr.getDefinition(), expr.getSortArgument().subst(getLevelSubstitution()), fieldSet, expr.getSort().subst(getLevelSubstitution()), expr.getUniverseKind());
     if (expr.getImplementedHere().isEmpty()) {
       return classCall;
@@ -0,0 +1,205 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.context.binding.EvaluatingBinding;
+import org.arend.core.context.binding.Variable;
+import org.arend.core.context.param.DependentLink;
+import org.arend.core.elimtree.ElimClause;
+import org.arend.core.expr.*;
+import org.arend.core.expr.let.LetClause;
+import org.arend.core.pattern.Pattern;
+
+import java.util.Collection;
+
+/**
+ * Computes a summary of variables that occur in an expression.
+ * The summary is a bloom filter of bindings and definitions together with a few flags.
+ * Bound variables are not removed from it, so it approximates the set of free variables from above.
+ * Summaries of subexpressions are taken from {@link Expression#getVariablesMask}, so they are computed only once.
+ */
+public class VariablesMaskVisitor extends BaseExpressionVisitor<Void, Integer> {
+  public static final VariablesMaskVisitor INSTANCE = new VariablesMaskVisitor();
+
+  private static final int NUMBER_OF_BITS = 29;
+  private static final int VARIABLES = (1 << NUMBER_OF_BITS) - 1;
+  /**
+   * The expression contains a reference to a binding.
+   */
+  public static final int HAS_BINDINGS = 1 << 29;
+  /**
+   * The expression may change or contains variables that are not recorded in the summary, such as inference variables.
+   */
+  public static final int UNKNOWN = 1 << 30;
+  /**
+   * The summary is computed; it is used to distinguish computed summaries from the default value of the field.
+   */
+  public static final int COMPUTED = 1 << 31;
+
+  private VariablesMaskVisitor() {}
+
+  public static int getMask(Variable variable) {
+    int hash = System.identityHashCode(variable);
+    hash ^= hash >>> 16;
+    return 1 << ((hash & 0x7fffffff) % NUMBER_OF_BITS);
+  }
+
+  public static int getMask(Collection<? extends Variable> variables) {
+    int mask = 0;
+    for (Variable variable : variables) {
+      mask |= getMask(variable);
+      if (mask == VARIABLES) {
+        break;
+      }
+    }
+    return mask;
+  }
+
+  /**
+   * @return true if the summary shows that none of the variables from {@code variablesMask} occur in the expression.
+   */
+  public static boolean doesNotContain(int mask, int variablesMask) {
+    return (mask & (variablesMask | UNKNOWN)) == 0;
+  }
+
+  /**
+   * @return true if the summary shows that the expression does not refer to bindings.
+   */
+  public static boolean isClosed(int mask) {
+    return (mask & (HAS_BINDINGS | UNKNOWN)) == 0;
+  }
+
+  private static int getExpressionsMask(Collection<? extends Expression> expressions) {
+    int mask = 0;
+    for (Expression expression : expressions) {
+      mask |= expression.getVariablesMask();
+    }
+    return mask;
+  }
+
+  private static int getParametersMask(DependentLink link) {
+    int mask = 0;
+    for (; link.hasNext(); link = link.getNext()) {
+      link = link.getNextTyped(null);
+      mask |= link.getTypeExpr().getVariablesMask();
+    }
+    return mask;
+  }
+
+  @Override
+  public Integer visitApp(AppExpression expr, Void params) {
+    return expr.getFunction().getVariablesMask() | expr.getArgument().getVariablesMask();
+  }
+
+  @Override
+  public Integer visitDefCall(DefCallExpression expr, Void params) {
+    return getMask(expr.getDefinition()) | getExpressionsMask(expr.getDefCallArguments());
+  }
+
+  @Override
+  public Integer visitConCall(ConCallExpression expr, Void params) {
+    return visitDefCall(expr, null) | getExpressionsMask(expr.getDataTypeArguments());
+  }
+
+  @Override
+  public Integer visitFieldCall(FieldCallExpression expr, Void params) {
+    return getMask(expr.getDefinition()) | expr.getArgument().getVariablesMask();
+  }
+
+  @Override
+  public Integer visitClassCall(ClassCallExpression expr, Void params) {
+    return visitDefCall(expr, null) | getExpressionsMask(expr.getImplementedHere().values());
+  }
+
+  @Override
+  public Integer visitReference(ReferenceExpression expr, Void params) {
+    return HAS_BINDINGS | getMask(expr.getBinding()) | (expr.getBinding() instanceof EvaluatingBinding ? UNKNOWN : 0);
+  }
+
+  @Override
+  public Integer visitInferenceReference(InferenceReferenceExpression expr, Void params) {
+    return UNKNOWN;
+  }
+
+  @Override
+  public Integer visitSubst(SubstExpression expr, Void params) {
+    return UNKNOWN;
+  }
+
+  @Override
+  public Integer visitLam(LamExpression expr, Void params) {
+    return getParametersMask(expr.getParameters()) | expr.getBody().getVariablesMask();
+  }
+
+  @Override
+  public Integer visitPi(PiExpression expr, Void params) {
+    return getParametersMask(expr.getParameters()) | expr.getCodomain().getVariablesMask();
+  }
+
+  @Override
+  public Integer visitSigma(SigmaExpression expr, Void params) {
+    return getParametersMask(expr.getParameters());
+  }
+
+  @Override
+  public Integer visitUniverse(UniverseExpression expr, Void params) {
+    return 0;
+  }
+
+  @Override
+  public Integer visitError(ErrorExpression expr, Void params) {
+    return expr.getExpression() == null ? 0 : expr.getExpression().getVariablesMask();
+  }
+
+  @Override
+  public Integer visitTuple(TupleExpression expr, Void params) {
+    return getExpressionsMask(expr.getFields()) | expr.getSigmaType().getVariablesMask();
+  }
+
+  @Override
+  public Integer visitProj(ProjExpression expr, Void params) {
+    return expr.getExpression().getVariablesMask();
+  }
+
+  @Override
+  public Integer visitNew(NewExpression expr, Void params) {
+    return expr.getClassCall().getVariablesMask() | (expr.getRenewExpression() == null ? 0 : expr.getRenewExpression().getVariablesMask());
+  }
+
+  @Override
+  public Integer visitPEval(PEvalExpression expr, Void params) {
+    return expr.getExpression().getVariablesMask();
+  }
+
+  @Override
+  public Integer visitLet(LetExpression expr, Void params) {
+    int mask = expr.getExpression().getVariablesMask();
+    for (LetClause clause : expr.getClauses()) {
+      mask |= clause.getExpression().getVariablesMask();
+    }
+    return mask;
+  }
+
+  @Override
+  public Integer visitCase(CaseExpression expr, Void params) {
+    int mask = getExpressionsMask(expr.getArguments()) | getParametersMask(expr.getParameters()) | expr.getResultType().getVariablesMask();
+    if (expr.getResultTypeLevel() != null) {
+      mask |= expr.getResultTypeLevel().getVariablesMask();
+    }
+    for (ElimClause<Pattern> clause : expr.getElimBody().getClauses()) {
+      mask |= getParametersMask(clause.getParameters());
+      if (clause.getExpression() != null) {
+        mask |= clause.getExpression().getVariablesMask();
+      }
+    }
+    return mask;
+  }
+
+  @Override
+  public Integer visitOfType(OfTypeExpression expr, Void params) {
+    return expr.getExpression().getVariablesMask() | expr.getTypeOf().getVariablesMask();
+  }
+
+  @Override
+  public Integer visitInteger(IntegerExpression expr, Void params) {
+    return 0;
+  }
+}
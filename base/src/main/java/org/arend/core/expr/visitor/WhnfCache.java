@@ -0,0 +1,103 @@
+package org.arend.core.expr.visitor;
+
+import org.arend.core.definition.Definition;
+import org.arend.core.expr.*;
+import org.arend.core.sort.Sort;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A bounded cache of weak head normal forms of closed function calls.
+ * Only calls whose arguments consist of calls of definitions without errors, integers, and closed sorts are cached.
+ * Calls are compared by identity, so the cache is useful when the same expression is normalized repeatedly.
+ * The cache is cleared when it is full.
+ *
+ * A cache belongs to a single {@link NormalizeVisitor} that lives as long as a typechecking session in one thread,
+ * so it is not thread-safe and it is never invalidated: definitions are not reset during a session.
+ */
+public final class WhnfCache {
+  private static final int MAX_KEY_SIZE = 64;
+
+  private final int myCapacity;
+  private final Map<FunCallExpression, Expression> myCache = new IdentityHashMap<>();
+  private long myHits;
+  private long myMisses;
+
+  public WhnfCache(int capacity) {
+    myCapacity = capacity;
+  }
+
+  /**
+   * Checks if the weak head normal form of a call can be cached.
+   */
+  static boolean isCacheable(FunCallExpression expr) {
+    return checkDefCall(expr, MAX_KEY_SIZE) >= 0;
+  }
+
+  /**
+   * Checks a closed call and counts its subexpressions.
+   *
+   * @return the remaining number of subexpressions that can be checked or -1 if the call cannot be cached.
+   */
+  private static int checkDefCall(DefCallExpression expr, int size) {
+    if (expr.getDefinition().status() != Definition.TypeCheckingStatus.NO_ERRORS) {
+      return -1;
+    }
+    Sort sort = expr.getSortArgument();
+    if (!sort.getPLevel().isClosed() || !sort.getHLevel().isClosed()) {
+      return -1;
+    }
+    if (expr instanceof ConCallExpression) {
+      size = checkArguments(((ConCallExpression) expr).getDataTypeArguments(), size);
+    }
+    return size < 0 ? -1 : checkArguments(expr.getDefCallArguments(), size);
+  }
+
+  private static int checkArguments(List<? extends Expression> arguments, int size) {
+    for (Expression argument : arguments) {
+      if (--size < 0) {
+        return -1;
+      }
+      if (argument instanceof FunCallExpression || argument instanceof ConCallExpression || argument instanceof DataCallExpression) {
+        size = checkDefCall((DefCallExpression) argument, size);
+        if (size < 0) {
+          return -1;
+        }
+      } else if (!(argument instanceof IntegerExpression)) {
+        return -1;
+      }
+    }
+    return size;
+  }
+
+  Expression get(FunCallExpression expr) {
+    Expression result = myCache.get(expr);
+    if (result == null) {
+      myMisses++;
+    } else {
+      myHits++;
+    }
+    return result;
+  }
+
+  void put(FunCallExpression expr, Expression value) {
+    if (myCache.size() >= myCapacity) {
+      myCache.clear();
+    }
+    myCache.put(expr, value);
+  }
+
+  public int size() {
+    return myCache.size();
+  }
+
+  public long getHits() {
+    return myHits;
+  }
+
+  public long getMisses() {
+    return myMisses;
+  }
+}
@@ -121,7 +121,7 @@ public class ConstructorExpressionPattern extends ConstructorPattern<Expression>
     }
 
     ClassCallExpression classCall = (ClassCallExpression) data;
-    Map<ClassField, Expression> implementations = new HashMap<>();
+    Map<ClassField, Expression> implementations = new ImplementationMap(classCall.getDefinition());
     ClassCallExpression resultClassCall = new ClassCallExpression(classCall.getDefinition(), classCall.getSortArgument(), implementations, Sort.PROP, UniverseKind.NO_UNIVERSES);
     resultClassCall.copyImplementationsFrom(classCall);
     int i = 0;
@@ -146,6 +146,9 @@ public class Level implements CoreLevel {
   }
 
   public static boolean compare(Level level1, Level level2, CMP cmp, Equations equations, Concrete.SourceNode sourceNode) {
+    if (level1 == level2) {
+      return true;
+    }
     if (cmp == CMP.GE) {
       return compare(level2, level1, CMP.LE, equations, sourceNode);
     }
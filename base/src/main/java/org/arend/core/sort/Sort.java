@@ -117,6 +117,9 @@ public class Sort implements CoreSort {
   }
 
   public static boolean compare(Sort sort1, Sort sort2, CMP cmp, Equations equations, Concrete.SourceNode sourceNode) {
+    if (sort1 == sort2) {
+      return true;
+    }
     if (sort1.isProp()) {
       if (cmp == CMP.LE || sort2.isProp()) {
         return true;
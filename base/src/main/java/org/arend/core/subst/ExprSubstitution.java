@@ -3,18 +3,36 @@ package org.arend.core.subst;
 import org.arend.core.context.binding.Variable;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.VariablesMaskVisitor;
 
 import java.util.*;
 
+/**
+ * A substitution of expressions for variables.
+ * Copies share the underlying map until one of them is modified, so copying is cheap.
+ * Substitutions applied to all values by {@link #addSubst} and {@link #subst(ExprSubstitution)} are not propagated immediately.
+ * They are stored in a list of pending substitutions and applied to a value when it is requested.
+ */
 public class ExprSubstitution {
   private Map<Variable, Expression> mySubstExprs;
+  private boolean myShared;
+  // Substitutions that are not applied to all values yet
+  private List<ExprSubstitution> myPendingSubsts;
+  // For every variable, the number of pending substitutions that are already applied to its value; it is 0 if the variable is absent
+  private Map<Variable, Integer> myAppliedSubsts;
+  // A bloom filter of keys; removed keys are not deleted from it
+  private int myKeysMask;
 
   public ExprSubstitution() {
     mySubstExprs = Collections.emptyMap();
   }
 
   public ExprSubstitution(ExprSubstitution substitution) {
-    mySubstExprs = substitution.mySubstExprs.isEmpty() ? Collections.emptyMap() : new HashMap<>(substitution.mySubstExprs);
+    if (substitution.mySubstExprs.isEmpty()) {
+      mySubstExprs = Collections.emptyMap();
+    } else {
+      share(substitution);
+    }
   }
 
   public ExprSubstitution(Variable from, Expression to) {
@@ -22,12 +40,83 @@ public class ExprSubstitution {
     add(from, to);
   }
 
+  private void share(ExprSubstitution substitution) {
+    mySubstExprs = substitution.mySubstExprs;
+    myPendingSubsts = substitution.myPendingSubsts;
+    myAppliedSubsts = substitution.myAppliedSubsts;
+    myKeysMask = substitution.myKeysMask;
+    myShared = true;
+    substitution.myShared = true;
+  }
+
+  private void prepareForUpdate() {
+    if (myShared) {
+      mySubstExprs = new HashMap<>(mySubstExprs);
+      if (myPendingSubsts != null) {
+        myPendingSubsts = new ArrayList<>(myPendingSubsts);
+        myAppliedSubsts = new HashMap<>(myAppliedSubsts);
+      }
+      myShared = false;
+    } else if (mySubstExprs.isEmpty()) {
+      mySubstExprs = new HashMap<>();
+    }
+  }
+
+  private void put(Variable binding, Expression expression) {
+    mySubstExprs.put(binding, expression);
+    myKeysMask |= VariablesMaskVisitor.getMask(binding);
+    if (myPendingSubsts != null) {
+      myAppliedSubsts.put(binding, myPendingSubsts.size());
+    }
+  }
+
+  private Expression applyPendingSubsts(Variable binding, Expression expression) {
+    Integer applied = myAppliedSubsts.get(binding);
+    for (int i = applied == null ? 0 : applied; i < myPendingSubsts.size(); i++) {
+      expression = expression.subst(myPendingSubsts.get(i));
+    }
+    return expression;
+  }
+
+  private void applyPendingSubsts() {
+    if (myPendingSubsts == null) {
+      return;
+    }
+
+    if (myShared) {
+      mySubstExprs = new HashMap<>(mySubstExprs);
+      myShared = false;
+    }
+    for (Map.Entry<Variable, Expression> entry : mySubstExprs.entrySet()) {
+      entry.setValue(applyPendingSubsts(entry.getKey(), entry.getValue()));
+    }
+    myPendingSubsts = null;
+    myAppliedSubsts = null;
+  }
+
+  private void addPendingSubst(ExprSubstitution substitution) {
+    prepareForUpdate();
+    if (myPendingSubsts == null) {
+      myPendingSubsts = new ArrayList<>();
+      myAppliedSubsts = new HashMap<>();
+    }
+    myPendingSubsts.add(new ExprSubstitution(substitution));
+  }
+
+  /**
+   * @return a mask of keys in the sense of {@link VariablesMaskVisitor}; it may contain bits of keys that were removed.
+   */
+  public int getKeysMask() {
+    return myKeysMask;
+  }
+
   public Set<Variable> getKeys() {
-    return mySubstExprs.keySet();
+    return Collections.unmodifiableSet(mySubstExprs.keySet());
   }
 
   public Set<Map.Entry<Variable, Expression>> getEntries() {
-    return mySubstExprs.entrySet();
+    applyPendingSubsts();
+    return Collections.unmodifiableMap(mySubstExprs).entrySet();
   }
 
   public boolean isEmpty() {
@@ -39,57 +128,83 @@ public class ExprSubstitution {
   }
 
   public Expression get(Variable binding)  {
-    return mySubstExprs.get(binding);
+    Expression expr = mySubstExprs.get(binding);
+    if (expr == null || myPendingSubsts == null) {
+      return expr;
+    }
+
+    Integer applied = myAppliedSubsts.get(binding);
+    if (applied != null && applied == myPendingSubsts.size()) {
+      return expr;
+    }
+
+    Expression result = applyPendingSubsts(binding, expr);
+    prepareForUpdate();
+    put(binding, result);
+    return result;
   }
 
   public void clear() {
     if (!mySubstExprs.isEmpty()) {
-      mySubstExprs.clear();
+      if (myShared) {
+        mySubstExprs = Collections.emptyMap();
+        myShared = false;
+      } else {
+        mySubstExprs.clear();
+      }
     }
+    myPendingSubsts = null;
+    myAppliedSubsts = null;
+    myKeysMask = 0;
   }
 
   public void remove(Variable variable) {
     if (!mySubstExprs.isEmpty()) {
+      prepareForUpdate();
       mySubstExprs.remove(variable);
+      if (myAppliedSubsts != null) {
+        myAppliedSubsts.remove(variable);
+      }
     }
   }
 
   public void add(Variable binding, Expression expression) {
-    if (mySubstExprs.isEmpty()) {
-      mySubstExprs = new HashMap<>();
-    }
-    mySubstExprs.put(binding, expression);
+    prepareForUpdate();
+    put(binding, expression);
   }
 
   public void addSubst(Variable binding, Expression expression) {
-    if (mySubstExprs.isEmpty()) {
-      mySubstExprs = new HashMap<>();
-    } else {
-      for (Map.Entry<Variable, Expression> entry : mySubstExprs.entrySet()) {
-        entry.setValue(entry.getValue().subst(binding, expression));
-      }
+    if (!mySubstExprs.isEmpty()) {
+      addPendingSubst(new ExprSubstitution(binding, expression));
     }
-    mySubstExprs.put(binding, expression);
+    add(binding, expression);
   }
 
   public void addAll(ExprSubstitution substitution) {
-    if (!substitution.mySubstExprs.isEmpty()) {
-      if (mySubstExprs.isEmpty()) {
-        mySubstExprs = new HashMap<>();
-      }
-      mySubstExprs.putAll(substitution.mySubstExprs);
+    if (substitution.mySubstExprs.isEmpty()) {
+      return;
+    }
+    if (mySubstExprs.isEmpty() && myPendingSubsts == null) {
+      share(substitution);
+      return;
+    }
+
+    substitution.applyPendingSubsts();
+    prepareForUpdate();
+    for (Map.Entry<Variable, Expression> entry : substitution.mySubstExprs.entrySet()) {
+      put(entry.getKey(), entry.getValue());
     }
   }
 
   public ExprSubstitution add(DependentLink link, List<? extends Expression> args) {
-    if (!args.isEmpty() && mySubstExprs.isEmpty() && link.hasNext()) {
-      mySubstExprs = new HashMap<>();
+    if (!args.isEmpty() && link.hasNext()) {
+      prepareForUpdate();
     }
     for (Expression arg : args) {
       if (!link.hasNext()) {
         break;
       }
-      mySubstExprs.put(link, arg);
+      put(link, arg);
       link = link.getNext();
     }
     return this;
@@ -99,32 +214,30 @@ public class ExprSubstitution {
     if (subst.isEmpty()) {
       return;
     }
-    if (mySubstExprs.isEmpty()) {
-      mySubstExprs = new HashMap<>();
-    }
     subst(subst);
     addAll(subst);
   }
 
   public void subst(ExprSubstitution subst) {
-    if (subst.isEmpty()) {
+    if (subst.isEmpty() || mySubstExprs.isEmpty()) {
       return;
     }
-    for (Map.Entry<Variable, Expression> entry : mySubstExprs.entrySet()) {
-      entry.setValue(entry.getValue().subst(subst));
-    }
+    addPendingSubst(subst);
   }
 
   public void subst(LevelSubstitution subst) {
-    if (subst.isEmpty()) {
+    if (subst.isEmpty() || mySubstExprs.isEmpty()) {
       return;
     }
+    applyPendingSubsts();
+    prepareForUpdate();
     for (Map.Entry<Variable, Expression> entry : mySubstExprs.entrySet()) {
       entry.setValue(entry.getValue().subst(subst));
     }
   }
 
   public String toString() {
+    applyPendingSubsts();
     return mySubstExprs.toString();
   }
-}
\ No newline at end of file
+}
@@ -11,6 +11,7 @@ import org.arend.core.elimtree.*;
 import org.arend.core.expr.*;
 import org.arend.core.expr.let.LetClause;
 import org.arend.core.expr.visitor.BaseExpressionVisitor;
+import org.arend.core.expr.visitor.VariablesMaskVisitor;
 import org.arend.core.pattern.Pattern;
 
 import java.util.*;
@@ -18,12 +19,15 @@ import java.util.*;
 public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
   private final ExprSubstitution myExprSubstitution;
   private final LevelSubstitution myLevelSubstitution;
+  // Subexpressions without substituted variables are returned as is unless the visitor is used to copy expressions
+  private final boolean myShareUnchanged;
 
   public static class SubstException extends RuntimeException {}
 
   public SubstVisitor(ExprSubstitution exprSubstitution, LevelSubstitution levelSubstitution) {
     myExprSubstitution = exprSubstitution;
     myLevelSubstitution = levelSubstitution;
+    myShareUnchanged = !exprSubstitution.isEmpty() && levelSubstitution.isEmpty();
   }
 
   public ExprSubstitution getExprSubstitution() {
@@ -38,38 +42,69 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
     return myExprSubstitution.isEmpty() && myLevelSubstitution.isEmpty();
   }
 
+  private boolean isUnchanged(Expression expr) {
+    return myShareUnchanged && VariablesMaskVisitor.doesNotContain(expr.getVariablesMask(), myExprSubstitution.getKeysMask());
+  }
+
+  /**
+   * Substitutes in a list of expressions.
+   *
+   * @return the new list or null if none of the expressions changed.
+   */
+  private List<Expression> substArguments(List<? extends Expression> arguments) {
+    List<Expression> result = null;
+    for (int i = 0; i < arguments.size(); i++) {
+      Expression arg = arguments.get(i);
+      Expression newArg = arg.accept(this, null);
+      if (result == null && newArg != arg) {
+        result = new ArrayList<>(arguments.size());
+        result.addAll(arguments.subList(0, i));
+      }
+      if (result != null) {
+        result.add(newArg);
+      }
+    }
+    return result;
+  }
+
   @Override
   public Expression visitApp(AppExpression expr, Void params) {
-    return AppExpression.make(expr.getFunction().accept(this, null), expr.getArgument().accept(this, null), expr.isExplicit());
+    if (isUnchanged(expr)) {
+      return expr;
+    }
+    Expression function = expr.getFunction().accept(this, null);
+    Expression argument = expr.getArgument().accept(this, null);
+    return function == expr.getFunction() && argument == expr.getArgument() ? expr : AppExpression.make(function, argument, expr.isExplicit());
   }
 
   @Override
   public Expression visitDefCall(DefCallExpression expr, Void params) {
-    List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
-    for (Expression arg : expr.getDefCallArguments()) {
-      args.add(arg.accept(this, null));
+    if (isUnchanged(expr)) {
+      return expr;
     }
-    return expr.getDefinition().getDefCall(expr.getSortArgument().subst(myLevelSubstitution), args);
+    List<Expression> args = substArguments(expr.getDefCallArguments());
+    if (args == null && myLevelSubstitution.isEmpty()) {
+      return expr;
+    }
+    return expr.getDefinition().getDefCall(expr.getSortArgument().subst(myLevelSubstitution), args == null ? new ArrayList<>(expr.getDefCallArguments()) : args);
   }
 
   @Override
   public Expression visitConCall(ConCallExpression expr, Void params) {
-    List<Expression> dataTypeArgs = new ArrayList<>(expr.getDataTypeArguments().size());
-    for (Expression parameter : expr.getDataTypeArguments()) {
-      dataTypeArgs.add(parameter.accept(this, null));
+    if (isUnchanged(expr)) {
+      return expr;
     }
-
-    List<Expression> args = new ArrayList<>(expr.getDefCallArguments().size());
-    for (Expression arg : expr.getDefCallArguments()) {
-      args.add(arg.accept(this, null));
+    List<Expression> dataTypeArgs = substArguments(expr.getDataTypeArguments());
+    List<Expression> args = substArguments(expr.getDefCallArguments());
+    if (dataTypeArgs == null && args == null && myLevelSubstitution.isEmpty()) {
+      return expr;
     }
-
-    return new ConCallExpression(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), dataTypeArgs, args);
+    return new ConCallExpression(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), dataTypeArgs == null ? new ArrayList<>(expr.getDataTypeArguments()) : dataTypeArgs, args == null ? new ArrayList<>(expr.getDefCallArguments()) : args);
   }
 
   @Override
   public Expression visitClassCall(ClassCallExpression expr, Void params) {
-    Map<ClassField, Expression> fieldSet = new HashMap<>();
+    Map<ClassField, Expression> fieldSet = new ImplementationMap(expr.getDefinition());
     ClassCallExpression result = new ClassCallExpression(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), fieldSet, expr.getSort().subst(myLevelSubstitution), expr.getUniverseKind());
     if (expr.getImplementedHere().isEmpty()) {
       return result;
@@ -85,7 +120,14 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitFieldCall(FieldCallExpression expr, Void params) {
-    return FieldCallExpression.make(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), expr.getArgument().accept(this, null));
+    if (isUnchanged(expr)) {
+      return expr;
+    }
+    Expression argument = expr.getArgument().accept(this, null);
+    if (argument == expr.getArgument() && myLevelSubstitution.isEmpty()) {
+      return expr;
+    }
+    return FieldCallExpression.make(expr.getDefinition(), expr.getSortArgument().subst(myLevelSubstitution), argument);
   }
 
   @Override
@@ -140,6 +182,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitLam(LamExpression expr, Void params) {
+    if (isUnchanged(expr)) {
+      return expr;
+    }
     SingleDependentLink parameters = DependentLink.Helper.subst(expr.getParameters(), this);
     LamExpression result = new LamExpression(expr.getResultSort().subst(myLevelSubstitution), parameters, expr.getBody().accept(this, null));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
@@ -148,6 +193,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitPi(PiExpression expr, Void params) {
+    if (isUnchanged(expr)) {
+      return expr;
+    }
     SingleDependentLink parameters = DependentLink.Helper.subst(expr.getParameters(), this);
     PiExpression result = new PiExpression(expr.getResultSort().subst(myLevelSubstitution), parameters, expr.getCodomain().accept(this, null));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
@@ -156,6 +204,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitSigma(SigmaExpression expr, Void params) {
+    if (isUnchanged(expr)) {
+      return expr;
+    }
     SigmaExpression result = new SigmaExpression(expr.getSort().subst(myLevelSubstitution), DependentLink.Helper.subst(expr.getParameters(), this));
     DependentLink.Helper.freeSubsts(expr.getParameters(), myExprSubstitution);
     return result;
@@ -173,6 +224,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitTuple(TupleExpression expr, Void params) {
+    if (isUnchanged(expr)) {
+      return expr;
+    }
     List<Expression> fields = new ArrayList<>(expr.getFields().size());
     for (Expression field : expr.getFields()) {
       fields.add(field.accept(this, null));
@@ -186,6 +240,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitProj(ProjExpression expr, Void params) {
+    if (isUnchanged(expr)) {
+      return expr;
+    }
     return ProjExpression.make(expr.getExpression().accept(this, null), expr.getField());
   }
 
@@ -200,6 +257,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitPEval(PEvalExpression expr, Void params) {
+    if (isUnchanged(expr)) {
+      return expr;
+    }
     return new PEvalExpression(expr.getExpression().accept(this, null));
   }
 
@@ -218,6 +278,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitCase(CaseExpression expr, Void params) {
+    if (isUnchanged(expr)) {
+      return expr;
+    }
     List<Expression> arguments = new ArrayList<>(expr.getArguments().size());
     for (Expression arg : expr.getArguments()) {
       arguments.add(arg.accept(this, null));
@@ -259,6 +322,9 @@ public class SubstVisitor extends BaseExpressionVisitor<Void, Expression> {
 
   @Override
   public Expression visitOfType(OfTypeExpression expr, Void params) {
+    if (isUnchanged(expr)) {
+      return expr;
+    }
     return new OfTypeExpression(expr.getExpression().accept(this, null), expr.getTypeOf().accept(this, null));
   }
 
@@ -68,6 +68,7 @@ public abstract class BaseLibrary implements Library {
   }
 
   public void resetGroup(Group group) {
+    group.invalidateNameIndex();
     resetDefinition(group.getReferable());
     for (Group subgroup : group.getSubgroups()) {
       resetGroup(subgroup);
@@ -131,6 +132,11 @@ public abstract class BaseLibrary implements Library {
     return true;
   }
 
+  @Override
+  public boolean loadDeferredModules() {
+    return true;
+  }
+
   @Override
   public String toString() {
     return getName();
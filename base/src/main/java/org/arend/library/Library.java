@@ -133,4 +133,13 @@ public interface Library {
    * @return true if the ordering was finished, false if it was interrupted.
    */
   boolean orderModules(Ordering ordering);
+
+  /**
+   * Loads modules whose loading was postponed until modules they depend on are typechecked.
+   * It is invoked after modules ordered by {@link #orderModules} are typechecked.
+   * Modules that cannot be loaded are added to modules that require typechecking.
+   *
+   * @return true if all such modules were loaded, false if some of them require typechecking.
+   */
+  boolean loadDeferredModules();
 }
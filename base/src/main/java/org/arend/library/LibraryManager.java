@@ -2,6 +2,7 @@ package org.arend.library;
 
 import org.arend.ext.ArendExtension;
 import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.module.ModulePath;
 import org.arend.library.classLoader.MultiClassLoader;
 import org.arend.library.error.LibraryError;
 import org.arend.library.resolver.LibraryResolver;
@@ -33,6 +34,7 @@ public class LibraryManager {
   private MultiClassLoader<Library> myInternalClassLoader = new MultiClassLoader<>(myExternalClassLoader);
   private final SimpleModuleScopeProvider myExternalExtensionModuleScopeProvider = new SimpleModuleScopeProvider();
   private final SimpleModuleScopeProvider myInternalExtensionModuleScopeProvider = new SimpleModuleScopeProvider();
+  private int myLoadingThreads = 1;
 
   /**
    * Constructs new {@code LibraryManager}.
@@ -49,6 +51,25 @@ public class LibraryManager {
     myLibraryErrorReporter = libraryErrorReporter;
   }
 
+  /**
+   * Gets the number of threads used to parse and resolve raw sources of libraries.
+   *
+   * @return the number of threads.
+   */
+  public int getLoadingThreads() {
+    return myLoadingThreads;
+  }
+
+  /**
+   * Sets the number of threads used to parse and resolve raw sources of libraries.
+   * If it is greater than 1, sources which implement {@link org.arend.source.ParsableSource} are loaded concurrently.
+   *
+   * @param threads the number of threads.
+   */
+  public void setLoadingThreads(int threads) {
+    myLoadingThreads = Math.max(threads, 1);
+  }
+
   /**
    * Gets the module module scope provider containing modules from language extensions of either external or internal libraries.
    *
@@ -137,6 +158,69 @@ public class LibraryManager {
     return myReverseDependencies.keySet();
   }
 
+  /**
+   * @return registered libraries in an order in which every library comes after libraries it depends on.
+   */
+  private List<Library> getOrderedLibraries() {
+    List<Library> result = new ArrayList<>(myReverseDependencies.size());
+    Set<Library> visited = new HashSet<>();
+    for (Library library : myReverseDependencies.keySet()) {
+      orderLibrary(library, visited, result);
+    }
+    return result;
+  }
+
+  private void orderLibrary(Library library, Set<Library> visited, List<Library> result) {
+    if (!visited.add(library)) {
+      return;
+    }
+    for (Map.Entry<Library, Set<Library>> entry : myReverseDependencies.entrySet()) {
+      if (entry.getValue().contains(library)) {
+        orderLibrary(entry.getKey(), visited, result);
+      }
+    }
+    result.add(library);
+  }
+
+  /**
+   * Finds modules of registered libraries whose raw sources changed since they were loaded (see {@link SourceLibrary#getChangedModules}).
+   * Modules that import changed modules of other libraries are also included, so that they do not refer to definitions that will be reset.
+   * Libraries without raw sources cannot be reloaded, so if such a library depends on a library with changed modules,
+   * an error is reported and nothing should be reloaded.
+   *
+   * @return changed modules of libraries; every library comes after libraries it depends on.
+   *         The result is empty if changed modules cannot be reloaded.
+   */
+  public Map<SourceLibrary, Set<ModulePath>> getChangedModules() {
+    Map<SourceLibrary, Set<ModulePath>> result = new LinkedHashMap<>();
+    Set<ModulePath> changedModules = new HashSet<>();
+    Set<Library> changedLibraries = new HashSet<>();
+    boolean ok = true;
+    for (Library library : getOrderedLibraries()) {
+      if (!library.isLoaded()) {
+        continue;
+      }
+
+      if (library instanceof SourceLibrary && ((SourceLibrary) library).hasRawSources()) {
+        Set<ModulePath> modules = ((SourceLibrary) library).getChangedModules(changedModules);
+        if (!modules.isEmpty()) {
+          result.put((SourceLibrary) library, modules);
+          changedModules.addAll(modules);
+          changedLibraries.add(library);
+        }
+        continue;
+      }
+
+      for (Library changedLibrary : changedLibraries) {
+        if (myReverseDependencies.get(changedLibrary).contains(library)) {
+          myLibraryErrorReporter.report(LibraryError.cannotReloadDependency(library.getName(), changedLibrary.getName()));
+          ok = false;
+        }
+      }
+    }
+    return ok ? result : Collections.emptyMap();
+  }
+
   /**
    * Gets the library with the given name.
    *
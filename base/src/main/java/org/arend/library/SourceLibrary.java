@@ -11,11 +11,13 @@ import org.arend.library.classLoader.FileClassLoaderDelegate;
 import org.arend.library.classLoader.MultiClassLoader;
 import org.arend.library.error.LibraryError;
 import org.arend.module.error.ExceptionError;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.prelude.Prelude;
 import org.arend.source.BinarySource;
 import org.arend.source.Source;
+import org.arend.source.SourceHash;
 import org.arend.source.SourceLoader;
 import org.arend.source.error.PersistingError;
 import org.arend.term.group.ChildGroup;
@@ -26,18 +28,24 @@ import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.EnumSet;
-import java.util.LinkedHashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents a library which can load modules in the binary format (see {@link #getBinarySource})
  * as well as ordinary modules (see {@link #getRawSource}).
  */
 public abstract class SourceLibrary extends BaseLibrary {
-  public enum Flag { RECOMPILE }
+  public enum Flag { RECOMPILE, INCREMENTAL, UNCOMPRESSED }
   private final EnumSet<Flag> myFlags = EnumSet.noneOf(Flag.class);
+  private final Map<TCReferable, Long> mySourceHashes = new ConcurrentHashMap<>();
+  private final Map<ModulePath, Long> myModuleHashes = new ConcurrentHashMap<>();
+  private final Map<ModulePath, Collection<? extends ModulePath>> myModuleImports = new ConcurrentHashMap<>();
+  private final Map<ModulePath, Long> mySignatureHashes = new ConcurrentHashMap<>();
+  private final Map<ModulePath, Long> myInterfaceHashes = new ConcurrentHashMap<>();
+  private final Map<ModulePath, Long> myModuleTimeStamps = new ConcurrentHashMap<>();
   private ArendExtension myExtension;
+  private SourceLoader myDeferredSourceLoader;
 
   /**
    * Creates a new {@code SourceLibrary}
@@ -62,6 +70,252 @@ public abstract class SourceLibrary extends BaseLibrary {
     myFlags.remove(flag);
   }
 
+  /**
+   * Checks if the library has a flag.
+   */
+  public boolean hasFlag(Flag flag) {
+    return myFlags.contains(flag);
+  }
+
+  /**
+   * Records the hash of the source of a definition.
+   * Hashes are persisted together with definitions and used by {@link Flag#INCREMENTAL} loading
+   * to find definitions whose binaries are outdated.
+   *
+   * @param definition  a definition loaded from a raw source.
+   * @param hash        the hash of its source.
+   */
+  public void recordSourceHash(TCReferable definition, long hash) {
+    mySourceHashes.put(definition, hash);
+  }
+
+  /**
+   * Gets the hash of the source of a definition.
+   *
+   * @param definition  a definition.
+   *
+   * @return the hash recorded by {@link #recordSourceHash} or null if the definition was not loaded from a raw source.
+   */
+  @Nullable
+  public Long getSourceHash(TCReferable definition) {
+    return mySourceHashes.get(definition);
+  }
+
+  /**
+   * Records the hash of the raw source of a module.
+   * Such hashes are persisted together with modules and used to check if binary modules are up to date.
+   *
+   * @param modulePath  the path to the module.
+   * @param hash        the hash of its source.
+   * @param imports     modules imported by the module.
+   */
+  public void recordModuleHash(ModulePath modulePath, long hash, Collection<? extends ModulePath> imports) {
+    myModuleHashes.put(modulePath, hash);
+    myModuleImports.put(modulePath, imports);
+    myInterfaceHashes.clear();
+  }
+
+  /**
+   * Gets the hash of the raw source of a module.
+   *
+   * @param modulePath  the path to the module.
+   *
+   * @return the hash recorded by {@link #recordModuleHash} or null if the module was not loaded from a raw source.
+   */
+  @Nullable
+  public Long getModuleHash(ModulePath modulePath) {
+    return myModuleHashes.get(modulePath);
+  }
+
+  /**
+   * Gets modules of this library imported by a module.
+   *
+   * @param modulePath  the path to the module.
+   *
+   * @return the imports recorded by {@link #recordModuleHash} or null if the module was not loaded from a raw source.
+   */
+  @Nullable
+  public List<ModulePath> getModuleImports(ModulePath modulePath) {
+    Collection<? extends ModulePath> imports = myModuleImports.get(modulePath);
+    if (imports == null) {
+      return null;
+    }
+
+    List<ModulePath> result = new ArrayList<>(imports.size());
+    for (ModulePath module : imports) {
+      if (!result.contains(module) && containsModule(module)) {
+        result.add(module);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Records the hash of signatures of definitions of a module.
+   * It is computed by {@link SourceHash#hashSignature} from resolved definitions,
+   * so it does not change if only comments, formatting, or proofs of lemmas change.
+   *
+   * @param modulePath  the path to the module.
+   * @param hash        the hash of its signatures.
+   */
+  public void recordSignatureHash(ModulePath modulePath, long hash) {
+    mySignatureHashes.put(modulePath, hash);
+    myInterfaceHashes.clear();
+  }
+
+  /**
+   * Gets the hash of the interface of a module.
+   * It is computed from hashes of signatures of all modules of this library which are reachable from the given one by imports,
+   * so it changes whenever a signature of a module the given one depends on changes.
+   * Modules of other libraries are not taken into account;
+   * if a dependency of this library changes, modules that import it must be recompiled with {@link Flag#RECOMPILE}.
+   *
+   * @param modulePath  the path to the module.
+   *
+   * @return the hash of the interface or null if signatures of some of the reachable modules are unknown.
+   */
+  @Nullable
+  public Long getInterfaceHash(ModulePath modulePath) {
+    Long result = myInterfaceHashes.get(modulePath);
+    if (result != null) {
+      return result;
+    }
+
+    Set<ModulePath> reachable = new HashSet<>();
+    Deque<ModulePath> toVisit = new ArrayDeque<>();
+    reachable.add(modulePath);
+    toVisit.add(modulePath);
+    while (!toVisit.isEmpty()) {
+      List<ModulePath> imports = getModuleImports(toVisit.pop());
+      if (imports == null) {
+        return null;
+      }
+      for (ModulePath module : imports) {
+        if (reachable.add(module)) {
+          toVisit.add(module);
+        }
+      }
+    }
+
+    List<ModulePath> modules = new ArrayList<>(reachable);
+    modules.sort(Comparator.comparing(ModulePath::toString));
+    long hash = SourceHash.hash("");
+    for (ModulePath module : modules) {
+      Long signatureHash = mySignatureHashes.get(module);
+      if (signatureHash == null) {
+        return null;
+      }
+      hash = SourceHash.combine(hash, SourceHash.hash(module.toString()));
+      hash = SourceHash.combine(hash, signatureHash);
+    }
+    myInterfaceHashes.put(modulePath, hash);
+    return hash;
+  }
+
+  /**
+   * Records the time stamp of the raw source of a module at the moment it was loaded.
+   * It is used by {@link #getChangedModules} to find modules which must be reloaded.
+   *
+   * @param modulePath  the path to the module.
+   * @param timeStamp   the time stamp of its raw source.
+   */
+  public void recordModuleTimeStamp(ModulePath modulePath, long timeStamp) {
+    myModuleTimeStamps.put(modulePath, timeStamp);
+  }
+
+  /**
+   * Finds loaded modules whose raw sources were modified or deleted since they were loaded.
+   * The result also contains all modules of this library which import such modules directly or indirectly.
+   * Modules of dependencies are not checked (see {@link LibraryManager#getChangedModules}).
+   *
+   * @return the set of modules that must be reloaded.
+   */
+  @NotNull
+  public Set<ModulePath> getChangedModules() {
+    return getChangedModules(Collections.emptySet());
+  }
+
+  /**
+   * Finds loaded modules that must be reloaded since their raw sources changed or they import changed modules of other libraries.
+   *
+   * @param changedDependencies  modules of other libraries that will be reloaded.
+   *
+   * @return the set of modules of this library that must be reloaded.
+   */
+  @NotNull
+  public Set<ModulePath> getChangedModules(Set<? extends ModulePath> changedDependencies) {
+    Set<ModulePath> result = new LinkedHashSet<>();
+    if (!hasRawSources()) {
+      return result;
+    }
+
+    Map<ModulePath, List<ModulePath>> importers = new HashMap<>();
+    for (ModulePath modulePath : getLoadedModules()) {
+      Long timeStamp = myModuleTimeStamps.get(modulePath);
+      if (timeStamp != null) {
+        Source source = getRawSource(modulePath);
+        if (source == null || !source.isAvailable() || source.getTimeStamp() != timeStamp) {
+          result.add(modulePath);
+        }
+      }
+
+      Collection<? extends ModulePath> imports = myModuleImports.get(modulePath);
+      if (imports != null) {
+        for (ModulePath module : imports) {
+          if (changedDependencies.contains(module)) {
+            result.add(modulePath);
+          }
+          importers.computeIfAbsent(module, k -> new ArrayList<>()).add(modulePath);
+        }
+      }
+    }
+
+    Deque<ModulePath> toVisit = new ArrayDeque<>(result);
+    while (!toVisit.isEmpty()) {
+      for (ModulePath importer : importers.getOrDefault(toVisit.pop(), Collections.emptyList())) {
+        if (result.add(importer)) {
+          toVisit.add(importer);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reloads raw sources of given modules.
+   * Definitions of these modules are reset and the modules are reported as updated, so they will be typechecked again.
+   * Other modules keep their definitions, so the given set must contain every loaded module that imports one of the given modules,
+   * and modules of other libraries that import them must be reloaded too (see {@link LibraryManager#getChangedModules}).
+   * Modules whose raw sources were deleted are removed from the library.
+   *
+   * @param modulePaths     modules to reload; they may also include modules that were not loaded yet.
+   * @param libraryManager  the library manager of this library.
+   * @return false if loading was interrupted, true otherwise.
+   */
+  public boolean reloadModules(Set<? extends ModulePath> modulePaths, LibraryManager libraryManager) {
+    Set<ModulePath> available = new LinkedHashSet<>();
+    for (ModulePath modulePath : modulePaths) {
+      ChildGroup group = getModuleGroup(modulePath);
+      if (group != null) {
+        resetGroup(group);
+      }
+      myModuleTimeStamps.remove(modulePath);
+
+      Source source = getRawSource(modulePath);
+      if (source != null && source.isAvailable()) {
+        available.add(modulePath);
+      } else {
+        myModuleHashes.remove(modulePath);
+        myModuleImports.remove(modulePath);
+        mySignatureHashes.remove(modulePath);
+        myInterfaceHashes.clear();
+        onGroupLoaded(modulePath, null, true);
+      }
+    }
+
+    return available.isEmpty() || new SourceLoader(this, libraryManager).reloadRaw(available);
+  }
+
   /**
    * Gets the raw source (that is, the source containing not typechecked data) for a given module path.
    *
@@ -111,6 +365,7 @@ public abstract class SourceLibrary extends BaseLibrary {
 
   /**
    * Invoked by a binary source after it is loaded.
+   * It is also invoked if loading of the binary source is postponed until modules it depends on are typechecked.
    *
    * @param modulePath  the path to the loaded module.
    * @param isComplete  true if the module was loaded completely, false otherwise.
@@ -119,6 +374,15 @@ public abstract class SourceLibrary extends BaseLibrary {
 
   }
 
+  /**
+   * Invoked when some definitions of a module that was loaded from a binary source must be typechecked again.
+   *
+   * @param modulePath  the path to the module.
+   */
+  public void onModuleUpdated(ModulePath modulePath) {
+
+  }
+
   /**
    * Checks if this library has any raw sources.
    * Note that currently libraries without raw sources do not work properly with class synonyms.
@@ -229,16 +493,17 @@ public abstract class SourceLibrary extends BaseLibrary {
     try {
       SourceLoader sourceLoader = new SourceLoader(this, libraryManager);
       if (hasRawSources()) {
-        for (ModulePath module : header.modules) {
-          sourceLoader.preloadRaw(module);
+        sourceLoader.preloadRaw(header.modules);
+        if (!sourceLoader.loadRawSources()) {
+          libraryManager.afterLibraryLoading(this, false);
+          return false;
         }
-        sourceLoader.loadRawSources();
       }
 
       if (!myFlags.contains(Flag.RECOMPILE)) {
-        for (ModulePath module : header.modules) {
-          sourceLoader.loadBinary(module);
-        }
+        sourceLoader.loadBinaries(header.modules);
+        sourceLoader.resetChangedDefinitions();
+        myDeferredSourceLoader = sourceLoader.hasDeferredBinaries() ? sourceLoader : null;
       }
     } catch (Throwable e) {
       libraryManager.afterLibraryLoading(this, false);
@@ -261,6 +526,34 @@ public abstract class SourceLibrary extends BaseLibrary {
     return super.load(libraryManager, typechecking);
   }
 
+  /**
+   * Loads binary modules whose loading was postponed because modules they import were loaded from raw sources.
+   */
+  @Override
+  public boolean loadDeferredModules() {
+    SourceLoader sourceLoader = myDeferredSourceLoader;
+    myDeferredSourceLoader = null;
+    return sourceLoader == null || sourceLoader.loadDeferredBinaries();
+  }
+
+  @Override
+  public void reset() {
+    myDeferredSourceLoader = null;
+    super.reset();
+  }
+
+  @Override
+  public boolean unload() {
+    myDeferredSourceLoader = null;
+    mySourceHashes.clear();
+    myModuleHashes.clear();
+    myModuleImports.clear();
+    mySignatureHashes.clear();
+    myInterfaceHashes.clear();
+    myModuleTimeStamps.clear();
+    return super.unload();
+  }
+
   @Override
   public boolean containsModule(ModulePath modulePath) {
     Source source = getRawSource(modulePath);
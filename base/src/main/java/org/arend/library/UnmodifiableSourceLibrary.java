@@ -67,6 +67,11 @@ public abstract class UnmodifiableSourceLibrary extends SourceLibrary {
     }
   }
 
+  @Override
+  public void onModuleUpdated(ModulePath modulePath) {
+    myUpdatedModules.add(modulePath);
+  }
+
   @NotNull
   @Override
   public Collection<? extends ModulePath> getLoadedModules() {
@@ -66,6 +66,10 @@ public class LibraryError extends GeneralError {
     return new LibraryError("Definition '" + longName + "' is already defined in '" + modulePath + "'", Stream.of(libraryName));
   }
 
+  public static LibraryError cannotReloadDependency(String libraryName, String dependencyName) {
+    return new LibraryError("Library has no sources, so it cannot be reloaded after changes in its dependency '" + dependencyName + "'", Stream.of(libraryName));
+  }
+
   @Override
   public LineDoc getShortHeaderDoc(PrettyPrinterConfig src) {
     List<LineDoc> libraryDocs = libraryNames.map(DocFactory::text).collect(Collectors.toList());
@@ -6,12 +6,12 @@ import org.arend.naming.scope.Scope;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class CachingModuleScopeProvider implements ModuleScopeProvider {
   private final ModuleScopeProvider myModuleScopeProvider;
-  private final Map<ModulePath, Scope> myScopes = new HashMap<>();
+  private final Map<ModulePath, Scope> myScopes = new ConcurrentHashMap<>();
 
   private final static Scope NULL_SCOPE = new Scope() {};
 
@@ -1,5 +1,7 @@
 package org.arend.module.serialization;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import org.arend.core.context.LinkList;
 import org.arend.core.context.binding.Binding;
 import org.arend.core.context.param.DependentLink;
@@ -15,8 +17,10 @@ import org.arend.naming.reference.TCClassReferable;
 import org.arend.naming.reference.TCReferable;
 import org.arend.prelude.Prelude;
 import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
 import org.arend.util.Pair;
 
+import java.io.IOException;
 import java.util.*;
 
 public class DefinitionDeserialization {
@@ -327,10 +331,41 @@ public class DefinitionDeserialization {
     functionDef.setVisibleParameter(functionProto.getVisibleParameter());
     if (functionProto.hasBody()) {
       functionDef.setBody(readBody(defDeserializer, functionProto.getBody(), DependentLink.Helper.size(functionDef.getParameters())));
+    } else if (!functionProto.getLazyBody().isEmpty()) {
+      readLazyBody(defDeserializer, functionProto, functionDef);
     }
     // setTypeClassReference(functionDef.getReferable(), functionDef.getParameters(), functionDef.getResultType());
   }
 
+  private void readLazyBody(ExpressionDeserialization defDeserializer, DefinitionProtos.Definition.FunctionData functionProto, FunctionDefinition functionDef) throws DeserializationException {
+    // Dependencies are reported immediately since the body may never be loaded
+    for (int index : functionProto.getBodyDependencyList()) {
+      Definition dependency = myCallTargetProvider.getCallTarget(index);
+      if (dependency instanceof Constructor) {
+        dependency = ((Constructor) dependency).getDataType();
+      } else if (dependency instanceof ClassField) {
+        dependency = ((ClassField) dependency).getParentClass();
+      }
+      if (dependency == null) {
+        throw new DeserializationException("Wrong index");
+      }
+      myDependencyListener.dependsOn(functionDef.getReferable(), dependency.getReferable());
+    }
+
+    ExpressionDeserialization bodyDeserializer = defDeserializer.copy(DummyDependencyListener.INSTANCE);
+    ByteString bodyData = functionProto.getLazyBody();
+    int numberOfParameters = DependentLink.Helper.size(functionDef.getParameters());
+    functionDef.setBodyLoader(() -> {
+      try {
+        CodedInputStream input = bodyData.newCodedInput();
+        input.setRecursionLimit(Integer.MAX_VALUE);
+        return readBody(bodyDeserializer, DefinitionProtos.Body.parseFrom(input), numberOfParameters);
+      } catch (IOException | DeserializationException e) {
+        throw new IllegalStateException("Cannot load the body of " + functionDef.getName(), e);
+      }
+    });
+  }
+
   private void fillInDConstructor(ExpressionDeserialization defDeserializer, DefinitionProtos.Definition.DConstructorData constructorProto, DConstructor constructorDef) throws DeserializationException {
     fillInFunctionDefinition(defDeserializer, constructorProto.getFunction(), constructorDef);
     constructorDef.setNumberOfParameters(constructorProto.getNumberOfParameters());
@@ -19,15 +19,25 @@ import org.arend.util.Pair;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public class DefinitionSerialization {
   private final CallTargetIndexProvider myCallTargetIndexProvider;
-
-  public DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider) {
-    myCallTargetIndexProvider = callTargetIndexProvider;
+  private final StringTable myStringTable;
+  private Set<Integer> myBodyDependencies;
+
+  DefinitionSerialization(CallTargetIndexProvider callTargetIndexProvider, StringTable stringTable) {
+    myStringTable = stringTable;
+    myCallTargetIndexProvider = definition -> {
+      int index = callTargetIndexProvider.getDefIndex(definition);
+      if (myBodyDependencies != null) {
+        myBodyDependencies.add(index);
+      }
+      return index;
+    };
   }
 
   DefinitionProtos.Definition writeDefinition(Definition definition) {
@@ -276,7 +286,11 @@ public class DefinitionSerialization {
     builder.setKind(kind);
     builder.setVisibleParameter(definition.getVisibleParameter());
     if (definition.getActualBody() != null) {
-      builder.setBody(writeBody(defSerializer, definition.getActualBody()));
+      // Bodies are stored as bytes, so that they can be deserialized lazily
+      myBodyDependencies = new LinkedHashSet<>();
+      builder.setLazyBody(writeBody(defSerializer, definition.getActualBody()).toByteString());
+      builder.addAllBodyDependency(myBodyDependencies);
+      myBodyDependencies = null;
     }
 
     return builder.build();
@@ -343,7 +357,7 @@ public class DefinitionSerialization {
   private DefinitionProtos.Referable writeReferable(Definition definition) {
     DefinitionProtos.Referable.Builder builder = DefinitionProtos.Referable.newBuilder();
     GlobalReferable referable = definition.getReferable();
-    builder.setName(referable.textRepresentation());
+    builder.setName(myStringTable.getIndex(referable.textRepresentation()));
     builder.setPrecedence(writePrecedence(referable.getPrecedence()));
     builder.setIndex(myCallTargetIndexProvider.getDefIndex(definition));
     return builder.build();
@@ -37,6 +37,16 @@ class ExpressionDeserialization {
     myDefinition = definition;
   }
 
+  /**
+   * Creates a deserializer that knows the same bindings as this one.
+   * It is used to read parts of a definition after this deserializer is discarded.
+   */
+  ExpressionDeserialization copy(DependencyListener dependencyListener) {
+    ExpressionDeserialization result = new ExpressionDeserialization(myCallTargetProvider, dependencyListener, myDefinition);
+    result.myBindings.addAll(myBindings);
+    return result;
+  }
+
   // Bindings
 
   private void registerBinding(Binding binding) {
@@ -80,13 +90,19 @@ class ExpressionDeserialization {
     int constant = proto.getConstant();
     if (var == null && constant == Level.INFINITY.getConstant()) {
       return Level.INFINITY;
+    } else if (var == null) {
+      return ExpressionInterner.level(constant + proto.getMaxConstant());
     } else {
       return new Level(var, constant, proto.getMaxConstant());
     }
   }
 
+  private Sort readSort(LevelProtos.Level pLevel, LevelProtos.Level hLevel) throws DeserializationException {
+    return ExpressionInterner.sort(readLevel(pLevel), readLevel(hLevel));
+  }
+
   Sort readSort(LevelProtos.Sort proto) throws DeserializationException {
-    return new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel()));
+    return readSort(proto.getPLevel(), proto.getHLevel());
   }
 
 
@@ -227,8 +243,17 @@ class ExpressionDeserialization {
       case BRANCH: {
         ExpressionProtos.ElimTree.Branch branchProto = proto.getBranch();
         BranchElimTree result = new BranchElimTree(proto.getSkip(), branchProto.getKeepConCall());
-        for (Map.Entry<Integer, ExpressionProtos.ElimTree> entry : branchProto.getClausesMap().entrySet()) {
-          result.addChild(entry.getKey() == 0 ? null : myCallTargetProvider.getCallTarget(entry.getKey(), Constructor.class), readElimTree(entry.getValue()));
+        if (branchProto.getConstructorClauseCount() > 0) {
+          List<Constructor> constructors = myCallTargetProvider.getCallTarget(branchProto.getDataType(), DataDefinition.class).getConstructors();
+          for (ExpressionProtos.ElimTree.Branch.ConstructorClause clause : branchProto.getConstructorClauseList()) {
+            if (clause.getIndex() < 0 || clause.getIndex() >= constructors.size()) {
+              throw new DeserializationException("Wrong constructor index: " + clause.getIndex());
+            }
+            result.addChild(constructors.get(clause.getIndex()), readElimTree(clause.getElimTree()));
+          }
+        }
+        if (branchProto.hasVarClause()) {
+          result.addChild(null, readElimTree(branchProto.getVarClause()));
         }
         if (branchProto.hasSingleClause()) {
           ExpressionProtos.ElimTree.Branch.SingleConstructorClause singleClause = branchProto.getSingleClause();
@@ -322,28 +347,28 @@ class ExpressionDeserialization {
   private FunCallExpression readFunCall(ExpressionProtos.Expression.FunCall proto) throws DeserializationException {
     FunctionDefinition functionDefinition = myCallTargetProvider.getCallTarget(proto.getFunRef(), FunctionDefinition.class);
     myDependencyListener.dependsOn(myDefinition, functionDefinition.getReferable());
-    return new FunCallExpression(functionDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList()));
+    return new FunCallExpression(functionDefinition, readSort(proto.getPLevel(), proto.getHLevel()), readExprList(proto.getArgumentList()));
   }
 
   private Expression readConCall(ExpressionProtos.Expression.ConCall proto) throws DeserializationException {
     Constructor constructor = myCallTargetProvider.getCallTarget(proto.getConstructorRef(), Constructor.class);
     myDependencyListener.dependsOn(myDefinition, constructor.getDataType().getReferable());
-    return ConCallExpression.make(constructor, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())),
+    return ExpressionInterner.conCall(constructor, readSort(proto.getPLevel(), proto.getHLevel()),
         readExprList(proto.getDatatypeArgumentList()), readExprList(proto.getArgumentList()));
   }
 
   private DataCallExpression readDataCall(ExpressionProtos.Expression.DataCall proto) throws DeserializationException {
     DataDefinition dataDefinition = myCallTargetProvider.getCallTarget(proto.getDataRef(), DataDefinition.class);
     myDependencyListener.dependsOn(myDefinition, dataDefinition.getReferable());
-    return new DataCallExpression(dataDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExprList(proto.getArgumentList()));
+    return ExpressionInterner.dataCall(dataDefinition, readSort(proto.getPLevel(), proto.getHLevel()), readExprList(proto.getArgumentList()));
   }
 
   private ClassCallExpression readClassCall(ExpressionProtos.Expression.ClassCall proto) throws DeserializationException {
     ClassDefinition classDefinition = myCallTargetProvider.getCallTarget(proto.getClassRef(), ClassDefinition.class);
     myDependencyListener.dependsOn(myDefinition, classDefinition.getReferable());
 
-    Map<ClassField, Expression> fieldSet = new HashMap<>();
-    ClassCallExpression classCall = new ClassCallExpression(classDefinition, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), fieldSet, readSort(proto.getSort()), readUniverseKind(proto.getUniverseKind()));
+    Map<ClassField, Expression> fieldSet = new ImplementationMap(classDefinition);
+    ClassCallExpression classCall = new ClassCallExpression(classDefinition, readSort(proto.getPLevel(), proto.getHLevel()), fieldSet, readSort(proto.getSort()), readUniverseKind(proto.getUniverseKind()));
     registerBinding(classCall.getThisBinding());
     for (Map.Entry<Integer, ExpressionProtos.Expression> entry : proto.getFieldSetMap().entrySet()) {
       fieldSet.put(myCallTargetProvider.getCallTarget(entry.getKey(), ClassField.class), readExpr(entry.getValue()));
@@ -373,7 +398,7 @@ class ExpressionDeserialization {
   }
 
   private UniverseExpression readUniverse(ExpressionProtos.Expression.Universe proto) throws DeserializationException {
-    return new UniverseExpression(readSort(proto.getSort()));
+    return ExpressionInterner.universe(readSort(proto.getSort()));
   }
 
   private ErrorExpression readError(ExpressionProtos.Expression.Error proto) throws DeserializationException {
@@ -391,7 +416,7 @@ class ExpressionDeserialization {
   }
 
   private SigmaExpression readSigma(ExpressionProtos.Expression.Sigma proto) throws DeserializationException {
-    return new SigmaExpression(new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readParameters(proto.getParamList()));
+    return new SigmaExpression(readSort(proto.getPLevel(), proto.getHLevel()), readParameters(proto.getParamList()));
   }
 
   private Expression readProj(ExpressionProtos.Expression.Proj proto) throws DeserializationException {
@@ -462,11 +487,11 @@ class ExpressionDeserialization {
   private Expression readFieldCall(ExpressionProtos.Expression.FieldCall proto) throws DeserializationException {
     ClassField classField = myCallTargetProvider.getCallTarget(proto.getFieldRef(), ClassField.class);
     myDependencyListener.dependsOn(myDefinition, classField.getParentClass().getReferable());
-    return FieldCallExpression.make(classField, new Sort(readLevel(proto.getPLevel()), readLevel(proto.getHLevel())), readExpr(proto.getExpression()));
+    return FieldCallExpression.make(classField, readSort(proto.getPLevel(), proto.getHLevel()), readExpr(proto.getExpression()));
   }
 
   private SmallIntegerExpression readSmallInteger(ExpressionProtos.Expression.SmallInteger proto) {
-    return new SmallIntegerExpression(proto.getValue());
+    return ExpressionInterner.smallInteger(proto.getValue());
   }
 
   private BigIntegerExpression readBigInteger(ExpressionProtos.Expression.BigInteger proto) {
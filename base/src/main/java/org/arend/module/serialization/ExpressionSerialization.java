@@ -11,6 +11,7 @@ import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.TypedDependentLink;
 import org.arend.core.definition.ClassField;
 import org.arend.core.definition.Constructor;
+import org.arend.core.definition.DataDefinition;
 import org.arend.core.definition.UniverseKind;
 import org.arend.core.elimtree.*;
 import org.arend.core.expr.*;
@@ -218,9 +219,10 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
       ExpressionProtos.ElimTree.Branch.Builder branchBuilder = ExpressionProtos.ElimTree.Branch.newBuilder();
       branchBuilder.setKeepConCall(branchElimTree.keepConCall());
 
+      DataDefinition dataType = null;
       for (Map.Entry<BranchKey, ElimTree> entry : branchElimTree.getChildren()) {
         if (entry.getKey() == null) {
-          branchBuilder.putClauses(0, writeElimTree(entry.getValue()));
+          branchBuilder.setVarClause(writeElimTree(entry.getValue()));
         } else if (entry.getKey() instanceof SingleConstructor) {
           ExpressionProtos.ElimTree.Branch.SingleConstructorClause.Builder singleClauseBuilder = ExpressionProtos.ElimTree.Branch.SingleConstructorClause.newBuilder();
           if (entry.getKey() instanceof TupleConstructor) {
@@ -242,7 +244,17 @@ class ExpressionSerialization implements ExpressionVisitor<Void, ExpressionProto
           singleClauseBuilder.setElimTree(writeElimTree(entry.getValue()));
           branchBuilder.setSingleClause(singleClauseBuilder.build());
         } else if (entry.getKey() instanceof Constructor) {
-          branchBuilder.putClauses(myCallTargetIndexProvider.getDefIndex((Constructor) entry.getKey()), writeElimTree(entry.getValue()));
+          // Constructors are written as indices in the list of constructors of their data type
+          Constructor constructor = (Constructor) entry.getKey();
+          if (dataType == null) {
+            dataType = constructor.getDataType();
+            branchBuilder.setDataType(myCallTargetIndexProvider.getDefIndex(dataType));
+          } else if (dataType != constructor.getDataType()) {
+            throw new IllegalStateException("Constructors of different data types in the same branch");
+          }
+          branchBuilder.addConstructorClause(ExpressionProtos.ElimTree.Branch.ConstructorClause.newBuilder()
+            .setIndex(constructor.getIndex())
+            .setElimTree(writeElimTree(entry.getValue())));
         } else {
           throw new IllegalStateException();
         }
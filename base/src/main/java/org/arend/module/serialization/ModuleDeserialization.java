@@ -12,8 +12,10 @@ import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.order.dependency.DependencyListener;
 import org.arend.util.Pair;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Function;
 
 public class ModuleDeserialization {
   private final ModuleProtos.Module myModuleProto;
@@ -21,24 +23,99 @@ public class ModuleDeserialization {
   private final TypecheckerState myState;
   private final ReferableConverter myReferableConverter;
   private final List<Pair<DefinitionProtos.Definition, Definition>> myDefinitions = new ArrayList<>();
-
-  public ModuleDeserialization(ModuleProtos.Module moduleProto, TypecheckerState state, ReferableConverter referableConverter) {
+  private final Function<? super TCReferable, Long> mySourceHashes;
+  private final List<TCReferable> myChangedDefinitions = new ArrayList<>();
+  private String[] myStrings;
+  private List<ModulePath> myCallTargetModules;
+
+  /**
+   * @param sourceHashes  hashes of current sources of definitions.
+   *                      If it is not null, definitions whose persisted hashes differ are collected in {@link #getChangedDefinitions}.
+   */
+  public ModuleDeserialization(ModuleProtos.Module moduleProto, TypecheckerState state, ReferableConverter referableConverter, @Nullable Function<? super TCReferable, Long> sourceHashes) {
     myModuleProto = moduleProto;
     myState = state;
     myReferableConverter = referableConverter;
+    mySourceHashes = sourceHashes;
+  }
+
+  public ModuleDeserialization(ModuleProtos.Module moduleProto, TypecheckerState state, ReferableConverter referableConverter) {
+    this(moduleProto, state, referableConverter, null);
   }
 
   public ModuleProtos.Module getModuleProto() {
     return myModuleProto;
   }
 
-  public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener) throws DeserializationException {
+  private String getString(int index) throws DeserializationException {
+    if (myStrings == null) {
+      myStrings = StringTable.read(myModuleProto.getStringTableList());
+    }
+    if (index < 0 || index >= myStrings.length) {
+      throw new DeserializationException("Wrong string index: " + index);
+    }
+    return myStrings[index];
+  }
+
+  private ModulePath readModulePath(List<Integer> names) throws DeserializationException {
+    List<String> result = new ArrayList<>(names.size());
+    for (Integer name : names) {
+      result.add(getString(name));
+    }
+    return new ModulePath(result);
+  }
+
+  private void checkVersion() throws DeserializationException {
     if (myModuleProto.getVersion() != ModuleSerialization.VERSION) {
       throw new DeserializationException("Version mismatch");
     }
+  }
+
+  /**
+   * @return modules that contain call targets of this module in the same order as in {@link ModuleProtos.Module#getModuleCallTargetsList}.
+   */
+  public List<ModulePath> getCallTargetModules() throws DeserializationException {
+    if (myCallTargetModules == null) {
+      // Modules of other versions may have a different layout of the string table
+      checkVersion();
+      List<ModulePath> modules = new ArrayList<>(myModuleProto.getModuleCallTargetsCount());
+      for (ModuleProtos.ModuleCallTargets moduleCallTargets : myModuleProto.getModuleCallTargetsList()) {
+        modules.add(readModulePath(moduleCallTargets.getNameList()));
+      }
+      myCallTargetModules = modules;
+    }
+    return myCallTargetModules;
+  }
+
+  /**
+   * @return interface hashes of imported modules or null if the module was written by another version.
+   */
+  public @Nullable Map<ModulePath, Long> getImportHashes() throws DeserializationException {
+    if (myModuleProto.getVersion() != ModuleSerialization.VERSION) {
+      return null;
+    }
+
+    Map<ModulePath, Long> result = new LinkedHashMap<>();
+    for (ModuleProtos.ImportHash importHash : myModuleProto.getImportHashList()) {
+      result.put(readModulePath(importHash.getNameList()), importHash.getInterfaceHash());
+    }
+    return result;
+  }
+
+  /**
+   * Gets definitions whose sources changed since they were persisted.
+   */
+  public List<TCReferable> getChangedDefinitions() {
+    return myChangedDefinitions;
+  }
+
+  public void readModule(ModuleScopeProvider moduleScopeProvider, DependencyListener dependencyListener) throws DeserializationException {
+    checkVersion();
 
-    for (ModuleProtos.ModuleCallTargets moduleCallTargets : myModuleProto.getModuleCallTargetsList()) {
-      ModulePath module = new ModulePath(moduleCallTargets.getNameList());
+    List<ModulePath> callTargetModules = getCallTargetModules();
+    for (int i = 0; i < callTargetModules.size(); i++) {
+      ModulePath module = callTargetModules.get(i);
+      ModuleProtos.ModuleCallTargets moduleCallTargets = myModuleProto.getModuleCallTargets(i);
       Scope scope = moduleScopeProvider.forModule(module);
       if (scope == null) {
         throw new DeserializationException("Cannot find module: " + module);
@@ -53,30 +130,37 @@ public class ModuleDeserialization {
     for (Pair<DefinitionProtos.Definition, Definition> pair : myDefinitions) {
       defDeserialization.fillInDefinition(pair.proj1, pair.proj2);
     }
+    // Super classes may be defined later in the same module, so ancestors are computed after all definitions are filled in
+    for (Pair<DefinitionProtos.Definition, Definition> pair : myDefinitions) {
+      if (pair.proj2 instanceof ClassDefinition) {
+        ((ClassDefinition) pair.proj2).updateAncestors();
+      }
+    }
     myDefinitions.clear();
   }
 
   private void fillInCallTargetTree(ModuleProtos.CallTargetTree callTargetTree, Scope scope, ModulePath module) throws DeserializationException {
+    String name = getString(callTargetTree.getName());
     if (callTargetTree.getIndex() > 0) {
-      Referable referable1 = scope.resolveName(callTargetTree.getName());
+      Referable referable1 = scope.resolveName(name);
       TCReferable referable = myReferableConverter == null
         ? (referable1 instanceof TCReferable ? (TCReferable) referable1 : null)
         : (referable1 instanceof LocatedReferable ? myReferableConverter.toDataLocatedReferable((LocatedReferable) referable1) : null);
       if (referable == null) {
-        throw new DeserializationException("Cannot resolve reference '" + callTargetTree.getName() + "' in " + module);
+        throw new DeserializationException("Cannot resolve reference '" + name + "' in " + module);
       }
       Definition callTarget = myState.getTypechecked(referable);
       if (callTarget == null) {
-        throw new DeserializationException("Definition '" + callTargetTree.getName() + "' was not typechecked");
+        throw new DeserializationException("Definition '" + name + "' was not typechecked");
       }
       myCallTargetProvider.putCallTarget(callTargetTree.getIndex(), callTarget);
     }
 
     List<ModuleProtos.CallTargetTree> subtreeList = callTargetTree.getSubtreeList();
     if (!subtreeList.isEmpty()) {
-      Scope subscope = scope.resolveNamespace(callTargetTree.getName(), true);
+      Scope subscope = scope.resolveNamespace(name, true);
       if (subscope == null) {
-        throw new DeserializationException("Cannot resolve reference '" + callTargetTree.getName() + "' in " + module);
+        throw new DeserializationException("Cannot resolve reference '" + name + "' in " + module);
       }
 
       for (ModuleProtos.CallTargetTree tree : subtreeList) {
@@ -101,12 +185,18 @@ public class ModuleDeserialization {
       myState.record(tcReferable, def);
       myCallTargetProvider.putCallTarget(groupProto.getReferable().getIndex(), def);
       myDefinitions.add(new Pair<>(groupProto.getDefinition(), def));
+      if (mySourceHashes != null) {
+        Long hash = mySourceHashes.apply(tcReferable);
+        if (hash == null || hash != groupProto.getSourceHash()) {
+          myChangedDefinitions.add(tcReferable);
+        }
+      }
 
       Collection<? extends Group.InternalReferable> fields = group.getFields();
       if (!fields.isEmpty()) {
         Map<String, DefinitionProtos.Definition.ClassData.Field> fieldMap = new HashMap<>();
         for (DefinitionProtos.Definition.ClassData.Field field : groupProto.getDefinition().getClass_().getPersonalFieldList()) {
-          fieldMap.put(field.getReferable().getName(), field);
+          fieldMap.put(getString(field.getReferable().getName()), field);
         }
 
         for (Group.InternalReferable field : fields) {
@@ -130,17 +220,22 @@ public class ModuleDeserialization {
 
       Collection<? extends Group.InternalReferable> constructors = group.getConstructors();
       if (!constructors.isEmpty()) {
-        Map<String, DefinitionProtos.Definition.DataData.Constructor> constructorMap = new HashMap<>();
-        for (DefinitionProtos.Definition.DataData.Constructor constructor : groupProto.getDefinition().getData().getConstructorList()) {
-          constructorMap.put(constructor.getReferable().getName(), constructor);
+        // Constructors are added in the serialized order since elim trees refer to them by their indices
+        Map<String, LocatedReferable> constructorMap = new HashMap<>();
+        for (Group.InternalReferable constructor : constructors) {
+          constructorMap.put(constructor.getReferable().textRepresentation(), constructor.getReferable());
+        }
+        List<DefinitionProtos.Definition.DataData.Constructor> constructorProtos = groupProto.getDefinition().getData().getConstructorList();
+        if (constructorProtos.size() != constructors.size()) {
+          throw new DeserializationException("Wrong number of constructors of '" + group.getReferable() + "'");
         }
 
-        for (Group.InternalReferable constructor : constructors) {
-          LocatedReferable constructorRef = constructor.getReferable();
-          TCReferable absConstructor = myReferableConverter.toDataLocatedReferable(constructorRef);
-          DefinitionProtos.Definition.DataData.Constructor constructorProto = constructorMap.get(constructorRef.textRepresentation());
-          if (constructorProto == null || absConstructor == null) {
-            throw new DeserializationException("Cannot locate '" + constructorRef + "'");
+        for (DefinitionProtos.Definition.DataData.Constructor constructorProto : constructorProtos) {
+          String name = getString(constructorProto.getReferable().getName());
+          LocatedReferable constructorRef = constructorMap.get(name);
+          TCReferable absConstructor = constructorRef == null ? null : myReferableConverter.toDataLocatedReferable(constructorRef);
+          if (absConstructor == null) {
+            throw new DeserializationException("Cannot locate '" + name + "'");
           }
 
           assert def instanceof DataDefinition;
@@ -156,7 +251,7 @@ public class ModuleDeserialization {
     if (!groupProto.getSubgroupList().isEmpty() && !subgroups.isEmpty()) {
       Map<String, ModuleProtos.Group> subgroupMap = new HashMap<>();
       for (ModuleProtos.Group subgroup : groupProto.getSubgroupList()) {
-        subgroupMap.put(subgroup.getReferable().getName(), subgroup);
+        subgroupMap.put(getString(subgroup.getReferable().getName()), subgroup);
       }
       for (Group subgroup : subgroups) {
         ModuleProtos.Group subgroupProto = subgroupMap.get(subgroup.getReferable().textRepresentation());
@@ -170,7 +265,7 @@ public class ModuleDeserialization {
     if (!groupProto.getDynamicSubgroupList().isEmpty() && !dynSubgroups.isEmpty()) {
       Map<String, ModuleProtos.Group> subgroupMap = new HashMap<>();
       for (ModuleProtos.Group subgroup : groupProto.getDynamicSubgroupList()) {
-        subgroupMap.put(subgroup.getReferable().getName(), subgroup);
+        subgroupMap.put(getString(subgroup.getReferable().getName()), subgroup);
       }
       for (Group subgroup : dynSubgroups) {
         ModuleProtos.Group subgroupProto = subgroupMap.get(subgroup.getReferable().textRepresentation());
@@ -193,13 +288,13 @@ public class ModuleDeserialization {
     LocatedReferable referable;
     if (groupProto.hasDefinition() && groupProto.getDefinition().getDefinitionDataCase() == DefinitionProtos.Definition.DefinitionDataCase.CLASS) {
       fieldReferables = new ArrayList<>();
-      referable = new ClassReferableImpl(readPrecedence(referableProto.getPrecedence()), referableProto.getName(), groupProto.getDefinition().getClass_().getIsRecord(), new ArrayList<>(), fieldReferables, modulePath);
+      referable = new ClassReferableImpl(readPrecedence(referableProto.getPrecedence()), getString(referableProto.getName()), groupProto.getDefinition().getClass_().getIsRecord(), new ArrayList<>(), fieldReferables, modulePath);
     } else {
       fieldReferables = new ArrayList<>(0);
       if (parent == null) {
         referable = new ModuleReferable(modulePath);
       } else {
-        referable = new DataLocatedReferableImpl(readPrecedence(referableProto.getPrecedence()), referableProto.getName(), parent.getReferable(), null, groupProto.getDefinition().getDefinitionDataCase() == DefinitionProtos.Definition.DefinitionDataCase.CONSTRUCTOR ? LocatedReferableImpl.Kind.DEFINED_CONSTRUCTOR : LocatedReferableImpl.Kind.TYPECHECKABLE);
+        referable = new DataLocatedReferableImpl(readPrecedence(referableProto.getPrecedence()), getString(referableProto.getName()), parent.getReferable(), null, groupProto.getDefinition().getDefinitionDataCase() == DefinitionProtos.Definition.DefinitionDataCase.CONSTRUCTOR ? LocatedReferableImpl.Kind.DEFINED_CONSTRUCTOR : LocatedReferableImpl.Kind.TYPECHECKABLE);
       }
     }
 
@@ -270,7 +365,7 @@ public class ModuleDeserialization {
         if (fillInternalDefinitions) {
           for (DefinitionProtos.Definition.ClassData.Field fieldProto : defProto.getClass_().getPersonalFieldList()) {
             DefinitionProtos.Referable fieldReferable = fieldProto.getReferable();
-            TCFieldReferable absField = new FieldReferableImpl(readPrecedence(fieldReferable.getPrecedence()), fieldReferable.getName(), fieldProto.getIsExplicit(), fieldProto.getIsParameter(), referable, null);
+            TCFieldReferable absField = new FieldReferableImpl(readPrecedence(fieldReferable.getPrecedence()), getString(fieldReferable.getName()), fieldProto.getIsExplicit(), fieldProto.getIsParameter(), referable, null);
             ClassField res = new ClassField(absField, classDef);
             classDef.addPersonalField(res);
             myState.record(absField, res);
@@ -284,7 +379,7 @@ public class ModuleDeserialization {
         if (fillInternalDefinitions) {
           for (DefinitionProtos.Definition.DataData.Constructor constructor : defProto.getData().getConstructorList()) {
             DefinitionProtos.Referable conReferable = constructor.getReferable();
-            TCReferable absConstructor = new LocatedReferableImpl(readPrecedence(conReferable.getPrecedence()), conReferable.getName(), referable, LocatedReferableImpl.Kind.CONSTRUCTOR);
+            TCReferable absConstructor = new LocatedReferableImpl(readPrecedence(conReferable.getPrecedence()), getString(conReferable.getName()), referable, LocatedReferableImpl.Kind.CONSTRUCTOR);
             Constructor res = new Constructor(absConstructor, dataDef);
             dataDef.addConstructor(res);
             myState.record(absConstructor, res);
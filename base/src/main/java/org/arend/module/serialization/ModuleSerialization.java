@@ -12,22 +12,44 @@ import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.source.error.LocationError;
 import org.arend.term.group.Group;
 import org.arend.typechecking.TypecheckerState;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Function;
 
 public class ModuleSerialization {
   private final TypecheckerState myState;
   private final ErrorReporter myErrorReporter;
   private final SimpleCallTargetIndexProvider myCallTargetIndexProvider = new SimpleCallTargetIndexProvider();
-  private final DefinitionSerialization myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider);
+  private final StringTable myStringTable = new StringTable();
+  private final DefinitionSerialization myDefinitionSerialization = new DefinitionSerialization(myCallTargetIndexProvider, myStringTable);
   private final Set<Integer> myCurrentDefinitions = new HashSet<>();
+  private final Function<? super TCReferable, Long> mySourceHashes;
   private boolean myComplete;
+  private Long mySourceHash;
+  private Map<ModulePath, Long> myInterfaceHashes = Collections.emptyMap();
 
-  static final int VERSION = 2;
+  static final int VERSION = 6;
 
-  public ModuleSerialization(TypecheckerState state, ErrorReporter errorReporter) {
+  public ModuleSerialization(TypecheckerState state, ErrorReporter errorReporter, @Nullable Function<? super TCReferable, Long> sourceHashes) {
     myState = state;
     myErrorReporter = errorReporter;
+    mySourceHashes = sourceHashes;
+  }
+
+  public ModuleSerialization(TypecheckerState state, ErrorReporter errorReporter) {
+    this(state, errorReporter, null);
+  }
+
+  /**
+   * Sets hashes which are used to check if the module is up to date.
+   *
+   * @param sourceHash       the hash of the raw source of the module.
+   * @param interfaceHashes  hashes of interfaces of imported modules.
+   */
+  public void setHashes(long sourceHash, Map<ModulePath, Long> interfaceHashes) {
+    mySourceHash = sourceHash;
+    myInterfaceHashes = interfaceHashes;
   }
 
   public ModuleProtos.Module writeModule(Group group, ModulePath modulePath, ReferableConverter referableConverter) {
@@ -65,13 +87,27 @@ public class ModuleSerialization {
 
     for (Map.Entry<ModulePath, Map<String, CallTargetTree>> entry : moduleCallTargets.entrySet()) {
       ModuleProtos.ModuleCallTargets.Builder builder = ModuleProtos.ModuleCallTargets.newBuilder();
-      builder.addAllName(entry.getKey().toList());
+      for (String name : entry.getKey().toList()) {
+        builder.addName(myStringTable.getIndex(name));
+      }
       for (Map.Entry<String, CallTargetTree> treeEntry : entry.getValue().entrySet()) {
         builder.addCallTargetTree(writeCallTargetTree(treeEntry.getKey(), treeEntry.getValue()));
       }
       out.addModuleCallTargets(builder.build());
     }
 
+    if (mySourceHash != null) {
+      out.setSourceHash(mySourceHash);
+      for (Map.Entry<ModulePath, Long> entry : myInterfaceHashes.entrySet()) {
+        ModuleProtos.ImportHash.Builder builder = ModuleProtos.ImportHash.newBuilder();
+        for (String name : entry.getKey().toList()) {
+          builder.addName(myStringTable.getIndex(name));
+        }
+        out.addImportHash(builder.setInterfaceHash(entry.getValue()));
+      }
+    }
+
+    out.addAllStringTable(myStringTable.getStrings());
     return out.build();
   }
 
@@ -81,7 +117,7 @@ public class ModuleSerialization {
     // Write referable
     LocatedReferable referable = group.getReferable();
     DefinitionProtos.Referable.Builder refBuilder = DefinitionProtos.Referable.newBuilder();
-    refBuilder.setName(referable instanceof ModuleReferable ? ((ModuleReferable) referable).path.getLastName() : referable.textRepresentation());
+    refBuilder.setName(myStringTable.getIndex(referable instanceof ModuleReferable ? ((ModuleReferable) referable).path.getLastName() : referable.textRepresentation()));
     refBuilder.setPrecedence(DefinitionSerialization.writePrecedence(referable.getPrecedence()));
 
     TCReferable tcReferable = referableConverter.toDataLocatedReferable(referable);
@@ -95,6 +131,12 @@ public class ModuleSerialization {
     if (tcReferable != null && (typechecked == null || typechecked.status() != Definition.TypeCheckingStatus.NO_ERRORS)) {
       myComplete = false;
     }
+    if (tcReferable != null && mySourceHashes != null) {
+      Long hash = mySourceHashes.apply(tcReferable);
+      if (hash != null) {
+        builder.setSourceHash(hash);
+      }
+    }
     builder.setReferable(refBuilder.build());
 
     // Write subgroups
@@ -127,7 +169,7 @@ public class ModuleSerialization {
 
   private ModuleProtos.CallTargetTree writeCallTargetTree(String name, CallTargetTree tree) {
     ModuleProtos.CallTargetTree.Builder builder = ModuleProtos.CallTargetTree.newBuilder();
-    builder.setName(name);
+    builder.setName(myStringTable.getIndex(name));
     builder.setIndex(tree.index);
     for (Map.Entry<String, CallTargetTree> entry : tree.subtreeMap.entrySet()) {
       builder.addSubtree(writeCallTargetTree(entry.getKey(), entry.getValue()));
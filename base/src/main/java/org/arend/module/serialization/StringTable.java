@@ -0,0 +1,41 @@
+package org.arend.module.serialization;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Names of referables and modules in a binary file are stored once in the string table of the module
+ * and referred to by their indices in it.
+ */
+class StringTable {
+  private final Map<String, Integer> myIndices = new HashMap<>();
+  private final List<String> myStrings = new ArrayList<>();
+
+  int getIndex(String string) {
+    Integer index = myIndices.get(string);
+    if (index == null) {
+      index = myStrings.size();
+      myIndices.put(string, index);
+      myStrings.add(string);
+    }
+    return index;
+  }
+
+  List<String> getStrings() {
+    return myStrings;
+  }
+
+  /**
+   * Reads a string table of a module.
+   * Strings are interned since the same names occur in many modules and loaded libraries are kept in memory.
+   */
+  static String[] read(List<String> strings) {
+    String[] result = new String[strings.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = strings.get(i).intern();
+    }
+    return result;
+  }
+}
@@ -423,6 +423,16 @@ public class DefinitionResolveNameVisitor implements ConcreteDefinitionVisitor<S
             resolveTypeClassReference(((Concrete.CoClauseFunctionDefinition) element).getParameters(), ((Concrete.CoClauseFunctionDefinition) element).getResultType(), scope, true);
           }
         }
+
+        // Other modules read super classes and implemented fields of this class when their names are resolved in the second pass,
+        // which may run concurrently, so they are resolved here
+        def.getData().getSuperClassReferences();
+        ExpressionResolveNameVisitor exprVisitor = new ExpressionResolveNameVisitor(myConcreteProvider, scope, new ArrayList<>(), myLocalErrorReporter, myResolverListener);
+        for (Concrete.ClassElement element : def.getElements()) {
+          if (element instanceof Concrete.ClassFieldImpl) {
+            exprVisitor.visitClassFieldReference(element, ((Concrete.ClassFieldImpl) element).getImplementedField(), def.getData());
+          }
+        }
       }
       def.setTypeClassReferencesResolved();
       return null;
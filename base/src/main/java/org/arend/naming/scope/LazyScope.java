@@ -9,7 +9,7 @@ import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 public class LazyScope implements Scope {
-  private Scope myScope;
+  private volatile Scope myScope;
   private final Supplier<Scope> mySupplier;
 
   public LazyScope(Supplier<Scope> supplier) {
@@ -6,11 +6,11 @@ import org.arend.naming.reference.GlobalReferable;
 import org.arend.naming.reference.Referable;
 import org.arend.term.NamespaceCommand;
 import org.arend.term.group.Group;
+import org.arend.term.group.GroupNameIndex;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
 
 @SuppressWarnings("Duplicates")
@@ -51,45 +51,36 @@ public class LexicalScope implements Scope {
     return opened(group, false);
   }
 
-  private void addReferable(Referable referable, List<Referable> elements) {
-    String name = referable.textRepresentation();
-    if (!name.isEmpty() && !"_".equals(name)) {
-      elements.add(referable);
-    }
-  }
-
-  private void addSubgroups(Collection<? extends Group> subgroups, List<Referable> elements) {
-    for (Group subgroup : subgroups) {
-      addReferable(subgroup.getReferable(), elements);
-      for (Group.InternalReferable internalRef : subgroup.getInternalReferables()) {
-        if (internalRef.isVisible()) {
-          addReferable(internalRef.getReferable(), elements);
-        }
-      }
+  /**
+   * Groups that do not keep an index get a new one on every lookup unless they are empty,
+   * so implementations of {@link Group} with names should override {@link Group#getNameIndex}.
+   */
+  private static GroupNameIndex getNameIndex(Group group) {
+    GroupNameIndex index = group.getNameIndex();
+    if (index != null) {
+      return index;
     }
+    return GroupNameIndex.isEmpty(group) ? GroupNameIndex.EMPTY : new GroupNameIndex(group);
   }
 
   @NotNull
   @Override
   public List<Referable> getElements() {
+    GroupNameIndex index = getNameIndex(myGroup);
     List<Referable> elements = new ArrayList<>();
     if (!myOnlyExternal) {
-      for (Group.InternalReferable constructor : myGroup.getConstructors()) {
-        addReferable(constructor.getReferable(), elements);
-      }
+      elements.addAll(index.getConstructorElements());
       GlobalReferable groupRef = myGroup.getReferable();
       if (myKind != Kind.OPENED_INTERNAL && groupRef instanceof ClassReferable) {
         elements.addAll(new ClassFieldImplScope((ClassReferable) groupRef, false).getElements());
       } else {
-        for (Group.InternalReferable field : myGroup.getFields()) {
-          addReferable(field.getReferable(), elements);
-        }
+        elements.addAll(index.getFieldElements());
       }
     }
 
-    addSubgroups(myGroup.getSubgroups(), elements);
+    elements.addAll(index.getSubgroupElements(false));
     if (!myOnlyExternal) {
-      addSubgroups(myGroup.getDynamicSubgroups(), elements);
+      elements.addAll(index.getSubgroupElements(true));
     }
 
     Scope cachingScope = null;
@@ -117,44 +108,27 @@ public class LexicalScope implements Scope {
     return elements;
   }
 
-  private static GlobalReferable resolveInternal(Group group, String name, boolean onlyInternal) {
-    for (Group.InternalReferable internalReferable : group.getConstructors()) {
-      if (!onlyInternal || internalReferable.isVisible()) {
-        GlobalReferable constructor = internalReferable.getReferable();
-        if (constructor.textRepresentation().equals(name)) {
-          return constructor;
-        }
-      }
+  private static GlobalReferable resolveInternal(Group group, GroupNameIndex index, String name, boolean onlyInternal) {
+    GlobalReferable constructor = index.getConstructor(name, onlyInternal);
+    if (constructor != null) {
+      return constructor;
     }
 
     if (onlyInternal || !(group.getReferable() instanceof ClassReferable)) {
-      for (Group.InternalReferable internalReferable : group.getFields()) {
-        if (!onlyInternal || internalReferable.isVisible()) {
-          GlobalReferable field = internalReferable.getReferable();
-          if (field.textRepresentation().equals(name)) {
-            return field;
-          }
-        }
-      }
+      return index.getField(name, onlyInternal);
     } else {
       Referable referable = new ClassFieldImplScope((ClassReferable) group.getReferable(), false).resolveName(name);
       return referable instanceof GlobalReferable ? (GlobalReferable) referable : null;
     }
-
-    return null;
   }
 
-  private static Object resolveSubgroup(Group group, String name, ResolveType resolveType) {
-    Referable ref = group.getReferable();
-    if (ref.textRepresentation().equals(name)) {
-      return resolveType == ResolveType.REF ? ref : LexicalScope.opened(group, resolveType == ResolveType.INTERNAL_SCOPE);
-    }
-
+  private static Object resolveSubgroup(GroupNameIndex index, String name, ResolveType resolveType, boolean dynamic) {
     if (resolveType == ResolveType.REF) {
-      return resolveInternal(group, name, true);
+      return index.getSubgroupReferable(name, dynamic);
     }
 
-    return null;
+    Group subgroup = index.getSubgroup(name, dynamic);
+    return subgroup == null ? null : LexicalScope.opened(subgroup, resolveType == ResolveType.INTERNAL_SCOPE);
   }
 
   private enum ResolveType { REF, SCOPE, INTERNAL_SCOPE }
@@ -164,25 +138,22 @@ public class LexicalScope implements Scope {
       return null;
     }
 
+    GroupNameIndex index = getNameIndex(myGroup);
     if (resolveType == ResolveType.REF && !myOnlyExternal) {
-      Object result = resolveInternal(myGroup, name, myKind == Kind.OPENED_INTERNAL);
+      Object result = resolveInternal(myGroup, index, name, myKind == Kind.OPENED_INTERNAL);
       if (result != null) {
         return result;
       }
     }
 
-    for (Group subgroup : myGroup.getSubgroups()) {
-      Object result = resolveSubgroup(subgroup, name, resolveType);
-      if (result != null) {
-        return result;
-      }
+    Object result = resolveSubgroup(index, name, resolveType, false);
+    if (result != null) {
+      return result;
     }
     if (!myOnlyExternal) {
-      for (Group subgroup : myGroup.getDynamicSubgroups()) {
-        Object result = resolveSubgroup(subgroup, name, resolveType);
-        if (result != null) {
-          return result;
-        }
+      result = resolveSubgroup(index, name, resolveType, true);
+      if (result != null) {
+        return result;
       }
     }
 
@@ -206,7 +177,7 @@ public class LexicalScope implements Scope {
       }
 
       scope = NamespaceCommandNamespace.resolveNamespace(scope, cmd);
-      Object result = resolveType == ResolveType.REF ? scope.resolveName(name) : scope.resolveNamespace(name, resolveType == ResolveType.INTERNAL_SCOPE);
+      result = resolveType == ResolveType.REF ? scope.resolveName(name) : scope.resolveNamespace(name, resolveType == ResolveType.INTERNAL_SCOPE);
       if (result != null) {
         return result;
       }
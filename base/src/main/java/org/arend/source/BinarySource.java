@@ -19,6 +19,15 @@ public interface BinarySource extends Source {
    */
   boolean persist(SourceLibrary library, ReferableConverter referableConverter, ErrorReporter errorReporter);
 
+  /**
+   * Reads the source without loading definitions.
+   * This method may be invoked on a worker thread concurrently with other sources, so it must not access the library.
+   * Then {@link #preload} is invoked on the same object.
+   */
+  default void prefetch() {
+
+  }
+
   /**
    * Deletes the source.
    *
@@ -1,7 +1,9 @@
 package org.arend.source;
 
+import com.google.protobuf.CodedInputStream;
 import org.arend.ext.module.ModulePath;
 import org.arend.library.SourceLibrary;
+import org.arend.module.serialization.ModuleProtos;
 import org.arend.util.FileUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -9,23 +11,39 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.zip.GZIPOutputStream;
 
 public class FileBinarySource extends StreamBinarySource {
   private final Path myFile;
   private final ModulePath myModulePath;
+  private final boolean myCompressed;
+  private Path myTempFile;
 
   /**
    * Creates a new {@code FileBinarySource} from a path to the base directory and a path to the source.
+   * Both compressed and uncompressed modules can be loaded from this source.
    *
    * @param basePath    a path to the base directory.
    * @param modulePath  a path to the source.
+   * @param compressed  true if the module should be compressed when persisted, false otherwise.
    */
-  public FileBinarySource(Path basePath, ModulePath modulePath) {
+  public FileBinarySource(Path basePath, ModulePath modulePath, boolean compressed) {
     myFile = FileUtils.binaryFile(basePath, modulePath);
     myModulePath = modulePath;
+    myCompressed = compressed;
+  }
+
+  /**
+   * Creates a new {@code FileBinarySource} which persists modules without compression.
+   *
+   * @param basePath    a path to the base directory.
+   * @param modulePath  a path to the source.
+   */
+  public FileBinarySource(Path basePath, ModulePath modulePath) {
+    this(basePath, modulePath, false);
   }
 
   @NotNull
@@ -40,11 +58,62 @@ public class FileBinarySource extends StreamBinarySource {
     return Files.newInputStream(myFile);
   }
 
+  /**
+   * Uncompressed modules are mapped into memory and parsed without copying.
+   * Compressed modules are read through a stream.
+   */
+  @Nullable
+  @Override
+  protected ModuleProtos.Module readModuleProto() throws IOException {
+    try (FileChannel channel = FileChannel.open(myFile, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size <= Integer.MAX_VALUE) {
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        if (size < 2 || !GZIPStreamBinarySource.isCompressed(buffer.get(0) & 0xff, buffer.get(1) & 0xff)) {
+          // Lazily loaded bodies of definitions refer to the mapped buffer instead of being copied
+          CodedInputStream codedInputStream = CodedInputStream.newInstance(buffer);
+          codedInputStream.enableAliasing(true);
+          return parseModuleProto(codedInputStream);
+        }
+      }
+    }
+
+    try (InputStream stream = new GZIPStreamBinarySource(this).getInputStream()) {
+      return stream == null ? null : parseModuleProto(CodedInputStream.newInstance(stream));
+    }
+  }
+
+  /**
+   * The module is written to a temporary file which replaces the old one in {@link #finishPersisting} if persisting was successful.
+   * Thus, processes that have mapped the old file into memory are not affected, and a failure does not damage the old file.
+   */
   @Nullable
   @Override
   protected OutputStream getOutputStream() throws IOException {
-    Files.createDirectories(myFile.getParent());
-    return Files.newOutputStream(myFile, StandardOpenOption.CREATE);
+    Path directory = myFile.getParent();
+    Files.createDirectories(directory);
+    myTempFile = Files.createTempFile(directory, myFile.getFileName().toString(), ".tmp");
+    OutputStream stream = Files.newOutputStream(myTempFile);
+    return myCompressed ? new GZIPOutputStream(stream) : stream;
+  }
+
+  @Override
+  protected void finishPersisting(boolean successful) throws IOException {
+    Path tempFile = myTempFile;
+    if (tempFile == null) {
+      return;
+    }
+    myTempFile = null;
+
+    if (!successful) {
+      Files.deleteIfExists(tempFile);
+      return;
+    }
+    try {
+      Files.move(tempFile, myFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Files.move(tempFile, myFile, StandardCopyOption.REPLACE_EXISTING);
+    }
   }
 
   @Override
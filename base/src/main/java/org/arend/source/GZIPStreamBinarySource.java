@@ -5,6 +5,7 @@ import org.arend.library.SourceLibrary;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -22,11 +23,29 @@ public class GZIPStreamBinarySource extends StreamBinarySource {
     mySource = source;
   }
 
+  /**
+   * Checks if data starts with the GZIP header.
+   */
+  public static boolean isCompressed(int byte1, int byte2) {
+    return byte1 == (GZIPInputStream.GZIP_MAGIC & 0xff) && byte2 == (GZIPInputStream.GZIP_MAGIC >> 8);
+  }
+
+  /**
+   * Modules persisted without compression are read as is.
+   */
   @Nullable
   @Override
   protected InputStream getInputStream() throws IOException {
     InputStream stream = mySource.getInputStream();
-    return stream == null ? null : new GZIPInputStream(stream);
+    if (stream == null) {
+      return null;
+    }
+
+    BufferedInputStream bufferedStream = new BufferedInputStream(stream);
+    bufferedStream.mark(2);
+    boolean isCompressed = isCompressed(bufferedStream.read(), bufferedStream.read());
+    bufferedStream.reset();
+    return isCompressed ? new GZIPInputStream(bufferedStream) : bufferedStream;
   }
 
   @Nullable
@@ -36,6 +55,11 @@ public class GZIPStreamBinarySource extends StreamBinarySource {
     return stream == null ? null : new GZIPOutputStream(stream);
   }
 
+  @Override
+  protected void finishPersisting(boolean successful) throws IOException {
+    mySource.finishPersisting(successful);
+  }
+
   @NotNull
   @Override
   public ModulePath getModulePath() {
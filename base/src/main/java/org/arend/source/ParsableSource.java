@@ -0,0 +1,45 @@
+package org.arend.source;
+
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collection;
+
+/**
+ * Represents a raw source that can be parsed and resolved concurrently with other sources.
+ */
+public interface ParsableSource extends Source {
+  /**
+   * Parses the source without loading its dependencies.
+   * This method may be invoked on a worker thread, so it must not access the library or the loader.
+   * Errors are kept in the source and reported by {@link #preload}.
+   */
+  void parse();
+
+  /**
+   * Gets modules imported by the source.
+   * This method is invoked after {@link #parse}.
+   *
+   * @return the list of imported modules.
+   */
+  @NotNull Collection<? extends ModulePath> getImportedModules();
+
+  /**
+   * Checks if the next pass of {@link #load} only resolves names in this source.
+   * Such passes of different sources can run concurrently.
+   *
+   * @return true if the next pass can run concurrently with other sources, false otherwise.
+   */
+  boolean isNextPassConcurrent();
+
+  /**
+   * The same as {@link #load(SourceLoader)}, but reports errors to the given error reporter.
+   *
+   * @param sourceLoader    the state of the loading process.
+   * @param errorReporter   a reporter for errors that occur during this pass.
+   *
+   * @return the same as {@link #load(SourceLoader)}.
+   */
+  LoadResult load(SourceLoader sourceLoader, ErrorReporter errorReporter);
+}
@@ -0,0 +1,109 @@
+package org.arend.source;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.ext.reference.Precedence;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.Referable;
+import org.arend.term.concrete.Concrete;
+import org.arend.term.prettyprint.PrettyPrintVisitor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes hashes of definitions which are used to detect changes in sources.
+ * The hash is computed from the pretty printed definition, so it does not depend on formatting and comments.
+ * Global references are printed as full names of their referents, so the hash also changes when a name is resolved differently.
+ */
+public final class SourceHash {
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private SourceHash() {}
+
+  public static long hash(CharSequence text) {
+    long hash = FNV_OFFSET_BASIS;
+    for (int i = 0; i < text.length(); i++) {
+      hash ^= text.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * Combines a hash with another value.
+   */
+  public static long combine(long hash, long value) {
+    for (int i = 0; i < 8; i++) {
+      hash ^= (value >>> (i * 8)) & 0xff;
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  /**
+   * Computes the hash of a resolved definition.
+   */
+  public static long hash(Concrete.Definition definition) {
+    StringBuilder builder = new StringBuilder();
+    definition.accept(new ResolvedPrettyPrintVisitor(builder, 0, true), null);
+    return hash(builder);
+  }
+
+  /**
+   * Computes the hash of the part of a resolved definition which other definitions can depend on.
+   * Bodies of functions which do not evaluate, such as lemmas, are omitted.
+   * Other definitions are hashed entirely since their bodies, constructors, and fields are visible to dependent definitions.
+   *
+   * @param definition  a resolved definition.
+   * @param hash        the hash of the whole definition computed by {@link #hash(Concrete.Definition)}.
+   */
+  public static long hashSignature(Concrete.Definition definition, long hash) {
+    if (!(definition instanceof Concrete.BaseFunctionDefinition) || !((Concrete.BaseFunctionDefinition) definition).getKind().isSFunc()) {
+      return hash;
+    }
+
+    Concrete.BaseFunctionDefinition function = (Concrete.BaseFunctionDefinition) definition;
+    StringBuilder builder = new StringBuilder();
+    PrettyPrintVisitor visitor = new ResolvedPrettyPrintVisitor(builder, 0, true);
+    builder.append(function.getKind()).append(' ').append(getResolvedName(function.getData())).append(' ');
+    visitor.prettyPrintParameters(function.getParameters(), Concrete.ReferenceExpression.PREC);
+    if (function.getResultType() != null) {
+      builder.append(" : ");
+      function.getResultType().accept(visitor, new Precedence(Concrete.Expression.PREC));
+    }
+    if (function.getResultTypeLevel() != null) {
+      builder.append(" \\level ");
+      function.getResultTypeLevel().accept(visitor, new Precedence(Concrete.Expression.PREC));
+    }
+    return hash(builder);
+  }
+
+  /**
+   * @return the full name of a global referable together with the module in which it is defined.
+   */
+  static String getResolvedName(LocatedReferable referable) {
+    List<String> fullName = new ArrayList<>();
+    ModulePath location = LocatedReferable.Helper.getLocation(referable, fullName);
+    if (fullName.isEmpty()) {
+      fullName.add(referable.textRepresentation());
+    }
+    return (location == null ? "" : location + "::") + String.join(".", fullName);
+  }
+
+  private static class ResolvedPrettyPrintVisitor extends PrettyPrintVisitor {
+    ResolvedPrettyPrintVisitor(StringBuilder builder, int indent, boolean doIndent) {
+      super(builder, indent, doIndent);
+    }
+
+    @Override
+    protected PrettyPrintVisitor createVisitor(StringBuilder builder, int indent, boolean doIndent) {
+      return new ResolvedPrettyPrintVisitor(builder, indent, doIndent);
+    }
+
+    @Override
+    protected String getReferentText(Referable referable) {
+      return referable instanceof LocatedReferable ? getResolvedName((LocatedReferable) referable) : referable.textRepresentation();
+    }
+  }
+}
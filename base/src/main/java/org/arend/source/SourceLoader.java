@@ -1,17 +1,24 @@
 package org.arend.source;
 
+import org.arend.error.ListErrorReporter;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
 import org.arend.library.LibraryManager;
 import org.arend.library.SourceLibrary;
+import org.arend.module.error.ExceptionError;
 import org.arend.module.error.ModuleNotFoundError;
 import org.arend.module.scopeprovider.ModuleScopeProvider;
+import org.arend.module.serialization.DeserializationException;
+import org.arend.module.serialization.ModuleDeserialization;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.ReferableConverter;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.dependency.DependencyCollector;
+import org.arend.typechecking.order.dependency.DependencyListener;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Contains all necessary information for source loading.
@@ -23,14 +30,23 @@ public final class SourceLoader {
   private final Map<ModulePath, SourceType> myLoadedModules = new HashMap<>();
   private final Map<ModulePath, BinarySource> myLoadingBinaryModules = new HashMap<>();
   private final Map<ModulePath, Source> myLoadingRawModules = new HashMap<>();
+  private final Map<ModulePath, ParsableSource> myParsedRawSources = new HashMap<>();
+  private final Map<ModulePath, BinarySource> myPrefetchedBinarySources = new HashMap<>();
   private ModuleScopeProvider myModuleScopeProvider;
+  private final DependencyCollector myDependencyCollector;
+  private final List<TCReferable> myChangedDefinitions = new ArrayList<>();
+  private final Set<ModulePath> myChangedModules = new LinkedHashSet<>();
+  private final Set<ModulePath> myOutdatedModules = new HashSet<>();
+  private final Map<ModulePath, Set<ModulePath>> myCheckedImports = new HashMap<>();
+  private final Map<ModulePath, BinarySource> myDeferredModules = new LinkedHashMap<>();
 
-  private enum SourceType { RAW, BINARY, BINARY_FAIL }
+  private enum SourceType { RAW, BINARY, BINARY_FAIL, BINARY_DEFERRED }
 
   public SourceLoader(SourceLibrary library, LibraryManager libraryManager) {
     myLibrary = library;
     myLibraryManager = libraryManager;
     myReferableConverter = myLibrary.getReferableConverter();
+    myDependencyCollector = library.hasFlag(SourceLibrary.Flag.INCREMENTAL) ? new DependencyCollector(library.getTypecheckerState()) : null;
   }
 
   public SourceLibrary getLibrary() {
@@ -60,6 +76,203 @@ public final class SourceLoader {
     return myLibraryManager.getLibraryErrorReporter();
   }
 
+  /**
+   * Gets a dependency listener for definitions loaded from binary sources.
+   * In the incremental mode, it also records dependencies which are used by {@link #resetChangedDefinitions}.
+   */
+  public DependencyListener getDependencyListener() {
+    DependencyListener libraryListener = myLibrary.getDependencyListener();
+    if (myDependencyCollector == null) {
+      return libraryListener;
+    }
+
+    return new DependencyListener() {
+      @Override
+      public void dependsOn(TCReferable def1, TCReferable def2) {
+        myDependencyCollector.dependsOn(def1, def2);
+        libraryListener.dependsOn(def1, def2);
+      }
+
+      @Override
+      public Set<? extends TCReferable> update(TCReferable definition) {
+        return libraryListener.update(definition);
+      }
+    };
+  }
+
+  /**
+   * Checks if a binary module is up to date.
+   * A module is up to date if the hash of its raw source and the hashes of interfaces of imported modules did not change since it was persisted.
+   * If the binary module does not contain hashes or the raw source does not provide them, timestamps of sources are compared instead.
+   * Binary sources that store hashes must invoke this method before loading definitions.
+   *
+   * @param modulePath  the path to the module.
+   * @param module      the deserialization of the binary module.
+   *
+   * @return true if the module can be loaded, false if it must be loaded from the raw source.
+   */
+  public boolean checkBinary(ModulePath modulePath, ModuleDeserialization module) throws DeserializationException {
+    boolean outdated = myOutdatedModules.remove(modulePath);
+    Long sourceHash = myLibrary.hasRawSources() ? myLibrary.getModuleHash(modulePath) : null;
+    ModuleProtos.Module moduleProto = module.getModuleProto();
+    Map<ModulePath, Long> importHashes = sourceHash != null && moduleProto.getOptionalSourceHashCase() == ModuleProtos.Module.OptionalSourceHashCase.SOURCE_HASH ? module.getImportHashes() : null;
+    if (importHashes != null) {
+      outdated = sourceHash != moduleProto.getSourceHash();
+      if (myDependencyCollector != null) {
+        // In the incremental mode, changes in imported modules are tracked by dependencies between definitions
+        if (outdated) {
+          myChangedModules.add(modulePath);
+        }
+        return true;
+      }
+
+      for (Map.Entry<ModulePath, Long> entry : importHashes.entrySet()) {
+        if (outdated) {
+          break;
+        }
+        Long interfaceHash = myLibrary.getInterfaceHash(entry.getKey());
+        outdated = interfaceHash == null || !interfaceHash.equals(entry.getValue());
+      }
+      if (!outdated) {
+        myCheckedImports.put(modulePath, importHashes.keySet());
+      }
+    }
+
+    if (!outdated) {
+      return true;
+    }
+    if (myDependencyCollector == null) {
+      return false;
+    }
+    myChangedModules.add(modulePath);
+    return true;
+  }
+
+  /**
+   * Postpones loading of definitions of a binary module until modules it depends on are typechecked.
+   * This is possible only if each of the given modules either is imported by the module, is loaded from its raw source, and its interface did not change since the binary module was persisted,
+   * or its loading was also postponed.
+   * Binary sources may invoke this method in {@link Source#preload} instead of loading definitions.
+   * Then {@link Source#load} is invoked by {@link #loadDeferredBinaries}.
+   *
+   * @param modulePath    the path to the module.
+   * @param dependencies  modules that contain call targets of the module and are not loaded from binary sources.
+   *
+   * @return true if loading was postponed, false if the module must be loaded from its raw source.
+   */
+  public boolean deferBinary(ModulePath modulePath, Collection<? extends ModulePath> dependencies) {
+    Set<ModulePath> checkedImports = myCheckedImports.get(modulePath);
+    if (checkedImports == null) {
+      return false;
+    }
+    for (ModulePath dependency : dependencies) {
+      SourceType sourceType = myLoadedModules.get(dependency);
+      if (!(sourceType == SourceType.BINARY_DEFERRED || (sourceType == SourceType.RAW || sourceType == SourceType.BINARY_FAIL) && checkedImports.contains(dependency))) {
+        return false;
+      }
+    }
+
+    BinarySource binarySource = myLoadingBinaryModules.remove(modulePath);
+    if (binarySource == null) {
+      return false;
+    }
+    myLoadedModules.put(modulePath, SourceType.BINARY_DEFERRED);
+    myDeferredModules.put(modulePath, binarySource);
+    myLibrary.onBinaryLoaded(modulePath, true);
+    return true;
+  }
+
+  public boolean hasDeferredBinaries() {
+    return !myDeferredModules.isEmpty();
+  }
+
+  /**
+   * Loads binary sources whose loading was postponed by {@link #deferBinary}.
+   * This method must be invoked after modules loaded from raw sources are typechecked.
+   * Modules that cannot be loaded are reported to the library as updated.
+   *
+   * @return true if all modules were loaded, false otherwise.
+   */
+  public boolean loadDeferredBinaries() {
+    boolean ok = true;
+    for (Map.Entry<ModulePath, BinarySource> entry : myDeferredModules.entrySet()) {
+      Source.LoadResult result;
+      do {
+        result = entry.getValue().load(this);
+      } while (result == Source.LoadResult.CONTINUE);
+
+      if (result == Source.LoadResult.SUCCESS) {
+        myLoadedModules.put(entry.getKey(), SourceType.BINARY);
+      } else {
+        myLoadedModules.put(entry.getKey(), SourceType.BINARY_FAIL);
+        myLibrary.onModuleUpdated(entry.getKey());
+        ok = false;
+      }
+    }
+    myDeferredModules.clear();
+    return ok;
+  }
+
+  /**
+   * Modules typechecked from raw sources typecheck concrete definitions of imported modules that are not typechecked yet.
+   * Thus, loading of modules imported by them cannot be postponed.
+   */
+  private void undeferImportedModules() {
+    Deque<ModulePath> toVisit = new ArrayDeque<>(myLibrary.getUpdatedModules());
+    while (!toVisit.isEmpty()) {
+      List<ModulePath> imports = myLibrary.getModuleImports(toVisit.pop());
+      if (imports == null) {
+        continue;
+      }
+      for (ModulePath modulePath : imports) {
+        if (myDeferredModules.remove(modulePath) != null) {
+          myLoadedModules.put(modulePath, SourceType.BINARY_FAIL);
+          myLibrary.onModuleUpdated(modulePath);
+          toVisit.push(modulePath);
+        }
+      }
+    }
+  }
+
+  /**
+   * Invoked by binary sources with definitions whose sources changed since they were persisted.
+   */
+  public void definitionsChanged(Collection<? extends TCReferable> definitions) {
+    myChangedDefinitions.addAll(definitions);
+  }
+
+  /**
+   * Resets changed definitions and definitions which depend on them, so that they will be typechecked again.
+   * Modules containing such definitions are reported to the library as updated.
+   */
+  public void resetChangedDefinitions() {
+    if (myDependencyCollector == null) {
+      return;
+    }
+
+    Set<ModulePath> updatedModules = new LinkedHashSet<>();
+    for (ModulePath modulePath : myChangedModules) {
+      if (myLoadedModules.get(modulePath) == SourceType.BINARY) {
+        updatedModules.add(modulePath);
+      }
+    }
+    myChangedModules.clear();
+
+    for (TCReferable definition : myChangedDefinitions) {
+      for (TCReferable updated : myDependencyCollector.update(definition)) {
+        ModulePath modulePath = updated.getLocation();
+        if (modulePath != null) {
+          updatedModules.add(modulePath);
+        }
+      }
+    }
+    myChangedDefinitions.clear();
+
+    for (ModulePath modulePath : updatedModules) {
+      myLibrary.onModuleUpdated(modulePath);
+    }
+  }
+
   /**
    * Loads the structure of the source and its dependencies.
    *
@@ -74,7 +287,10 @@ public final class SourceLoader {
       return true;
     }
 
-    Source rawSource = myLibrary.getRawSource(modulePath);
+    Source rawSource = myParsedRawSources.remove(modulePath);
+    if (rawSource == null) {
+      rawSource = myLibrary.getRawSource(modulePath);
+    }
     boolean rawSourceIsAvailable = rawSource != null && rawSource.isAvailable();
 
     if (!rawSourceIsAvailable) {
@@ -84,6 +300,7 @@ public final class SourceLoader {
 
     myLoadedModules.put(modulePath, SourceType.RAW);
     myLoadingRawModules.put(modulePath, rawSource);
+    myLibrary.recordModuleTimeStamp(modulePath, rawSource.getTimeStamp());
     if (!rawSource.preload(this)) {
       myLoadingRawModules.remove(modulePath);
       return false;
@@ -92,17 +309,216 @@ public final class SourceLoader {
     return true;
   }
 
+  /**
+   * Loads the structure of sources and their dependencies.
+   * If the library manager allows several loading threads, sources that implement {@link ParsableSource} are parsed concurrently first.
+   *
+   * @param modulePaths modules to load.
+   */
+  public void preloadRaw(Collection<? extends ModulePath> modulePaths) {
+    int threads = myLibraryManager.getLoadingThreads();
+    if (threads > 1) {
+      parseRawSources(modulePaths, threads);
+    }
+    for (ModulePath modulePath : modulePaths) {
+      preloadRaw(modulePath);
+    }
+    myParsedRawSources.clear();
+  }
+
+  /**
+   * Loads raw sources of given modules assuming that other modules of the library are already loaded.
+   * Modules which do not belong to the given set are not reloaded even if they are imported by the given ones.
+   * Names in the given modules are resolved again, and references to other modules are resolved in the scopes of their loaded groups.
+   *
+   * @param modulePaths modules to reload.
+   * @return the result of {@link #loadRawSources}.
+   */
+  public boolean reloadRaw(Set<? extends ModulePath> modulePaths) {
+    for (ModulePath modulePath : myLibrary.getLoadedModules()) {
+      if (!modulePaths.contains(modulePath)) {
+        myLoadedModules.put(modulePath, SourceType.RAW);
+      }
+    }
+    preloadRaw(modulePaths);
+    return loadRawSources();
+  }
+
+  private void parseRawSources(Collection<? extends ModulePath> modulePaths, int threads) {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    CompletionService<ParsableSource> completionService = new ExecutorCompletionService<>(executor);
+    Set<ModulePath> scheduled = new HashSet<>();
+    Deque<ModulePath> toSchedule = new ArrayDeque<>(modulePaths);
+    int pending = 0;
+
+    try {
+      while (true) {
+        while (!toSchedule.isEmpty()) {
+          ModulePath modulePath = toSchedule.pop();
+          if (myLoadedModules.containsKey(modulePath) || !scheduled.add(modulePath)) {
+            continue;
+          }
+          Source source = myLibrary.getRawSource(modulePath);
+          if (source instanceof ParsableSource && source.isAvailable()) {
+            ParsableSource parsableSource = (ParsableSource) source;
+            completionService.submit(() -> {
+              parsableSource.parse();
+              return parsableSource;
+            });
+            pending++;
+          }
+        }
+
+        if (pending == 0) {
+          break;
+        }
+
+        ParsableSource source = completionService.take().get();
+        pending--;
+        // Libraries may create a new source object on every request, so the parsed one is kept
+        myParsedRawSources.put(source.getModulePath(), source);
+        for (ModulePath modulePath : source.getImportedModules()) {
+          if (myLibrary.containsModule(modulePath)) {
+            toSchedule.push(modulePath);
+          }
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw rethrow(e);
+    } finally {
+      shutdown(executor);
+    }
+  }
+
+  /**
+   * Loads binary sources.
+   * If the library manager allows several loading threads, binary sources are read concurrently first.
+   * Then definitions are loaded in the order of dependencies between modules.
+   *
+   * @param modulePaths modules to load.
+   */
+  public void loadBinaries(Collection<? extends ModulePath> modulePaths) {
+    int threads = myLibraryManager.getLoadingThreads();
+    if (threads > 1) {
+      prefetchBinarySources(modulePaths, threads);
+    }
+    for (ModulePath modulePath : modulePaths) {
+      loadBinary(modulePath);
+    }
+    myPrefetchedBinarySources.clear();
+    if (!myDeferredModules.isEmpty()) {
+      undeferImportedModules();
+    }
+  }
+
+  private void prefetchBinarySources(Collection<? extends ModulePath> modulePaths, int threads) {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (ModulePath modulePath : modulePaths) {
+        SourceType sourceType = myLoadedModules.get(modulePath);
+        if (myLibrary.hasRawSources() ? sourceType != SourceType.RAW : sourceType != null) {
+          continue;
+        }
+
+        BinarySource binarySource = myLibrary.getBinarySource(modulePath);
+        if (binarySource != null && binarySource.isAvailable() && !myPrefetchedBinarySources.containsKey(modulePath)) {
+          myPrefetchedBinarySources.put(modulePath, binarySource);
+          futures.add(executor.submit(binarySource::prefetch));
+        }
+      }
+
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      throw rethrow(e);
+    } finally {
+      shutdown(executor);
+    }
+  }
+
+  private static RuntimeException rethrow(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+  }
+
+  private static void shutdown(ExecutorService executor) {
+    executor.shutdownNow();
+    try {
+      executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
   /**
    * Loads raw sources that were preloaded.
+   * If the library manager allows several loading threads, passes that only resolve names run concurrently.
+   * Other passes of all sources run before them in the current thread.
+   *
+   * @return true if sources were loaded, false if the current thread was interrupted.
    */
-  public void loadRawSources() {
-    while (!myLoadingRawModules.isEmpty()) {
-      for (Iterator<Source> it = myLoadingRawModules.values().iterator(); it.hasNext(); ) {
-        Source source = it.next();
-        Source.LoadResult loadResult = source.load(this);
-        if (loadResult != Source.LoadResult.CONTINUE) {
-          it.remove();
+  public boolean loadRawSources() {
+    int threads = myLibraryManager.getLoadingThreads();
+    ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+    try {
+      while (!myLoadingRawModules.isEmpty()) {
+        List<ParsableSource> concurrentSources = new ArrayList<>();
+        for (Iterator<Source> it = myLoadingRawModules.values().iterator(); it.hasNext(); ) {
+          Source source = it.next();
+          if (executor != null && source instanceof ParsableSource && ((ParsableSource) source).isNextPassConcurrent()) {
+            concurrentSources.add((ParsableSource) source);
+            continue;
+          }
+
+          Source.LoadResult loadResult = source.load(this);
+          if (loadResult != Source.LoadResult.CONTINUE) {
+            it.remove();
+          }
+        }
+        if (concurrentSources.isEmpty()) {
+          continue;
+        }
+
+        // Concurrent passes are submitted only after sequential ones are finished, so they never observe sources that are being modified
+        List<Future<Source.LoadResult>> concurrentResults = new ArrayList<>(concurrentSources.size());
+        List<ListErrorReporter> concurrentErrors = new ArrayList<>(concurrentSources.size());
+        for (ParsableSource source : concurrentSources) {
+          ListErrorReporter errorReporter = new ListErrorReporter();
+          concurrentErrors.add(errorReporter);
+          concurrentResults.add(executor.submit(() -> source.load(this, errorReporter)));
         }
+
+        for (int i = 0; i < concurrentSources.size(); i++) {
+          Source.LoadResult loadResult;
+          try {
+            loadResult = concurrentResults.get(i).get();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            getLibraryErrorReporter().report(new ExceptionError(e, "loading of library " + myLibrary.getName()));
+            return false;
+          } catch (ExecutionException e) {
+            throw rethrow(e);
+          }
+
+          concurrentErrors.get(i).reportTo(getTypecheckingErrorReporter());
+          if (loadResult != Source.LoadResult.CONTINUE) {
+            myLoadingRawModules.remove(concurrentSources.get(i).getModulePath());
+          }
+        }
+      }
+      return true;
+    } finally {
+      if (executor != null) {
+        shutdown(executor);
       }
     }
   }
@@ -142,7 +558,7 @@ public final class SourceLoader {
    */
   boolean preloadBinary(ModulePath modulePath) {
     SourceType sourceType = myLoadedModules.get(modulePath);
-    if (sourceType == SourceType.BINARY || sourceType == SourceType.BINARY_FAIL) {
+    if (sourceType == SourceType.BINARY || sourceType == SourceType.BINARY_FAIL || sourceType == SourceType.BINARY_DEFERRED) {
       return sourceType == SourceType.BINARY;
     }
     if (myLibrary.hasRawSources() && sourceType != SourceType.RAW) {
@@ -152,7 +568,10 @@ public final class SourceLoader {
       return true;
     }
 
-    BinarySource binarySource = myLibrary.getBinarySource(modulePath);
+    BinarySource binarySource = myPrefetchedBinarySources.remove(modulePath);
+    if (binarySource == null) {
+      binarySource = myLibrary.getBinarySource(modulePath);
+    }
     if (binarySource == null || !binarySource.isAvailable()) {
       return false;
     }
@@ -160,7 +579,15 @@ public final class SourceLoader {
     if (myLibrary.hasRawSources()) {
       Source rawSource = myLibrary.getRawSource(modulePath);
       if (rawSource != null && rawSource.isAvailable() && binarySource.getTimeStamp() < rawSource.getTimeStamp()) {
-        return false;
+        if (myLibrary.getModuleHash(modulePath) != null) {
+          // The binary source will compare hashes in checkBinary
+          myOutdatedModules.add(modulePath);
+        } else if (myDependencyCollector == null) {
+          return false;
+        } else {
+          // The module may contain new definitions, so it must be typechecked even if no persisted definition changed
+          myChangedModules.add(modulePath);
+        }
       }
     }
 
@@ -172,6 +599,6 @@ public final class SourceLoader {
       return false;
     }
 
-    return true;
+    return myLoadedModules.get(modulePath) == SourceType.BINARY;
   }
 }
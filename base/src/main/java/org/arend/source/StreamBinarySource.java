@@ -23,12 +23,19 @@ import org.jetbrains.annotations.Nullable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a source that loads a binary module from an {@link InputStream} and persists it to an {@link OutputStream}.
  */
 public abstract class StreamBinarySource implements BinarySource {
   private ModuleDeserialization myModuleDeserialization;
+  private ModuleProtos.Module myPrefetchedModule;
+  private IOException myPrefetchException;
+  private boolean myDeferred;
 
   @NotNull
   @Override
@@ -50,36 +57,105 @@ public abstract class StreamBinarySource implements BinarySource {
   @Nullable
   protected abstract OutputStream getOutputStream() throws IOException;
 
+  /**
+   * Invoked by {@link #persist} after the stream returned by {@link #getOutputStream} is closed or if it cannot be obtained.
+   * Sources that write the module to a temporary location should replace the old module here only if persisting was successful.
+   *
+   * @param successful  true if the module was completely written, false otherwise.
+   */
+  protected void finishPersisting(boolean successful) throws IOException {
+  }
+
+  /**
+   * Reads the binary module.
+   * The default implementation parses the stream returned by {@link #getInputStream}.
+   *
+   * @return the module or null if the source is not available.
+   */
+  @Nullable
+  protected ModuleProtos.Module readModuleProto() throws IOException {
+    try (InputStream inputStream = getInputStream()) {
+      return inputStream == null ? null : parseModuleProto(CodedInputStream.newInstance(inputStream));
+    }
+  }
+
+  protected static ModuleProtos.Module parseModuleProto(CodedInputStream codedInputStream) throws IOException {
+    codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
+    return ModuleProtos.Module.parseFrom(codedInputStream);
+  }
+
+  @Override
+  public void prefetch() {
+    try {
+      myPrefetchedModule = readModuleProto();
+    } catch (IOException e) {
+      myPrefetchException = e;
+    }
+  }
+
+  private ModuleProtos.Module takeModuleProto() throws IOException {
+    IOException exception = myPrefetchException;
+    ModuleProtos.Module module = myPrefetchedModule;
+    myPrefetchException = null;
+    myPrefetchedModule = null;
+    if (exception != null) {
+      throw exception;
+    }
+    return module != null ? module : readModuleProto();
+  }
+
   @Override
   public boolean preload(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
-    ChildGroup group = null;
-    try (InputStream inputStream = getInputStream()) {
-      if (inputStream == null) {
+    try {
+      ModuleProtos.Module moduleProto = takeModuleProto();
+      if (moduleProto == null) {
+        return false;
+      }
+
+      ReferableConverter referableConverter = sourceLoader.getReferableConverter();
+      ModuleDeserialization moduleDeserialization = new ModuleDeserialization(moduleProto, library.getTypecheckerState(), referableConverter, library.hasFlag(SourceLibrary.Flag.INCREMENTAL) ? library::getSourceHash : null);
+      if (!sourceLoader.checkBinary(modulePath, moduleDeserialization)) {
         return false;
       }
 
-      CodedInputStream codedInputStream = CodedInputStream.newInstance(inputStream);
-      codedInputStream.setRecursionLimit(Integer.MAX_VALUE);
-      ModuleProtos.Module moduleProto = ModuleProtos.Module.parseFrom(codedInputStream);
       boolean isComplete = moduleProto.getComplete();
       if (!isComplete && !library.hasRawSources()) {
         sourceLoader.getLibraryErrorReporter().report(new PartialModuleError(modulePath));
         return false;
       }
 
-      for (ModuleProtos.ModuleCallTargets moduleCallTargets : moduleProto.getModuleCallTargetsList()) {
-        ModulePath module = new ModulePath(moduleCallTargets.getNameList());
+      List<ModulePath> dependencies = new ArrayList<>();
+      for (ModulePath module : moduleDeserialization.getCallTargetModules()) {
         if (library.containsModule(module) && !sourceLoader.preloadBinary(module)) {
+          dependencies.add(module);
+        }
+      }
+      if (!dependencies.isEmpty()) {
+        // Definitions are read when the dependencies are typechecked
+        if (!isComplete || !sourceLoader.deferBinary(modulePath, dependencies)) {
           return false;
         }
+        myModuleDeserialization = moduleDeserialization;
+        myDeferred = true;
+        return true;
       }
 
-      ReferableConverter referableConverter = sourceLoader.getReferableConverter();
-      myModuleDeserialization = new ModuleDeserialization(moduleProto, library.getTypecheckerState(), referableConverter);
+      myModuleDeserialization = moduleDeserialization;
+      return readDefinitions(sourceLoader);
+    } catch (IOException | DeserializationException e) {
+      loadingFailed(sourceLoader, modulePath, null, e);
+      return false;
+    }
+  }
 
-      if (referableConverter == null) {
+  private boolean readDefinitions(SourceLoader sourceLoader) {
+    SourceLibrary library = sourceLoader.getLibrary();
+    ModulePath modulePath = getModulePath();
+    ChildGroup group = null;
+    try {
+      if (sourceLoader.getReferableConverter() == null) {
         group = myModuleDeserialization.readGroup(modulePath);
         library.onGroupLoaded(modulePath, group, false);
       } else {
@@ -91,9 +167,8 @@ public abstract class StreamBinarySource implements BinarySource {
         }
         myModuleDeserialization.readDefinitions(group);
       }
-
       return true;
-    } catch (IOException | DeserializationException e) {
+    } catch (DeserializationException e) {
       loadingFailed(sourceLoader, modulePath, group, e);
       return false;
     }
@@ -103,9 +178,16 @@ public abstract class StreamBinarySource implements BinarySource {
   public LoadResult load(SourceLoader sourceLoader) {
     SourceLibrary library = sourceLoader.getLibrary();
     ModulePath modulePath = getModulePath();
+    if (myDeferred) {
+      myDeferred = false;
+      if (!readDefinitions(sourceLoader)) {
+        myModuleDeserialization = null;
+        return LoadResult.FAIL;
+      }
+    }
+
     try {
-      for (ModuleProtos.ModuleCallTargets moduleCallTargets : myModuleDeserialization.getModuleProto().getModuleCallTargetsList()) {
-        ModulePath module = new ModulePath(moduleCallTargets.getNameList());
+      for (ModulePath module : myModuleDeserialization.getCallTargetModules()) {
         if (library.containsModule(module) && !sourceLoader.fillInBinary(module)) {
           ChildGroup group = library.getModuleGroup(modulePath);
           if (group != null) {
@@ -115,8 +197,9 @@ public abstract class StreamBinarySource implements BinarySource {
         }
       }
 
-      myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(), library.getDependencyListener());
+      myModuleDeserialization.readModule(sourceLoader.getModuleScopeProvider(), sourceLoader.getDependencyListener());
       library.onBinaryLoaded(modulePath, myModuleDeserialization.getModuleProto().getComplete());
+      sourceLoader.definitionsChanged(myModuleDeserialization.getChangedDefinitions());
       myModuleDeserialization = null;
       return LoadResult.SUCCESS;
     } catch (DeserializationException e) {
@@ -135,6 +218,24 @@ public abstract class StreamBinarySource implements BinarySource {
     }
   }
 
+  private static void setHashes(SourceLibrary library, ModulePath modulePath, ModuleSerialization moduleSerialization) {
+    Long sourceHash = library.getModuleHash(modulePath);
+    List<ModulePath> imports = library.getModuleImports(modulePath);
+    if (sourceHash == null || imports == null) {
+      return;
+    }
+
+    Map<ModulePath, Long> interfaceHashes = new LinkedHashMap<>();
+    for (ModulePath importedModule : imports) {
+      Long interfaceHash = library.getInterfaceHash(importedModule);
+      if (interfaceHash == null) {
+        return;
+      }
+      interfaceHashes.put(importedModule, interfaceHash);
+    }
+    moduleSerialization.setHashes(sourceHash, interfaceHashes);
+  }
+
   @Override
   public boolean persist(SourceLibrary library, ReferableConverter referableConverter, ErrorReporter errorReporter) {
     ModulePath currentModulePath = getModulePath();
@@ -144,22 +245,40 @@ public abstract class StreamBinarySource implements BinarySource {
       return false;
     }
 
+    boolean successful;
+    try {
+      successful = writeModule(library, group, referableConverter, errorReporter);
+    } catch (Exception e) {
+      errorReporter.report(new ExceptionError(e, "persisting", currentModulePath));
+      successful = false;
+    }
+
+    try {
+      finishPersisting(successful);
+    } catch (IOException e) {
+      errorReporter.report(new ExceptionError(e, "persisting", currentModulePath));
+      successful = false;
+    }
+    return successful;
+  }
+
+  private boolean writeModule(SourceLibrary library, Group group, ReferableConverter referableConverter, ErrorReporter errorReporter) throws IOException {
+    ModulePath currentModulePath = getModulePath();
     try (OutputStream outputStream = getOutputStream()) {
       if (outputStream == null) {
         errorReporter.report(new PersistingError(currentModulePath));
         return false;
       }
 
-      ModuleProtos.Module module = new ModuleSerialization(library.getTypecheckerState(), errorReporter).writeModule(group, currentModulePath, referableConverter);
+      ModuleSerialization moduleSerialization = new ModuleSerialization(library.getTypecheckerState(), errorReporter, library::getSourceHash);
+      setHashes(library, currentModulePath, moduleSerialization);
+      ModuleProtos.Module module = moduleSerialization.writeModule(group, currentModulePath, referableConverter);
       if (module == null) {
         return false;
       }
 
       module.writeTo(outputStream);
       return true;
-    } catch (Exception e) {
-      errorReporter.report(new ExceptionError(e, "persisting", currentModulePath));
-      return false;
     }
   }
 }
@@ -46,4 +46,10 @@ public class EmptyGroup implements ChildGroup {
   public Collection<? extends InternalReferable> getInternalReferables() {
     return Collections.emptyList();
   }
+
+  @NotNull
+  @Override
+  public GroupNameIndex getNameIndex() {
+    return GroupNameIndex.EMPTY;
+  }
 }
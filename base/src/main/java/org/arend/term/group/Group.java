@@ -3,6 +3,7 @@ package org.arend.term.group;
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.term.NamespaceCommand;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.Collection;
 import java.util.Collections;
@@ -27,6 +28,18 @@ public interface Group {
     return Collections.emptyList();
   }
 
+  /**
+   * @return the index of names defined in this group or null if the group does not keep one.
+   */
+  default @Nullable GroupNameIndex getNameIndex() {
+    return null;
+  }
+
+  /**
+   * Drops the index of names, so that it is rebuilt on the next lookup.
+   */
+  default void invalidateNameIndex() {}
+
   interface InternalReferable {
     LocatedReferable getReferable();
     boolean isVisible();
@@ -0,0 +1,177 @@
+package org.arend.term.group;
+
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.Referable;
+
+import java.util.*;
+
+/**
+ * An index of names defined in a group.
+ * For every name, it keeps the first referable with this name in the order in which {@link org.arend.naming.scope.LexicalScope} looks for it.
+ * The index does not change, so it must be rebuilt if the group changes.
+ */
+public class GroupNameIndex {
+  /**
+   * The index of a group without names.
+   */
+  public static final GroupNameIndex EMPTY = new GroupNameIndex();
+
+  private final Map<String, LocatedReferable> myConstructors;
+  private final Map<String, LocatedReferable> myVisibleConstructors;
+  private final Map<String, LocatedReferable> myFields;
+  private final Map<String, LocatedReferable> myVisibleFields;
+  private final Map<String, LocatedReferable> mySubgroupReferables;
+  private final Map<String, LocatedReferable> myDynamicSubgroupReferables;
+  private final Map<String, Group> mySubgroups;
+  private final Map<String, Group> myDynamicSubgroups;
+  private final List<Referable> myConstructorElements;
+  private final List<Referable> myFieldElements;
+  private final List<Referable> mySubgroupElements;
+  private final List<Referable> myDynamicSubgroupElements;
+
+  public GroupNameIndex(Group group) {
+    Collection<? extends Group.InternalReferable> constructors = group.getConstructors();
+    myConstructors = new HashMap<>();
+    myVisibleConstructors = new HashMap<>();
+    myConstructorElements = new ArrayList<>(constructors.size());
+    addInternalReferables(constructors, myConstructors, myVisibleConstructors, myConstructorElements);
+
+    Collection<? extends Group.InternalReferable> fields = group.getFields();
+    myFields = new HashMap<>();
+    myVisibleFields = new HashMap<>();
+    myFieldElements = new ArrayList<>(fields.size());
+    addInternalReferables(fields, myFields, myVisibleFields, myFieldElements);
+
+    mySubgroupReferables = new HashMap<>();
+    mySubgroups = new HashMap<>();
+    mySubgroupElements = new ArrayList<>();
+    addSubgroups(group.getSubgroups(), mySubgroupReferables, mySubgroups, mySubgroupElements);
+
+    myDynamicSubgroupReferables = new HashMap<>();
+    myDynamicSubgroups = new HashMap<>();
+    myDynamicSubgroupElements = new ArrayList<>();
+    addSubgroups(group.getDynamicSubgroups(), myDynamicSubgroupReferables, myDynamicSubgroups, myDynamicSubgroupElements);
+  }
+
+  private GroupNameIndex() {
+    myConstructors = Collections.emptyMap();
+    myVisibleConstructors = Collections.emptyMap();
+    myFields = Collections.emptyMap();
+    myVisibleFields = Collections.emptyMap();
+    mySubgroupReferables = Collections.emptyMap();
+    myDynamicSubgroupReferables = Collections.emptyMap();
+    mySubgroups = Collections.emptyMap();
+    myDynamicSubgroups = Collections.emptyMap();
+    myConstructorElements = Collections.emptyList();
+    myFieldElements = Collections.emptyList();
+    mySubgroupElements = Collections.emptyList();
+    myDynamicSubgroupElements = Collections.emptyList();
+  }
+
+  /**
+   * @return true if the group does not define any names.
+   */
+  public static boolean isEmpty(Group group) {
+    return group.getSubgroups().isEmpty() && group.getDynamicSubgroups().isEmpty() && group.getConstructors().isEmpty() && group.getFields().isEmpty();
+  }
+
+  private static boolean isValidName(String name) {
+    return !name.isEmpty() && !"_".equals(name);
+  }
+
+  private static void addInternalReferables(Collection<? extends Group.InternalReferable> internalReferables, Map<String, LocatedReferable> all, Map<String, LocatedReferable> visible, List<Referable> elements) {
+    for (Group.InternalReferable internalReferable : internalReferables) {
+      LocatedReferable referable = internalReferable.getReferable();
+      String name = referable.textRepresentation();
+      if (!isValidName(name)) {
+        continue;
+      }
+      all.putIfAbsent(name, referable);
+      if (internalReferable.isVisible()) {
+        visible.putIfAbsent(name, referable);
+      }
+      elements.add(referable);
+    }
+  }
+
+  private static void addSubgroups(Collection<? extends Group> subgroups, Map<String, LocatedReferable> referables, Map<String, Group> groups, List<Referable> elements) {
+    for (Group subgroup : subgroups) {
+      LocatedReferable referable = subgroup.getReferable();
+      String name = referable.textRepresentation();
+      if (isValidName(name)) {
+        referables.putIfAbsent(name, referable);
+        groups.putIfAbsent(name, subgroup);
+        elements.add(referable);
+      }
+
+      for (Group.InternalReferable internalReferable : subgroup.getConstructors()) {
+        addVisibleReferable(internalReferable, referables, null);
+      }
+      for (Group.InternalReferable internalReferable : subgroup.getFields()) {
+        addVisibleReferable(internalReferable, referables, null);
+      }
+      for (Group.InternalReferable internalReferable : subgroup.getInternalReferables()) {
+        addVisibleReferable(internalReferable, null, elements);
+      }
+    }
+  }
+
+  private static void addVisibleReferable(Group.InternalReferable internalReferable, Map<String, LocatedReferable> referables, List<Referable> elements) {
+    if (!internalReferable.isVisible()) {
+      return;
+    }
+    LocatedReferable referable = internalReferable.getReferable();
+    String name = referable.textRepresentation();
+    if (isValidName(name)) {
+      if (referables != null) {
+        referables.putIfAbsent(name, referable);
+      }
+      if (elements != null) {
+        elements.add(referable);
+      }
+    }
+  }
+
+  /**
+   * @return the first constructor with the given name.
+   */
+  public LocatedReferable getConstructor(String name, boolean onlyVisible) {
+    return (onlyVisible ? myVisibleConstructors : myConstructors).get(name);
+  }
+
+  /**
+   * @return the first field with the given name.
+   */
+  public LocatedReferable getField(String name, boolean onlyVisible) {
+    return (onlyVisible ? myVisibleFields : myFields).get(name);
+  }
+
+  /**
+   * @return the first subgroup with the given name or a visible constructor or field of a subgroup.
+   */
+  public LocatedReferable getSubgroupReferable(String name, boolean dynamic) {
+    return (dynamic ? myDynamicSubgroupReferables : mySubgroupReferables).get(name);
+  }
+
+  /**
+   * @return the first subgroup with the given name.
+   */
+  public Group getSubgroup(String name, boolean dynamic) {
+    return (dynamic ? myDynamicSubgroups : mySubgroups).get(name);
+  }
+
+  public List<Referable> getConstructorElements() {
+    return myConstructorElements;
+  }
+
+  public List<Referable> getFieldElements() {
+    return myFieldElements;
+  }
+
+  /**
+   * @return subgroups and their visible internal referables.
+   */
+  public List<Referable> getSubgroupElements(boolean dynamic) {
+    return dynamic ? myDynamicSubgroupElements : mySubgroupElements;
+  }
+}
@@ -14,6 +14,7 @@ public class StaticGroup implements ChildGroup {
   private final List<Group> myStaticGroups;
   private final List<ChildNamespaceCommand> myNamespaceCommands;
   private final ChildGroup myParent;
+  private volatile GroupNameIndex myNameIndex;
 
   public StaticGroup(LocatedReferable referable, List<Group> staticGroups, List<ChildNamespaceCommand> namespaceCommands, ChildGroup parent) {
     myReferable = referable;
@@ -51,4 +52,23 @@ public class StaticGroup implements ChildGroup {
   public ChildGroup getParentGroup() {
     return myParent;
   }
+
+  /**
+   * The index is built on the first lookup since subgroups are added after the group is created.
+   */
+  @NotNull
+  @Override
+  public GroupNameIndex getNameIndex() {
+    GroupNameIndex index = myNameIndex;
+    if (index == null) {
+      index = new GroupNameIndex(this);
+      myNameIndex = index;
+    }
+    return index;
+  }
+
+  @Override
+  public void invalidateNameIndex() {
+    myNameIndex = null;
+  }
 }
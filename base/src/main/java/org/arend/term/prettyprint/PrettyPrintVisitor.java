@@ -40,6 +40,20 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
     this(builder, indent, true);
   }
 
+  /**
+   * Creates a visitor that prints a part of the current node into another builder.
+   */
+  protected PrettyPrintVisitor createVisitor(StringBuilder builder, int indent, boolean doIndent) {
+    return new PrettyPrintVisitor(builder, indent, doIndent);
+  }
+
+  /**
+   * @return the text of a reference to a resolved referable.
+   */
+  protected String getReferentText(Referable referable) {
+    return referable.textRepresentation();
+  }
+
   public static void prettyPrint(StringBuilder builder, Concrete.SourceNode node) {
     if (!new PrettyPrintVisitor(builder, 0).prettyPrint(node, Concrete.Expression.PREC)) {
       builder.append(node);
@@ -143,7 +157,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
     if (parens) {
       myBuilder.append('(');
     }
-    myBuilder.append(expr.getReferent().textRepresentation());
+    myBuilder.append(getReferentText(expr.getReferent()));
 
     if (expr.getPLevel() != null || expr.getHLevel() != null) {
       myBuilder.append(" \\level ");
@@ -521,7 +535,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
         StringBuilder builder = new StringBuilder();
         for (BinOpSequenceElem elem : ops) {
           if (elem.fixity == Fixity.INFIX || elem.fixity == Fixity.POSTFIX && elem.expression instanceof Concrete.ReferenceExpression) {
-            builder.append('`').append(((ReferenceExpression) elem.expression).getReferent().textRepresentation());
+            builder.append('`').append(getReferentText(((ReferenceExpression) elem.expression).getReferent()));
             if (elem.fixity == Fixity.INFIX) {
               builder.append('`');
             }
@@ -530,9 +544,9 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
               builder.append(" {");
             }
             if (elem.expression instanceof Concrete.ReferenceExpression) {
-              builder.append(((ReferenceExpression) elem.expression).getReferent().textRepresentation());
+              builder.append(getReferentText(((ReferenceExpression) elem.expression).getReferent()));
             } else {
-              elem.expression.accept(new PrettyPrintVisitor(builder, myIndent, !noIndent), new Precedence(Expression.PREC));
+              elem.expression.accept(createVisitor(builder, myIndent, !noIndent), new Precedence(Expression.PREC));
             }
             if (!elem.isExplicit) {
               builder.append('}');
@@ -561,7 +575,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
     if (needParens) myBuilder.append('(');
     left.accept(this, infixPrec.associativity != Precedence.Associativity.LEFT_ASSOC ? new Precedence(Precedence.Associativity.NON_ASSOC, infixPrec.priority, infixPrec.isInfix) : infixPrec);
     myBuilder.append(' ');
-    myBuilder.append(infix.getReferent().textRepresentation());
+    myBuilder.append(getReferentText(infix.getReferent()));
     for (Concrete.Argument arg : implicitArgs) {
       myBuilder.append(" {");
       arg.expression.accept(this, new Precedence(Expression.PREC));
@@ -711,7 +725,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
   }
 
   private void visitClassFieldImpl(Concrete.ClassFieldImpl classFieldImpl) {
-    String name = classFieldImpl.getImplementedField() == null ? "_" : classFieldImpl.getImplementedField().textRepresentation();
+    String name = classFieldImpl.getImplementedField() == null ? "_" : getReferentText(classFieldImpl.getImplementedField());
     myBuilder.append(name);
     if (classFieldImpl.implementation == null) {
       myBuilder.append(" {");
@@ -877,7 +891,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
         } else if (element instanceof Concrete.CoClauseFunctionReference) {
           TCReferable ref = ((Concrete.CoClauseFunctionReference) element).getFunctionReference();
           prettyPrintNameWithPrecedence(ref);
-          myBuilder.append(" => ").append(ref.textRepresentation());
+          myBuilder.append(" => ").append(getReferentText(ref));
         }
       }
       myIndent -= INDENT;
@@ -1135,7 +1149,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
       Concrete.ConstructorPattern conPattern = (Concrete.ConstructorPattern) pattern;
       if (!conPattern.getPatterns().isEmpty() && prec > Concrete.Pattern.PREC && pattern.isExplicit()) myBuilder.append('(');
 
-      myBuilder.append(conPattern.getConstructor().textRepresentation());
+      myBuilder.append(getReferentText(conPattern.getConstructor()));
       for (Concrete.Pattern patternArg : conPattern.getPatterns()) {
         myBuilder.append(' ');
         prettyPrintPattern(patternArg, (byte) (Concrete.Pattern.PREC + 1));
@@ -1236,7 +1250,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
           Concrete.OverriddenField field = (Concrete.OverriddenField) element;
           myBuilder
             .append("\\override ")
-            .append(field.getOverriddenField().textRepresentation());
+            .append(getReferentText(field.getOverriddenField()));
           if (!field.getParameters().isEmpty()) {
             myBuilder.append(" ");
             prettyPrintParameters(field.getParameters(), Concrete.ReferenceExpression.PREC);
@@ -1308,7 +1322,7 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
       boolean splitMultiLineArgs;
       for (E e : l) {
         StringBuilder sb = new StringBuilder();
-        PrettyPrintVisitor ppv = new PrettyPrintVisitor(sb, 0, !pp.noIndent);
+        PrettyPrintVisitor ppv = pp.createVisitor(sb, 0, !pp.noIndent);
         printListElement(ppv, e);
 
         String[] strs = sb.toString().split("[\\r\\n]+");
@@ -1394,8 +1408,8 @@ public class PrettyPrintVisitor implements ConcreteExpressionVisitor<Precedence,
 
       StringBuilder lhs = new StringBuilder();
       StringBuilder rhs = new StringBuilder();
-      PrettyPrintVisitor ppv_left = new PrettyPrintVisitor(lhs, 0, !ppv_default.noIndent);
-      PrettyPrintVisitor ppv_right = new PrettyPrintVisitor(rhs, 0, !ppv_default.noIndent);
+      PrettyPrintVisitor ppv_left = ppv_default.createVisitor(lhs, 0, !ppv_default.noIndent);
+      PrettyPrintVisitor ppv_right = ppv_default.createVisitor(rhs, 0, !ppv_default.noIndent);
 
       //TODO: I don't like this implementation for it works quadratically wrt to the total number of binary operations
       printLeft(ppv_left);
@@ -0,0 +1,41 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.naming.reference.GlobalReferable;
+import org.arend.naming.reference.TCReferable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A typechecker state that can be shared between threads typechecking independent definitions.
+ */
+public class ConcurrentTypecheckerState implements TypecheckerState {
+  private final Map<GlobalReferable, Definition> myTypechecked = new ConcurrentHashMap<>();
+
+  @Override
+  public Definition record(TCReferable def, Definition res) {
+    return myTypechecked.putIfAbsent(def, res);
+  }
+
+  @Override
+  public void rewrite(TCReferable def, Definition res) {
+    myTypechecked.put(def, res);
+  }
+
+  @Override
+  public Definition getTypechecked(TCReferable def) {
+    assert def != null;
+    return myTypechecked.get(def);
+  }
+
+  @Override
+  public Definition reset(TCReferable def) {
+    return myTypechecked.remove(def);
+  }
+
+  @Override
+  public void reset() {
+    myTypechecked.clear();
+  }
+}
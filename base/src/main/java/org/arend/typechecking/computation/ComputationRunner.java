@@ -5,18 +5,18 @@ import org.arend.util.ComputationInterruptedException;
 import java.util.function.Supplier;
 
 public class ComputationRunner<T> {
-  private static CancellationIndicator CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
+  private static final ThreadLocal<CancellationIndicator> CANCELLATION_INDICATOR = ThreadLocal.withInitial(() -> ThreadCancellationIndicator.INSTANCE);
 
   public static void checkCanceled() throws ComputationInterruptedException {
-    CANCELLATION_INDICATOR.checkCanceled();
+    CANCELLATION_INDICATOR.get().checkCanceled();
   }
 
   public static CancellationIndicator getCancellationIndicator() {
-    return CANCELLATION_INDICATOR;
+    return CANCELLATION_INDICATOR.get();
   }
 
   public static void resetCancellationIndicator() {
-    CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
+    CANCELLATION_INDICATOR.remove();
   }
 
   protected T computationInterrupted() {
@@ -25,18 +25,27 @@ public class ComputationRunner<T> {
 
   public T run(CancellationIndicator cancellationIndicator, Supplier<T> runnable) {
     synchronized (ComputationRunner.class) {
-      if (cancellationIndicator != null) {
-        CANCELLATION_INDICATOR = cancellationIndicator;
-      }
+      return runInCurrentThread(cancellationIndicator, runnable);
+    }
+  }
 
-      try {
-        return runnable.get();
-      } catch (ComputationInterruptedException ignored) {
-        return computationInterrupted();
-      } finally {
-        if (cancellationIndicator != null) {
-          CANCELLATION_INDICATOR = ThreadCancellationIndicator.INSTANCE;
-        }
+  /**
+   * Runs a computation without taking the global lock.
+   * The cancellation indicator is installed only for the current thread.
+   */
+  public T runInCurrentThread(CancellationIndicator cancellationIndicator, Supplier<T> runnable) {
+    CancellationIndicator prevIndicator = CANCELLATION_INDICATOR.get();
+    if (cancellationIndicator != null) {
+      CANCELLATION_INDICATOR.set(cancellationIndicator);
+    }
+
+    try {
+      return runnable.get();
+    } catch (ComputationInterruptedException ignored) {
+      return computationInterrupted();
+    } finally {
+      if (cancellationIndicator != null) {
+        CANCELLATION_INDICATOR.set(prevIndicator);
       }
     }
   }
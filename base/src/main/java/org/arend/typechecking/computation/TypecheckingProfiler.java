@@ -0,0 +1,251 @@
+package org.arend.typechecking.computation;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.naming.reference.TCReferable;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects per-definition typechecking times.
+ * Typechecking of definitions is reported by {@link #typecheckingStarted} and {@link #typecheckingFinished},
+ * which are invoked from the hooks of {@link org.arend.typechecking.order.listener.TypecheckingOrderingListener}.
+ * Time spent in specific phases is measured with {@link #start} and {@link #stop} and attributed to the definition
+ * that is typechecked on the current thread.
+ */
+public class TypecheckingProfiler {
+  public enum Category {
+    HEADER("header"), BODY("body"), LEVELS("levels"), NORMALIZATION("normalization"), INSTANCES("instances");
+
+    public final String name;
+
+    Category(String name) {
+      this.name = name;
+    }
+  }
+
+  private static final Category[] CATEGORIES = Category.values();
+  private static final long NOT_MEASURED = Long.MIN_VALUE;
+  private static final long NESTED = Long.MIN_VALUE + 1;
+
+  private static volatile TypecheckingProfiler ourProfiler;
+  private static final ThreadLocal<Frame> ourFrame = ThreadLocal.withInitial(Frame::new);
+
+  private final Map<TCReferable, Times> myTimes = new ConcurrentHashMap<>();
+
+  public static class Times {
+    public final TCReferable referable;
+    private final long[] myNanos = new long[CATEGORIES.length];
+
+    private Times(TCReferable referable) {
+      this.referable = referable;
+    }
+
+    private synchronized void add(Category category, long nanos) {
+      myNanos[category.ordinal()] += nanos;
+    }
+
+    public synchronized long getNanos(Category category) {
+      return myNanos[category.ordinal()];
+    }
+
+    /**
+     * @return the time spent on the header and the body; other categories are included in it.
+     */
+    public synchronized long getTotalNanos() {
+      return myNanos[Category.HEADER.ordinal()] + myNanos[Category.BODY.ordinal()];
+    }
+
+    public String getName() {
+      ModulePath module = referable.getLocation();
+      String name = referable.getRefLongName().toString();
+      return module == null ? name : module + ":" + name;
+    }
+  }
+
+  private static class Frame {
+    Times current;
+    Category currentCategory;
+    long currentStart;
+    final int[] depth = new int[CATEGORIES.length];
+  }
+
+  /**
+   * Sets the profiler that collects times.
+   * Profiling is disabled if it is null.
+   */
+  public static void setProfiler(@Nullable TypecheckingProfiler profiler) {
+    ourProfiler = profiler;
+  }
+
+  public static @Nullable TypecheckingProfiler getProfiler() {
+    return ourProfiler;
+  }
+
+  /**
+   * Starts measuring a phase.
+   * Nested phases of the same category are not measured separately.
+   *
+   * @return a value that should be passed to {@link #stop}.
+   */
+  public static long start(Category category) {
+    if (ourProfiler == null) {
+      return NOT_MEASURED;
+    }
+    Frame frame = ourFrame.get();
+    if (frame.current == null) {
+      return NOT_MEASURED;
+    }
+    return frame.depth[category.ordinal()]++ == 0 ? System.nanoTime() : NESTED;
+  }
+
+  public static void stop(Category category, long startTime) {
+    if (startTime == NOT_MEASURED) {
+      return;
+    }
+    Frame frame = ourFrame.get();
+    int index = category.ordinal();
+    if (frame.depth[index] > 0 && --frame.depth[index] == 0 && startTime != NESTED && frame.current != null) {
+      frame.current.add(category, System.nanoTime() - startTime);
+    }
+  }
+
+  /**
+   * Starts typechecking of the header or the body of a definition on the current thread.
+   * If another definition is typechecked on this thread, it is finished first,
+   * so the time of the common part of a mutually recursive group is attributed to the last body.
+   */
+  public void typecheckingStarted(TCReferable referable, Category category) {
+    Frame frame = ourFrame.get();
+    finish(frame);
+    frame.current = myTimes.computeIfAbsent(referable, Times::new);
+    frame.currentCategory = category;
+    frame.currentStart = System.nanoTime();
+  }
+
+  /**
+   * Attributes the rest of typechecking of the current definition on this thread to the given category.
+   * Definitions that are not recursive are typechecked as a single unit that starts in {@link Category#HEADER},
+   * and the typechecker switches to {@link Category#BODY} when the header is finished.
+   */
+  public static void switchCategory(Category category) {
+    if (ourProfiler == null) {
+      return;
+    }
+    Frame frame = ourFrame.get();
+    if (frame.current != null && frame.currentCategory != category) {
+      long time = System.nanoTime();
+      frame.current.add(frame.currentCategory, time - frame.currentStart);
+      frame.currentCategory = category;
+      frame.currentStart = time;
+    }
+  }
+
+  public void typecheckingFinished(TCReferable referable) {
+    Frame frame = ourFrame.get();
+    if (frame.current != null && frame.current.referable == referable) {
+      finish(frame);
+    }
+  }
+
+  private static void finish(Frame frame) {
+    if (frame.current != null) {
+      frame.current.add(frame.currentCategory, System.nanoTime() - frame.currentStart);
+      frame.current = null;
+      Arrays.fill(frame.depth, 0);
+    }
+  }
+
+  /**
+   * @return collected times sorted by the total time in the descending order.
+   */
+  public List<Times> getTimes() {
+    List<Times> result = new ArrayList<>(myTimes.values());
+    result.sort(Comparator.comparingLong(Times::getTotalNanos).reversed());
+    return result;
+  }
+
+  public void clear() {
+    myTimes.clear();
+  }
+
+  private static String toMillis(long nanos) {
+    return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+  }
+
+  /**
+   * Prints the slowest definitions.
+   */
+  public void printReport(PrintStream stream, int limit) {
+    List<Times> times = getTimes();
+    stream.printf(Locale.ROOT, "%12s", "total (ms)");
+    for (Category category : CATEGORIES) {
+      stream.printf(Locale.ROOT, " %14s", category.name);
+    }
+    stream.println("  definition");
+    for (Times time : times.subList(0, Math.min(limit, times.size()))) {
+      stream.printf(Locale.ROOT, "%12s", toMillis(time.getTotalNanos()));
+      for (Category category : CATEGORIES) {
+        stream.printf(Locale.ROOT, " %14s", toMillis(time.getNanos(category)));
+      }
+      stream.println("  " + time.getName());
+    }
+  }
+
+  private static String quoteCsv(String str) {
+    return str.indexOf(',') >= 0 || str.indexOf('"') >= 0 ? "\"" + str.replace("\"", "\"\"") + "\"" : str;
+  }
+
+  /**
+   * Writes times in milliseconds as CSV.
+   */
+  public void writeCsv(PrintWriter writer) {
+    writer.print("definition,total");
+    for (Category category : CATEGORIES) {
+      writer.print("," + category.name);
+    }
+    writer.println();
+    for (Times time : getTimes()) {
+      writer.print(quoteCsv(time.getName()) + "," + toMillis(time.getTotalNanos()));
+      for (Category category : CATEGORIES) {
+        writer.print("," + toMillis(time.getNanos(category)));
+      }
+      writer.println();
+    }
+  }
+
+  private static String quoteJson(String str) {
+    StringBuilder builder = new StringBuilder("\"");
+    for (int i = 0; i < str.length(); i++) {
+      char c = str.charAt(i);
+      if (c == '"' || c == '\\') {
+        builder.append('\\').append(c);
+      } else if (c < 0x20) {
+        builder.append(String.format("\\u%04x", (int) c));
+      } else {
+        builder.append(c);
+      }
+    }
+    return builder.append('"').toString();
+  }
+
+  /**
+   * Writes times in milliseconds as a JSON array.
+   */
+  public void writeJson(PrintWriter writer) {
+    writer.println("[");
+    List<Times> times = getTimes();
+    for (int i = 0; i < times.size(); i++) {
+      Times time = times.get(i);
+      writer.print("  {\"definition\": " + quoteJson(time.getName()) + ", \"total\": " + toMillis(time.getTotalNanos()));
+      for (Category category : CATEGORIES) {
+        writer.print(", \"" + category.name + "\": " + toMillis(time.getNanos(category)));
+      }
+      writer.println(i + 1 < times.size() ? "}," : "}");
+    }
+    writer.println("]");
+  }
+}
@@ -1,6 +1,7 @@
 package org.arend.typechecking.doubleChecker;
 
 import org.arend.core.definition.Definition;
+import org.arend.error.ListErrorReporter;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.naming.reference.LocatedReferable;
 import org.arend.naming.reference.TCReferable;
@@ -8,7 +9,15 @@ import org.arend.term.group.Group;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.typechecking.error.local.LocalErrorReporter;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class CoreModuleChecker {
+  private static final long THREAD_STACK_SIZE = 16L * 1024 * 1024;
+
   private final ErrorReporter myErrorReporter;
   private final TypecheckerState myState;
   private final CoreDefinitionChecker myChecker;
@@ -43,4 +52,94 @@ public class CoreModuleChecker {
 
     return ok;
   }
+
+  private static class Task {
+    final TCReferable referable;
+    final Definition definition;
+    final ListErrorReporter errorReporter = new ListErrorReporter();
+
+    Task(TCReferable referable, Definition definition) {
+      this.referable = referable;
+      this.definition = definition;
+    }
+  }
+
+  private void collectTasks(Group group, List<Task> tasks) {
+    LocatedReferable ref = group.getReferable();
+    Definition def = ref instanceof TCReferable ? myState.getTypechecked((TCReferable) ref) : null;
+    if (def != null) {
+      tasks.add(new Task((TCReferable) ref, def));
+    }
+    for (Group subgroup : group.getSubgroups()) {
+      collectTasks(subgroup, tasks);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      collectTasks(subgroup, tasks);
+    }
+  }
+
+  /**
+   * Checks definitions of given groups on a thread pool.
+   * Definitions are checked independently since the checker does not modify core terms.
+   * Errors are reported in the same order as by {@link #checkGroup}.
+   *
+   * @param threads the number of threads; groups are checked sequentially if it is less than 2.
+   */
+  public boolean checkGroups(Collection<? extends Group> groups, int threads) {
+    if (threads < 2) {
+      boolean ok = true;
+      for (Group group : groups) {
+        if (!checkGroup(group)) {
+          ok = false;
+        }
+      }
+      return ok;
+    }
+
+    List<Task> tasks = new ArrayList<>();
+    for (Group group : groups) {
+      collectTasks(group, tasks);
+    }
+
+    AtomicInteger threadCounter = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+      Thread thread = new Thread(null, runnable, "arend-double-checking-" + threadCounter.incrementAndGet(), THREAD_STACK_SIZE);
+      thread.setDaemon(true);
+      return thread;
+    });
+    // Checkers keep local state, so every thread gets its own one
+    ThreadLocal<CoreDefinitionChecker> checkers = ThreadLocal.withInitial(() -> new CoreDefinitionChecker(myErrorReporter));
+
+    boolean ok = true;
+    try {
+      List<Future<Boolean>> futures = new ArrayList<>(tasks.size());
+      for (Task task : tasks) {
+        futures.add(executor.submit(() -> {
+          CoreDefinitionChecker checker = checkers.get();
+          checker.setErrorReporter(new LocalErrorReporter(task.referable, task.errorReporter));
+          return checker.check(task.definition);
+        }));
+      }
+
+      for (int i = 0; i < tasks.size(); i++) {
+        if (!futures.get(i).get()) {
+          ok = false;
+        }
+        tasks.get(i).errorReporter.reportTo(myErrorReporter);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException(cause);
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return ok;
+  }
 }
@@ -40,7 +40,26 @@ public class LevelEquations<Var> {
     return myVariables.isEmpty() && myEquations.isEmpty();
   }
 
+  /**
+   * Solves equations.
+   *
+   * @param solution  a map in which the solution will be stored.
+   * @return null if the equations were solved; otherwise, a path of equations that cannot be satisfied.
+   */
   public List<LevelEquation<Var>> solve(Map<Var, Integer> solution) {
+    LevelEquationsSolver<Var> solver = new LevelEquationsSolver<>(myVariables, myEquations);
+    if (solver.solve()) {
+      solver.getSolution(solution);
+      return null;
+    }
+    return solveWithPaths(solution);
+  }
+
+  /**
+   * Solves equations by relaxing all of them until nothing changes and records the path that leads to each value.
+   * It is slower than {@link LevelEquationsSolver}, but it finds the path that is reported when equations cannot be solved.
+   */
+  List<LevelEquation<Var>> solveWithPaths(Map<Var, Integer> solution) {
     Map<Var, List<LevelEquation<Var>>> paths = new HashMap<>();
 
     solution.put(null, 0);
@@ -0,0 +1,269 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Solves level equations on variables numbered by integers.
+ * The variable with index 0 is the constant level {@code null}.
+ * Infinite variables are found first; other variables are relaxed component by component
+ * in the topological order of strongly connected components, so acyclic parts of the graph are processed in a single pass.
+ * The solver does not record paths; it gives up if a component does not stabilize or the constant level must be decreased,
+ * in which case {@link LevelEquations} reconstructs the error by the relaxation that records paths.
+ */
+class LevelEquationsSolver<Var> {
+  private final List<Var> myVariables;
+  private final List<LevelEquation<Var>> myEquations;
+  private final Map<Var, Integer> myIndices = new HashMap<>();
+  private int myNumberOfVariables;
+
+  private int[] myEdgeStart;
+  private int[] myEdgeTarget;
+  private int[] myEdgeConstant;
+  private int[] myEdgeMaxConstant;
+  private boolean[] myEdgeHasMaxConstant;
+
+  private int[] myValues;
+  private boolean[] myInfinity;
+
+  LevelEquationsSolver(List<Var> variables, List<LevelEquation<Var>> equations) {
+    myVariables = variables;
+    myEquations = equations;
+  }
+
+  /**
+   * @return true if the equations were solved, false if the solver cannot find a solution without recording paths.
+   */
+  boolean solve() {
+    myIndices.put(null, 0);
+    for (Var var : myVariables) {
+      if (!myIndices.containsKey(var)) {
+        myIndices.put(var, myIndices.size());
+      }
+    }
+    myNumberOfVariables = myIndices.size();
+    myValues = new int[myNumberOfVariables];
+    myInfinity = new boolean[myNumberOfVariables];
+    return buildEdges() && propagateInfinity() && relax();
+  }
+
+  private boolean buildEdges() {
+    int n = myNumberOfVariables;
+    int numberOfEdges = 0;
+    for (LevelEquation<Var> equation : myEquations) {
+      if (equation.isInfinity()) {
+        if (!myIndices.containsKey(equation.getVariable())) {
+          return false;
+        }
+      } else {
+        if (!myIndices.containsKey(equation.getVariable1()) || !myIndices.containsKey(equation.getVariable2())) {
+          return false;
+        }
+        numberOfEdges++;
+      }
+    }
+
+    int[] sources = new int[numberOfEdges];
+    myEdgeStart = new int[n + 1];
+    int i = 0;
+    for (LevelEquation<Var> equation : myEquations) {
+      if (!equation.isInfinity()) {
+        sources[i] = myIndices.get(equation.getVariable1());
+        myEdgeStart[sources[i] + 1]++;
+        i++;
+      }
+    }
+    for (int v = 0; v < n; v++) {
+      myEdgeStart[v + 1] += myEdgeStart[v];
+    }
+
+    myEdgeTarget = new int[numberOfEdges];
+    myEdgeConstant = new int[numberOfEdges];
+    myEdgeMaxConstant = new int[numberOfEdges];
+    myEdgeHasMaxConstant = new boolean[numberOfEdges];
+    int[] next = new int[n];
+    System.arraycopy(myEdgeStart, 0, next, 0, n);
+    i = 0;
+    for (LevelEquation<Var> equation : myEquations) {
+      if (equation.isInfinity()) {
+        continue;
+      }
+      int edge = next[sources[i++]]++;
+      myEdgeTarget[edge] = myIndices.get(equation.getVariable2());
+      myEdgeConstant[edge] = equation.getConstant();
+      Integer maxConstant = equation.getMaxConstant();
+      if (maxConstant != null) {
+        myEdgeHasMaxConstant[edge] = true;
+        myEdgeMaxConstant[edge] = maxConstant;
+      }
+    }
+    return true;
+  }
+
+  private boolean propagateInfinity() {
+    int[] stack = new int[myNumberOfVariables];
+    int size = 0;
+    for (LevelEquation<Var> equation : myEquations) {
+      if (equation.isInfinity()) {
+        int v = myIndices.get(equation.getVariable());
+        if (!myInfinity[v]) {
+          myInfinity[v] = true;
+          stack[size++] = v;
+        }
+      }
+    }
+
+    while (size > 0) {
+      int u = stack[--size];
+      for (int edge = myEdgeStart[u]; edge < myEdgeStart[u + 1]; edge++) {
+        int v = myEdgeTarget[edge];
+        if (!myInfinity[v]) {
+          myInfinity[v] = true;
+          stack[size++] = v;
+        }
+      }
+    }
+
+    // Whether the constant level is updated before it becomes infinite depends on the order of equations
+    return !myInfinity[0];
+  }
+
+  private boolean relax() {
+    int n = myNumberOfVariables;
+    int[] component = new int[n];
+    int[] components = new int[n];
+    int[] componentStart = new int[n + 1];
+    int numberOfComponents = findComponents(component, components, componentStart);
+
+    int[] counts = new int[n];
+    boolean[] queued = new boolean[n];
+    int[] queue = new int[n];
+    // Components are found in the reverse topological order
+    for (int c = numberOfComponents - 1; c >= 0; c--) {
+      int componentSize = componentStart[c + 1] - componentStart[c];
+      int head = 0, tail = 0, queueSize = 0;
+      for (int k = componentStart[c]; k < componentStart[c + 1]; k++) {
+        queue[tail] = components[k];
+        tail = (tail + 1) % n;
+        queueSize++;
+        queued[components[k]] = true;
+      }
+
+      while (queueSize > 0) {
+        int u = queue[head];
+        head = (head + 1) % n;
+        queueSize--;
+        queued[u] = false;
+
+        int a = myValues[u];
+        for (int edge = myEdgeStart[u]; edge < myEdgeStart[u + 1]; edge++) {
+          int v = myEdgeTarget[edge];
+          if (myInfinity[v] || myEdgeHasMaxConstant[edge] && a + myEdgeMaxConstant[edge] >= 0 || myValues[v] <= a + myEdgeConstant[edge]) {
+            continue;
+          }
+          if (v == 0) {
+            return false;
+          }
+
+          myValues[v] = a + myEdgeConstant[edge];
+          if (component[v] == c && !queued[v]) {
+            // Without negative cycles, a variable is enqueued at most once per round and there are fewer rounds than variables
+            if (++counts[v] > componentSize) {
+              return false;
+            }
+            queued[v] = true;
+            queue[tail] = v;
+            tail = (tail + 1) % n;
+            queueSize++;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds strongly connected components of finite variables by Tarjan's algorithm.
+   *
+   * @return the number of components; they are stored in {@code components} in the reverse topological order.
+   */
+  private int findComponents(int[] component, int[] components, int[] componentStart) {
+    int n = myNumberOfVariables;
+    int[] index = new int[n];
+    int[] lowLink = new int[n];
+    boolean[] onStack = new boolean[n];
+    int[] stack = new int[n];
+    int[] callStack = new int[n];
+    int[] nextEdge = new int[n];
+    int stackSize = 0;
+    int counter = 0;
+    int numberOfComponents = 0;
+    int numberOfVisited = 0;
+
+    for (int root = 0; root < n; root++) {
+      if (myInfinity[root] || index[root] != 0) {
+        continue;
+      }
+
+      int callStackSize = 0;
+      callStack[callStackSize++] = root;
+      index[root] = lowLink[root] = ++counter;
+      nextEdge[root] = myEdgeStart[root];
+      stack[stackSize++] = root;
+      onStack[root] = true;
+
+      while (callStackSize > 0) {
+        int u = callStack[callStackSize - 1];
+        if (nextEdge[u] < myEdgeStart[u + 1]) {
+          int v = myEdgeTarget[nextEdge[u]++];
+          if (myInfinity[v]) {
+            continue;
+          }
+          if (index[v] == 0) {
+            index[v] = lowLink[v] = ++counter;
+            nextEdge[v] = myEdgeStart[v];
+            stack[stackSize++] = v;
+            onStack[v] = true;
+            callStack[callStackSize++] = v;
+          } else if (onStack[v]) {
+            lowLink[u] = Math.min(lowLink[u], index[v]);
+          }
+          continue;
+        }
+
+        callStackSize--;
+        if (callStackSize > 0) {
+          int parent = callStack[callStackSize - 1];
+          lowLink[parent] = Math.min(lowLink[parent], lowLink[u]);
+        }
+        if (lowLink[u] == index[u]) {
+          componentStart[numberOfComponents] = numberOfVisited;
+          int v;
+          do {
+            v = stack[--stackSize];
+            onStack[v] = false;
+            component[v] = numberOfComponents;
+            components[numberOfVisited++] = v;
+          } while (v != u);
+          numberOfComponents++;
+        }
+      }
+    }
+
+    componentStart[numberOfComponents] = numberOfVisited;
+    return numberOfComponents;
+  }
+
+  /**
+   * Stores the solution; it must be invoked only if {@link #solve} returned true.
+   */
+  void getSolution(Map<Var, Integer> solution) {
+    for (Var var : myVariables) {
+      if (var != null) {
+        int v = myIndices.get(var);
+        solution.put(var, myInfinity[v] ? LevelEquations.INFINITY : myValues[v]);
+      }
+    }
+  }
+}
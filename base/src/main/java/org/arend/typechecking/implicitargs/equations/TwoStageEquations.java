@@ -22,6 +22,7 @@ import org.arend.ext.core.ops.CMP;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.ext.error.LocalError;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.computation.TypecheckingProfiler;
 import org.arend.typechecking.error.local.ConstantSolveLevelEquationError;
 import org.arend.typechecking.error.local.SolveEquationError;
 import org.arend.typechecking.error.local.SolveEquationsError;
@@ -591,6 +592,15 @@ public class TwoStageEquations implements Equations {
 
   @Override
   public LevelSubstitution solveLevels(Concrete.SourceNode sourceNode) {
+    long time = TypecheckingProfiler.start(TypecheckingProfiler.Category.LEVELS);
+    try {
+      return doSolveLevels(sourceNode);
+    } finally {
+      TypecheckingProfiler.stop(TypecheckingProfiler.Category.LEVELS, time);
+    }
+  }
+
+  private LevelSubstitution doSolveLevels(Concrete.SourceNode sourceNode) {
     SimpleLevelSubstitution result = new SimpleLevelSubstitution();
     solveLevelEquations(result);
 
@@ -744,7 +754,7 @@ public class TwoStageEquations implements Equations {
       if (cmp == CMP.LE) {
         Equations wrapper = new LevelEquationsWrapper(this);
         Sort sortArg = Sort.generateInferVars(this, universeKind, pair.proj1.getSourceNode());
-        Map<ClassField, Expression> implementations = new HashMap<>();
+        Map<ClassField, Expression> implementations = new ImplementationMap(classDef);
         solution = new ClassCallExpression(classDef, sortArg, implementations, classDef.getSort(), universeKind);
         ReferenceExpression thisExpr = new ReferenceExpression(solution.getThisBinding());
         boolean first = true;
@@ -906,7 +916,7 @@ public class TwoStageEquations implements Equations {
       Sort newSort = classDef.computeSort(sortArgument, implementations, solution.getThisBinding());
       if (!newSort.equals(sol.getSort())) {
         sol = new ClassCallExpression(classDef, sortArgument, implementations, newSort, classDef.getUniverseKind());
-        for (Map.Entry<ClassField, Expression> entry : implementations.entrySet()) {
+        for (Map.Entry<ClassField, Expression> entry : sol.getImplementedHere().entrySet()) {
           entry.setValue(entry.getValue().subst(solution.getThisBinding(), new ReferenceExpression(sol.getThisBinding())));
         }
       }
@@ -11,13 +11,13 @@ import org.arend.core.subst.ExprSubstitution;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.naming.reference.TCClassReferable;
 import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.computation.TypecheckingProfiler;
 import org.arend.typechecking.instance.provider.InstanceProvider;
 import org.arend.typechecking.result.TypecheckingResult;
 import org.arend.typechecking.visitor.CheckTypeVisitor;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.function.Predicate;
 
 public class GlobalInstancePool implements InstancePool {
   private final InstanceProvider myInstanceProvider;
@@ -54,6 +54,15 @@ public class GlobalInstancePool implements InstancePool {
 
   @Override
   public Expression getInstance(Expression classifyingExpression, Expression expectedType, TCClassReferable classRef, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression) {
+    long time = TypecheckingProfiler.start(TypecheckingProfiler.Category.INSTANCES);
+    try {
+      return findInstance(classifyingExpression, expectedType, classRef, sourceNode, recursiveHoleExpression);
+    } finally {
+      TypecheckingProfiler.stop(TypecheckingProfiler.Category.INSTANCES, time);
+    }
+  }
+
+  private Expression findInstance(Expression classifyingExpression, Expression expectedType, TCClassReferable classRef, Concrete.SourceNode sourceNode, RecursiveInstanceHoleExpression recursiveHoleExpression) {
     if (myInstancePool != null) {
       Expression result = myInstancePool.getInstance(classifyingExpression, expectedType, classRef, sourceNode, recursiveHoleExpression);
       if (result != null) {
@@ -89,13 +98,16 @@ public class GlobalInstancePool implements InstancePool {
     }
 
     Expression finalClassifyingExpression = normClassifyingExpression;
-    class MyPredicate implements Predicate<Concrete.FunctionDefinition> {
+    class MyPredicate implements InstanceProvider.HeadPredicate {
       private FunctionDefinition instanceDef = null;
+      private boolean rejectionsAreFinal = true;
 
       @Override
       public boolean test(Concrete.FunctionDefinition instance) {
         instanceDef = (FunctionDefinition) myCheckTypeVisitor.getTypecheckingState().getTypechecked(instance.getData());
         if (instanceDef == null || !instanceDef.status().headerIsOK() || !(instanceDef.getResultType() instanceof ClassCallExpression)) {
+          // The instance may match after it is typechecked
+          rejectionsAreFinal = false;
           return false;
         }
 
@@ -117,10 +129,15 @@ public class GlobalInstancePool implements InstancePool {
             finalClassifyingExpression instanceof ConCallExpression && ((IntegerExpression) instanceClassifyingExpr).match(((ConCallExpression) finalClassifyingExpression).getDefinition())) ||
           instanceClassifyingExpr instanceof DefCallExpression && finalClassifyingExpression instanceof DefCallExpression && ((DefCallExpression) instanceClassifyingExpr).getDefinition() == ((DefCallExpression) finalClassifyingExpression).getDefinition();
       }
+
+      @Override
+      public boolean rejectionsAreFinal() {
+        return rejectionsAreFinal;
+      }
     }
 
     MyPredicate predicate = new MyPredicate();
-    Concrete.FunctionDefinition instance = myInstanceProvider.findInstance(classRef, predicate);
+    Concrete.FunctionDefinition instance = myInstanceProvider.findInstance(classRef, getClassifyingHead(finalClassifyingExpression), predicate);
     if (instance == null || predicate.instanceDef == null) {
       return null;
     }
@@ -147,6 +164,10 @@ public class GlobalInstancePool implements InstancePool {
     return result == null ? new ErrorExpression() : result.expression;
   }
 
+  private static Definition getClassifyingHead(Expression classifyingExpression) {
+    return classifyingExpression instanceof DefCallExpression ? ((DefCallExpression) classifyingExpression).getDefinition() : null;
+  }
+
   @Override
   public GlobalInstancePool subst(ExprSubstitution substitution) {
     return myInstancePool != null ? new GlobalInstancePool(myInstanceProvider, myCheckTypeVisitor, myInstancePool.subst(substitution)) : this;
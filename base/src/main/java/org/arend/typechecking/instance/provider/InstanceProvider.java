@@ -1,10 +1,33 @@
 package org.arend.typechecking.instance.provider;
 
+import org.arend.core.definition.Definition;
 import org.arend.naming.reference.ClassReferable;
 import org.arend.term.concrete.Concrete;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.function.Predicate;
 
 public interface InstanceProvider {
   Concrete.FunctionDefinition findInstance(ClassReferable classRef, Predicate<Concrete.FunctionDefinition> pred);
+
+  /**
+   * A predicate that accepts only instances matching the head of a classifying expression.
+   */
+  interface HeadPredicate extends Predicate<Concrete.FunctionDefinition> {
+    /**
+     * @return true if every instance rejected by this predicate so far will be rejected for the same class and head later.
+     */
+    boolean rejectionsAreFinal();
+  }
+
+  /**
+   * Finds the first instance accepted by {@code pred} for a classifying expression with a given head.
+   * Implementations may remember the instance found for a pair of a class and a head
+   * if all instances declared before it were rejected finally.
+   *
+   * @param classifyingHead  the definition of the classifying expression if it is a defcall, null otherwise.
+   */
+  default Concrete.FunctionDefinition findInstance(ClassReferable classRef, @Nullable Definition classifyingHead, HeadPredicate pred) {
+    return findInstance(classRef, pred);
+  }
 }
@@ -1,35 +1,128 @@
 package org.arend.typechecking.instance.provider;
 
+import org.arend.core.definition.Definition;
 import org.arend.naming.reference.ClassReferable;
 import org.arend.naming.reference.Referable;
 import org.arend.term.concrete.Concrete;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Predicate;
 
+/**
+ * An instance provider that indexes its instances by classes.
+ * A provider created from another one shares instances of the latter instead of copying them.
+ * Instances of a class are computed once per class, and the first instance found for a class and the definition
+ * of a classifying expression is cached if instances declared before it cannot match later.
+ * Instances can be added while other threads look for instances.
+ */
 public class SimpleInstanceProvider implements InstanceProvider {
-  private List<Concrete.FunctionDefinition> myInstances;
+  private final SimpleInstanceProvider myParent;
+  private final int myParentSize;
+  private final List<Concrete.FunctionDefinition> myInstances = new CopyOnWriteArrayList<>();
+  private final Map<ClassReferable, List<Candidate>> myClassIndex = new ConcurrentHashMap<>();
+  private final Map<ClassReferable, Map<Definition, Candidate>> myResolutions = new ConcurrentHashMap<>();
+
+  private static class Candidate {
+    final int position;
+    final Concrete.FunctionDefinition instance;
+
+    Candidate(int position, Concrete.FunctionDefinition instance) {
+      this.position = position;
+      this.instance = instance;
+    }
+  }
 
   public SimpleInstanceProvider() {
-    myInstances = new ArrayList<>();
+    myParent = null;
+    myParentSize = 0;
   }
 
+  /**
+   * Creates a provider that contains instances of {@code another} followed by instances added to the new provider.
+   * Instances added to {@code another} later are not visible in the new provider.
+   */
   public SimpleInstanceProvider(SimpleInstanceProvider another) {
-    myInstances = new ArrayList<>(another.myInstances);
+    myParent = another;
+    myParentSize = another.size();
   }
 
-  public void put(Concrete.FunctionDefinition instance) {
+  private int size() {
+    return myParentSize + myInstances.size();
+  }
+
+  public synchronized void put(Concrete.FunctionDefinition instance) {
     myInstances.add(instance);
+    myClassIndex.clear();
+    myResolutions.clear();
   }
 
-  @Override
-  public Concrete.FunctionDefinition findInstance(ClassReferable classRef, Predicate<Concrete.FunctionDefinition> pred) {
-    for (Concrete.FunctionDefinition instance : myInstances) {
+  private List<Candidate> getCandidates(ClassReferable classRef) {
+    List<Candidate> candidates = myClassIndex.get(classRef);
+    return candidates != null ? candidates : computeCandidates(classRef);
+  }
+
+  // Synchronized with put, so that an index computed from old instances is not stored after they are changed
+  private synchronized List<Candidate> computeCandidates(ClassReferable classRef) {
+    List<Candidate> candidates = myClassIndex.get(classRef);
+    if (candidates != null) {
+      return candidates;
+    }
+
+    candidates = new ArrayList<>();
+    if (myParent != null) {
+      for (Candidate candidate : myParent.getCandidates(classRef)) {
+        if (candidate.position >= myParentSize) {
+          break;
+        }
+        candidates.add(candidate);
+      }
+    }
+    for (int i = 0; i < myInstances.size(); i++) {
+      Concrete.FunctionDefinition instance = myInstances.get(i);
       Concrete.Expression type = instance.getResultType();
       Referable ref = type == null ? null : type.getUnderlyingReferable();
-      if (ref instanceof ClassReferable && ((ClassReferable) ref).isSubClassOf(classRef) && pred.test(instance)) {
-        return instance;
+      if (ref instanceof ClassReferable && ((ClassReferable) ref).isSubClassOf(classRef)) {
+        candidates.add(new Candidate(myParentSize + i, instance));
+      }
+    }
+
+    myClassIndex.put(classRef, candidates);
+    return candidates;
+  }
+
+  @Override
+  public Concrete.FunctionDefinition findInstance(ClassReferable classRef, Predicate<Concrete.FunctionDefinition> pred) {
+    for (Candidate candidate : getCandidates(classRef)) {
+      if (pred.test(candidate.instance)) {
+        return candidate.instance;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public Concrete.FunctionDefinition findInstance(ClassReferable classRef, @Nullable Definition classifyingHead, HeadPredicate pred) {
+    if (classifyingHead == null) {
+      return findInstance(classRef, pred);
+    }
+
+    Map<Definition, Candidate> resolutions = myResolutions.computeIfAbsent(classRef, k -> new ConcurrentHashMap<>());
+    Candidate cached = resolutions.get(classifyingHead);
+    if (cached != null && pred.test(cached.instance)) {
+      return cached.instance;
+    }
+
+    for (Candidate candidate : getCandidates(classRef)) {
+      if (pred.test(candidate.instance)) {
+        if (pred.rejectionsAreFinal()) {
+          resolutions.put(classifyingHead, candidate);
+        }
+        return candidate.instance;
       }
     }
     return null;
@@ -0,0 +1,299 @@
+package org.arend.typechecking.order.listener;
+
+import org.arend.error.ListErrorReporter;
+import org.arend.ext.error.ErrorReporter;
+import org.arend.naming.reference.TCReferable;
+import org.arend.term.concrete.Concrete;
+import org.arend.typechecking.computation.CancellationIndicator;
+import org.arend.typechecking.computation.ComputationRunner;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.Ordering;
+import org.arend.typechecking.order.PartialComparator;
+import org.arend.typechecking.order.dependency.DependencyListener;
+import org.arend.util.ComputationInterruptedException;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Typechecks units found by {@link Ordering} on a thread pool.
+ * First, the ordering is run without typechecking anything; it splits definitions into units (single definitions or SCCs)
+ * and records dependencies between them.
+ * Then every unit is typechecked as soon as all units it depends on are typechecked.
+ * Errors are reported in the same order as in the sequential mode.
+ */
+class ParallelTypechecking {
+  private static final long THREAD_STACK_SIZE = 16L * 1024 * 1024;
+
+  private final TypecheckingOrderingListener myListener;
+  private final InstanceProviderSet myInstanceProviderSet;
+  private final DependencyListener myDependencyListener;
+  private final DependencyListener mySynchronizedDependencyListener = new SynchronizedDependencyListener();
+  private final PartialComparator<TCReferable> myComparator;
+  private final ErrorReporter myErrorReporter;
+  private final int myThreads;
+
+  private final List<Task> myTasks = new ArrayList<>();
+  private final Map<TCReferable, Task> myOwners = new HashMap<>();
+  private final Map<TCReferable, Set<TCReferable>> myDependencies = new HashMap<>();
+  private Task myCurrentTask;
+
+  private CancellationIndicator myCancellationIndicator;
+  private volatile boolean myCanceled;
+  private volatile Throwable myException;
+  private int myNextToReport;
+  private CountDownLatch myLatch;
+  private ThreadPoolExecutor myExecutor;
+
+  ParallelTypechecking(TypecheckingOrderingListener listener, InstanceProviderSet instanceProviderSet, DependencyListener dependencyListener, PartialComparator<TCReferable> comparator, ErrorReporter errorReporter, int threads) {
+    myListener = listener;
+    myInstanceProviderSet = instanceProviderSet;
+    myDependencyListener = dependencyListener;
+    myComparator = comparator;
+    myErrorReporter = errorReporter;
+    myThreads = threads;
+  }
+
+  private class Task implements Runnable, Comparable<Task> {
+    final int index;
+    final CollectingOrderingListener collector = new CollectingOrderingListener();
+    final ListErrorReporter errorReporter = new ListErrorReporter();
+    final List<Task> dependents = new ArrayList<>();
+    final AtomicInteger remaining = new AtomicInteger();
+    boolean finished;
+
+    Task(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public void run() {
+      try {
+        if (!myCanceled) {
+          TypecheckingOrderingListener worker = myListener.createWorker(errorReporter, mySynchronizedDependencyListener);
+          Boolean result = worker.runInCurrentThread(myCancellationIndicator, () -> {
+            collector.feed(worker);
+            return true;
+          });
+          if (result == null || !result) {
+            myCanceled = true;
+          }
+        }
+      } catch (Throwable e) {
+        if (myException == null) {
+          myException = e;
+        }
+        myCanceled = true;
+      } finally {
+        taskFinished(this);
+      }
+    }
+
+    @Override
+    public int compareTo(Task task) {
+      return Integer.compare(index, task.index);
+    }
+  }
+
+  private class MyOrderingListener implements OrderingListener {
+    private boolean accept(TCReferable definition) {
+      Task owner = myOwners.putIfAbsent(definition, myCurrentTask);
+      return owner == null || owner == myCurrentTask;
+    }
+
+    private boolean acceptAll(List<? extends Concrete.Definition> definitions) {
+      boolean ok = false;
+      for (Concrete.Definition definition : definitions) {
+        if (accept(definition.getData())) {
+          ok = true;
+        }
+      }
+      return ok;
+    }
+
+    @Override
+    public void unitFound(Concrete.Definition definition, boolean recursive) {
+      if (accept(definition.getData())) {
+        myCurrentTask.collector.unitFound(definition, recursive);
+      }
+    }
+
+    @Override
+    public void cycleFound(List<Concrete.Definition> definitions) {
+      if (acceptAll(definitions)) {
+        myCurrentTask.collector.cycleFound(definitions);
+      }
+    }
+
+    @Override
+    public void headerFound(Concrete.Definition definition) {
+      // Headers of typechecked dependencies are found again by the orderings of SCCs since nothing is typechecked yet
+      if (accept(definition.getData())) {
+        myCurrentTask.collector.headerFound(definition);
+      }
+    }
+
+    @Override
+    public void bodiesFound(List<Concrete.Definition> definitions) {
+      acceptAll(definitions);
+      myCurrentTask.collector.bodiesFound(definitions);
+    }
+
+    @Override
+    public void useFound(List<Concrete.UseDefinition> definitions) {
+      acceptAll(definitions);
+      myCurrentTask.collector.useFound(definitions);
+    }
+  }
+
+  private class MyDependencyListener implements DependencyListener {
+    @Override
+    public void dependsOn(TCReferable def1, TCReferable def2) {
+      myDependencies.computeIfAbsent(def1, k -> new HashSet<>()).add(def2);
+      mySynchronizedDependencyListener.dependsOn(def1, def2);
+    }
+
+    @Override
+    public Set<? extends TCReferable> update(TCReferable definition) {
+      return mySynchronizedDependencyListener.update(definition);
+    }
+  }
+
+  /**
+   * Forwards to the dependency listener of this typechecking, which is shared by workers.
+   */
+  private class SynchronizedDependencyListener implements DependencyListener {
+    @Override
+    public void dependsOn(TCReferable def1, TCReferable def2) {
+      synchronized (this) {
+        myDependencyListener.dependsOn(def1, def2);
+      }
+    }
+
+    @Override
+    public Set<? extends TCReferable> update(TCReferable definition) {
+      synchronized (this) {
+        return myDependencyListener.update(definition);
+      }
+    }
+  }
+
+  /**
+   * @return an ordering that collects units which are typechecked by {@link #typecheck}.
+   */
+  Ordering getOrdering() {
+    return new Ordering(myInstanceProviderSet, myListener.getConcreteProvider(), new MyOrderingListener(), new MyDependencyListener(), myListener.getReferableConverter(), myListener.getTypecheckerState(), myComparator) {
+      @Override
+      protected void unitFound(Concrete.Definition unit, boolean withLoops) {
+        startTask();
+        super.unitFound(unit, withLoops);
+      }
+
+      @Override
+      protected void sccFound(List<Concrete.Definition> scc) {
+        startTask();
+        super.sccFound(scc);
+      }
+    };
+  }
+
+  private void startTask() {
+    myCurrentTask = new Task(myTasks.size());
+    myTasks.add(myCurrentTask);
+  }
+
+  private void addDependencies() {
+    for (Map.Entry<TCReferable, Set<TCReferable>> entry : myDependencies.entrySet()) {
+      Task task = myOwners.get(entry.getKey());
+      if (task == null) {
+        continue;
+      }
+
+      Set<Task> dependencies = new HashSet<>();
+      for (TCReferable dependency : entry.getValue()) {
+        Task depTask = myOwners.get(dependency);
+        // In the sequential mode, later units are not available to earlier ones anyway
+        if (depTask != null && depTask.index < task.index) {
+          dependencies.add(depTask);
+        }
+      }
+      for (Task dependency : dependencies) {
+        if (!dependency.dependents.contains(task)) {
+          dependency.dependents.add(task);
+          task.remaining.incrementAndGet();
+        }
+      }
+    }
+  }
+
+  private void taskFinished(Task task) {
+    synchronized (this) {
+      task.finished = true;
+      while (myNextToReport < myTasks.size() && myTasks.get(myNextToReport).finished) {
+        myTasks.get(myNextToReport++).errorReporter.reportTo(myErrorReporter);
+      }
+    }
+
+    for (Task dependent : task.dependents) {
+      if (dependent.remaining.decrementAndGet() == 0) {
+        myExecutor.execute(dependent);
+      }
+    }
+    myLatch.countDown();
+  }
+
+  /**
+   * Typechecks collected units.
+   *
+   * @throws ComputationInterruptedException if typechecking was canceled
+   */
+  void typecheck() throws ComputationInterruptedException {
+    if (myTasks.isEmpty()) {
+      return;
+    }
+
+    addDependencies();
+
+    CancellationIndicator indicator = ComputationRunner.getCancellationIndicator();
+    myCancellationIndicator = () -> myCanceled || indicator.isCanceled();
+    myLatch = new CountDownLatch(myTasks.size());
+    AtomicInteger threadCounter = new AtomicInteger();
+    myExecutor = new ThreadPoolExecutor(myThreads, myThreads, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), runnable -> {
+      Thread thread = new Thread(null, runnable, "arend-typechecking-" + threadCounter.incrementAndGet(), THREAD_STACK_SIZE);
+      thread.setDaemon(true);
+      return thread;
+    });
+
+    try {
+      for (Task task : myTasks) {
+        if (task.remaining.get() == 0) {
+          myExecutor.execute(task);
+        }
+      }
+      myLatch.await();
+    } catch (InterruptedException e) {
+      myCanceled = true;
+      myExecutor.shutdownNow();
+      try {
+        myExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException ignored) { }
+    } finally {
+      myExecutor.shutdown();
+    }
+
+    Throwable exception = myException;
+    if (exception instanceof RuntimeException) {
+      throw (RuntimeException) exception;
+    }
+    if (exception instanceof Error) {
+      throw (Error) exception;
+    }
+    if (exception != null) {
+      throw new IllegalStateException(exception);
+    }
+    if (myCanceled) {
+      throw new ComputationInterruptedException();
+    }
+  }
+}
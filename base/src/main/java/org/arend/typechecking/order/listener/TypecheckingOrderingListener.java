@@ -7,6 +7,8 @@ import org.arend.core.definition.*;
 import org.arend.core.expr.ClassCallExpression;
 import org.arend.core.expr.ErrorExpression;
 import org.arend.core.expr.PiExpression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.WhnfCache;
 import org.arend.core.sort.Sort;
 import org.arend.error.CompositeErrorReporter;
 import org.arend.error.CountingErrorReporter;
@@ -41,6 +43,7 @@ import org.arend.util.Pair;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 public class TypecheckingOrderingListener extends ComputationRunner<Boolean> implements OrderingListener {
   private final TypecheckerState myState;
@@ -54,6 +57,9 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
   private final TypecheckingListener myTypecheckingListener;
   private List<TCReferable> myCurrentDefinitions = Collections.emptyList();
   private boolean myHeadersAreOK = true;
+  private int myThreads = 1;
+  private NormalizeVisitor.Engine myNormalizationEngine = NormalizeVisitor.Engine.SUBSTITUTION;
+  private int myWhnfCacheCapacity = 4096;
 
   public TypecheckingOrderingListener(InstanceProviderSet instanceProviderSet, TypecheckerState state, ConcreteProvider concreteProvider, ReferableConverter referableConverter, ErrorReporter errorReporter, DependencyListener dependencyListener, PartialComparator<TCReferable> comparator, TypecheckingListener typecheckingListener) {
     myState = state;
@@ -82,6 +88,118 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
     return myState;
   }
 
+  public int getThreads() {
+    return myThreads;
+  }
+
+  /**
+   * Sets the number of threads used to typecheck independent units.
+   * If it is greater than 1, the typechecker state must be thread-safe and hooks of this listener may be invoked from worker threads.
+   * Such invocations are synchronized on this listener.
+   */
+  public void setThreads(int threads) {
+    myThreads = Math.max(threads, 1);
+  }
+
+  public NormalizeVisitor.Engine getNormalizationEngine() {
+    return myNormalizationEngine;
+  }
+
+  /**
+   * Sets the engine used by {@link org.arend.core.expr.Expression#normalize} during typechecking.
+   */
+  public void setNormalizationEngine(NormalizeVisitor.Engine engine) {
+    myNormalizationEngine = engine;
+  }
+
+  public int getWhnfCacheCapacity() {
+    return myWhnfCacheCapacity;
+  }
+
+  /**
+   * Sets the capacity of caches of weak head normal forms of function calls.
+   * Each typechecking session has its own cache in every thread; if the capacity is 0, normal forms are not cached.
+   */
+  public void setWhnfCacheCapacity(int capacity) {
+    myWhnfCacheCapacity = Math.max(capacity, 0);
+  }
+
+  /**
+   * Creates a listener that typechecks units on a worker thread.
+   * It shares the state of this listener and forwards typechecking hooks to it.
+   * Hooks are invoked while holding the lock of this listener, so they are never run concurrently.
+   */
+  TypecheckingOrderingListener createWorker(ErrorReporter errorReporter, DependencyListener dependencyListener) {
+    TypecheckingOrderingListener parent = this;
+    TypecheckingOrderingListener worker = new TypecheckingOrderingListener(myInstanceProviderSet, myState, myConcreteProvider, myReferableConverter, errorReporter, dependencyListener, myComparator, myTypecheckingListener) {
+      @Override
+      public void typecheckingHeaderStarted(TCReferable definition) {
+        synchronized (parent) {
+          parent.typecheckingHeaderStarted(definition);
+        }
+      }
+
+      @Override
+      public void typecheckingBodyStarted(TCReferable definition) {
+        synchronized (parent) {
+          parent.typecheckingBodyStarted(definition);
+        }
+      }
+
+      @Override
+      public void typecheckingUnitStarted(TCReferable definition) {
+        synchronized (parent) {
+          parent.typecheckingUnitStarted(definition);
+        }
+      }
+
+      @Override
+      public void typecheckingHeaderFinished(TCReferable referable, Definition definition) {
+        synchronized (parent) {
+          parent.typecheckingHeaderFinished(referable, definition);
+        }
+      }
+
+      @Override
+      public void typecheckingBodyFinished(TCReferable referable, Definition definition) {
+        synchronized (parent) {
+          parent.typecheckingBodyFinished(referable, definition);
+        }
+      }
+
+      @Override
+      public void typecheckingUnitFinished(TCReferable referable, Definition definition) {
+        synchronized (parent) {
+          parent.typecheckingUnitFinished(referable, definition);
+        }
+      }
+
+      @Override
+      public void typecheckingInterrupted(TCReferable definition, @Nullable Definition typechecked) {
+        synchronized (parent) {
+          parent.typecheckingInterrupted(definition, typechecked);
+        }
+      }
+    };
+    worker.myNormalizationEngine = myNormalizationEngine;
+    worker.myWhnfCacheCapacity = myWhnfCacheCapacity;
+    return worker;
+  }
+
+  private Ordering createOrdering() {
+    return new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator);
+  }
+
+  private ParallelTypechecking createParallelTypechecking() {
+    return new ParallelTypechecking(this, myInstanceProviderSet, myDependencyListener, myComparator, myErrorReporter, myThreads);
+  }
+
+  @Override
+  public Boolean runInCurrentThread(CancellationIndicator cancellationIndicator, Supplier<Boolean> runnable) {
+    NormalizeVisitor normalizeVisitor = new NormalizeVisitor(myNormalizationEngine, myWhnfCacheCapacity > 0 ? new WhnfCache(myWhnfCacheCapacity) : null);
+    return super.runInCurrentThread(cancellationIndicator, () -> normalizeVisitor.run(runnable));
+  }
+
   @Override
   protected Boolean computationInterrupted() {
     for (TCReferable currentDefinition : myCurrentDefinitions) {
@@ -93,23 +211,45 @@ public class TypecheckingOrderingListener extends ComputationRunner<Boolean> imp
 
   public boolean typecheckDefinitions(final Collection<? extends Concrete.Definition> definitions, CancellationIndicator cancellationIndicator) {
     return run(cancellationIndicator, () -> {
-      Ordering ordering = new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator);
+      ParallelTypechecking parallelTypechecking = myThreads > 1 ? createParallelTypechecking() : null;
+      Ordering ordering = parallelTypechecking != null ? parallelTypechecking.getOrdering() : createOrdering();
       for (Concrete.Definition definition : definitions) {
         ordering.order(definition);
       }
+      if (parallelTypechecking != null) {
+        parallelTypechecking.typecheck();
+      }
       return true;
     });
   }
 
   public boolean typecheckModules(final Collection<? extends Group> modules, CancellationIndicator cancellationIndicator) {
     return run(cancellationIndicator, () -> {
-      new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator).orderModules(modules);
+      if (myThreads > 1) {
+        ParallelTypechecking parallelTypechecking = createParallelTypechecking();
+        parallelTypechecking.getOrdering().orderModules(modules);
+        parallelTypechecking.typecheck();
+      } else {
+        createOrdering().orderModules(modules);
+      }
       return true;
     });
   }
 
   public boolean typecheckLibrary(Library library, CancellationIndicator cancellationIndicator) {
-    return run(cancellationIndicator, () -> library.orderModules(new Ordering(myInstanceProviderSet, myConcreteProvider, this, myDependencyListener, myReferableConverter, myState, myComparator)));
+    return run(cancellationIndicator, () -> orderLibrary(library) && (library.loadDeferredModules() || orderLibrary(library)));
+  }
+
+  private boolean orderLibrary(Library library) {
+    if (myThreads > 1) {
+      ParallelTypechecking parallelTypechecking = createParallelTypechecking();
+      if (!library.orderModules(parallelTypechecking.getOrdering())) {
+        return false;
+      }
+      parallelTypechecking.typecheck();
+      return true;
+    }
+    return library.orderModules(createOrdering());
   }
 
   public boolean typecheckLibrary(Library library) {
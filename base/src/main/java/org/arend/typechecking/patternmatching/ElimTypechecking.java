@@ -15,6 +15,7 @@ import org.arend.core.elimtree.*;
 import org.arend.core.expr.*;
 import org.arend.core.expr.visitor.GetTypeVisitor;
 import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.VariablesMaskVisitor;
 import org.arend.core.pattern.*;
 import org.arend.core.sort.Level;
 import org.arend.core.sort.Sort;
@@ -327,7 +328,55 @@ public class ElimTypechecking {
     return dataCall == null ? null : dataCall.getMatchedConstructors();
   }
 
-  private static List<List<ExpressionPattern>> generateMissingClauses(List<DependentLink> eliminatedParameters, int i, ExprSubstitution substitution) {
+  private static boolean isEmptyType(Expression expr) {
+    List<ConCallExpression> conCalls = getMatchedConstructors(expr);
+    return conCalls != null && conCalls.isEmpty();
+  }
+
+  /**
+   * @return an array which is true at positions such that types of the eliminated parameters starting from this one do not refer to previous eliminated parameters.
+   */
+  private static boolean[] getIndependentPositions(List<DependentLink> eliminatedParameters) {
+    boolean[] result = new boolean[eliminatedParameters.size() + 1];
+    result[eliminatedParameters.size()] = true;
+    // The smallest index of an eliminated parameter that is referred to by the types of parameters starting from the current one
+    int minDependency = eliminatedParameters.size();
+    for (int i = eliminatedParameters.size() - 1; i > 0; i--) {
+      Expression type = eliminatedParameters.get(i).getTypeExpr();
+      for (int j = 0; j < Math.min(i, minDependency); j++) {
+        if (type.findBinding(eliminatedParameters.get(j))) {
+          minDependency = j;
+          break;
+        }
+      }
+      result[i] = minDependency >= i;
+    }
+    return result;
+  }
+
+  /**
+   * Missing clauses for an independent position do not depend on constructors chosen for previous parameters,
+   * so they are generated once and copied.
+   */
+  private static List<List<ExpressionPattern>> getMissingClauses(List<DependentLink> eliminatedParameters, int i, ExprSubstitution substitution, boolean[] independentPositions, Map<Integer, List<List<ExpressionPattern>>> memo) {
+    if (!independentPositions[i]) {
+      return generateMissingClauses(eliminatedParameters, i, substitution, independentPositions, memo);
+    }
+
+    List<List<ExpressionPattern>> result = memo.get(i);
+    if (result == null) {
+      result = generateMissingClauses(eliminatedParameters, i, substitution, independentPositions, memo);
+      memo.put(i, result);
+    }
+
+    List<List<ExpressionPattern>> copy = new ArrayList<>(result.size());
+    for (List<ExpressionPattern> patterns : result) {
+      copy.add(new ArrayList<>(patterns));
+    }
+    return copy;
+  }
+
+  private static List<List<ExpressionPattern>> generateMissingClauses(List<DependentLink> eliminatedParameters, int i, ExprSubstitution substitution, boolean[] independentPositions, Map<Integer, List<List<ExpressionPattern>>> memo) {
     if (i == eliminatedParameters.size()) {
       List<List<ExpressionPattern>> result = new ArrayList<>();
       result.add(new ArrayList<>());
@@ -355,7 +404,7 @@ public class ElimTypechecking {
             subPatterns.add(new BindingPattern(link1));
           }
           substitution.add(link, ConCallExpression.make(conCall.getDefinition(), conCall.getSortArgument(), conCall.getDataTypeArguments(), arguments));
-          List<List<ExpressionPattern>> result = generateMissingClauses(eliminatedParameters, i + 1, substitution);
+          List<List<ExpressionPattern>> result = getMissingClauses(eliminatedParameters, i + 1, substitution, independentPositions, memo);
 
           boolean hasEmpty = false;
           if (result.size() == 1) {
@@ -393,7 +442,7 @@ public class ElimTypechecking {
       }
       return totalResult;
     } else {
-      List<List<ExpressionPattern>> result = generateMissingClauses(eliminatedParameters, i + 1, substitution);
+      List<List<ExpressionPattern>> result = getMissingClauses(eliminatedParameters, i + 1, substitution, independentPositions, memo);
       for (List<ExpressionPattern> patterns : result) {
         patterns.add(new BindingPattern(link));
       }
@@ -424,7 +473,8 @@ public class ElimTypechecking {
       }
     }
 
-    List<List<ExpressionPattern>> missingClauses = generateMissingClauses(elimParams.isEmpty() ? DependentLink.Helper.toList(parameters) : elimParams, 0, new ExprSubstitution());
+    List<DependentLink> eliminatedParameters = elimParams.isEmpty() ? DependentLink.Helper.toList(parameters) : elimParams;
+    List<List<ExpressionPattern>> missingClauses = generateMissingClauses(eliminatedParameters, 0, new ExprSubstitution(), getIndependentPositions(eliminatedParameters), new HashMap<>());
 
     if (myLevel != null) {
       missingClauses.removeIf(clause -> numberOfIntervals(clause) > myLevel);
@@ -488,6 +538,7 @@ public class ElimTypechecking {
     }
 
     List<List<ExpressionPattern>> missingClauses = new ArrayList<>(myMissingClauses.size());
+    Map<DependentLink, Boolean> emptyTypes = new HashMap<>();
     loop:
     for (Pair<List<Util.ClauseElem>, Boolean> missingClause : myMissingClauses) {
       List<ExpressionPattern> patterns = Util.unflattenClauses(missingClause.proj1);
@@ -517,8 +568,12 @@ public class ElimTypechecking {
         }
         for (; link.hasNext(); link = link.getNext()) {
           link = link.getNextTyped(null);
-          List<ConCallExpression> conCalls = getMatchedConstructors(link.getTypeExpr().subst(substitution));
-          if (conCalls != null && conCalls.isEmpty()) {
+          Expression type = link.getTypeExpr();
+          // If the type does not depend on the substituted parameters, the result is the same for all missing clauses
+          boolean isEmpty = VariablesMaskVisitor.doesNotContain(type.getVariablesMask(), substitution.getKeysMask())
+            ? emptyTypes.computeIfAbsent(link, k -> isEmptyType(type))
+            : isEmptyType(type.subst(substitution));
+          if (isEmpty) {
             continue loop;
           }
         }
@@ -771,6 +826,16 @@ public class ElimTypechecking {
         }
       }
 
+      Map<Definition, ConCallExpression> conCallMap;
+      if (conCalls != null && hasVars) {
+        conCallMap = new HashMap<>();
+        for (ConCallExpression conCall : conCalls) {
+          conCallMap.put(conCall.getDefinition(), conCall);
+        }
+      } else {
+        conCallMap = null;
+      }
+
       BranchElimTree branchElimTree = new BranchElimTree(index, hasVars);
       for (BranchKey branchKey : branchKeys) {
         List<ExtElimClause> conClauseList = branchKeyMap.get(branchKey);
@@ -779,6 +844,9 @@ public class ElimTypechecking {
         }
         myContext.push(Util.makeDataClauseElem(branchKey, someConPattern));
 
+        // The split of a variable pattern does not depend on the clause, so it is computed once for all clauses
+        Expression substExpr = null;
+        DependentLink conParameters = null;
         for (int i = 0; i < conClauseList.size(); i++) {
           ExtElimClause clause = conClauseList.get(i);
           List<Integer> indices = new ArrayList<>(clause.argIndices);
@@ -794,55 +862,10 @@ public class ElimTypechecking {
             patterns.addAll(((ConstructorExpressionPattern) oldPatterns.get(index)).getSubPatterns());
             newSubstitution = conClauseList.get(i).substitution;
           } else {
-            Expression substExpr;
-            DependentLink conParameters;
-            List<Expression> arguments = new ArrayList<>(patterns.size());
-            if (conCalls != null) {
-              ConCallExpression conCall = null;
-              for (ConCallExpression conCall1 : conCalls) {
-                if (conCall1.getDefinition() == branchKey) {
-                  conCall = conCall1;
-                  break;
-                }
-              }
-              assert conCall != null;
-              List<Expression> dataTypesArgs = conCall.getDataTypeArguments();
-              substExpr = ConCallExpression.make(conCall.getDefinition(), conCall.getSortArgument(), dataTypesArgs, arguments);
-              conParameters = DependentLink.Helper.subst(branchKey.getParameters(), DependentLink.Helper.toSubstitution(conCall.getDefinition().getDataTypeParameters(), dataTypesArgs));
-            } else {
-              if (branchKey instanceof SingleConstructor) {
-                conParameters = someConPattern.getParameters();
-                Expression someExpr = someConPattern.getDataExpression();
-                if (someExpr instanceof ClassCallExpression) {
-                  ClassCallExpression classCall = (ClassCallExpression) someExpr;
-                  Map<ClassField, Expression> implementations = new HashMap<>();
-                  DependentLink link = conParameters;
-                  for (ClassField field : classCall.getDefinition().getFields()) {
-                    if (!classCall.isImplemented(field)) {
-                      implementations.put(field, new ReferenceExpression(link));
-                      link = link.getNext();
-                    }
-                  }
-                  substExpr = new NewExpression(null, new ClassCallExpression(classCall.getDefinition(), classCall.getSortArgument(), implementations, Sort.PROP, UniverseKind.NO_UNIVERSES));
-                } else if (someExpr instanceof SigmaExpression) {
-                  substExpr = new TupleExpression(arguments, (SigmaExpression) someExpr);
-                  conParameters = DependentLink.Helper.copy(conParameters);
-                } else if (someExpr instanceof FunCallExpression) {
-                  substExpr = someExpr;
-                } else {
-                  throw new IllegalStateException();
-                }
-              } else if (branchKey instanceof Constructor) {
-                List<Expression> dataTypesArgs = new ArrayList<>();
-                for (Expression dataTypeArg : someConPattern.getDataTypeArguments()) {
-                  dataTypesArgs.add(dataTypeArg.subst(conClause.substitution));
-                }
-                Constructor constructor = (Constructor) branchKey;
-                substExpr = ConCallExpression.make(constructor, someConPattern.getSortArgument(), dataTypesArgs, arguments);
-                conParameters = DependentLink.Helper.subst(constructor.getParameters(), DependentLink.Helper.toSubstitution(constructor.getDataTypeParameters(), someConPattern.getDataTypeArguments()));
-              } else {
-                throw new IllegalStateException();
-              }
+            if (substExpr == null) {
+              Pair<Expression, DependentLink> split = splitVariable(branchKey, someConPattern, conClause, conCallMap);
+              substExpr = split.proj1;
+              conParameters = split.proj2;
             }
 
             if (numberOfFakeVars == 0) {
@@ -852,7 +875,6 @@ public class ElimTypechecking {
             }
             for (DependentLink link = conParameters; link.hasNext(); link = link.getNext()) {
               patterns.add(new BindingPattern(link));
-              arguments.add(new ReferenceExpression(link));
               numberOfFakeVars++;
             }
 
@@ -878,6 +900,63 @@ public class ElimTypechecking {
     }
   }
 
+  /**
+   * Replaces a variable pattern with a constructor.
+   *
+   * @return an expression that is substituted for the variable and parameters of the constructor that are referred to by it.
+   */
+  private static Pair<Expression, DependentLink> splitVariable(BranchKey branchKey, ConstructorExpressionPattern someConPattern, ExtElimClause conClause, Map<Definition, ConCallExpression> conCallMap) {
+    Expression substExpr;
+    DependentLink conParameters;
+    List<Expression> arguments = new ArrayList<>();
+    if (conCallMap != null) {
+      ConCallExpression conCall = conCallMap.get(branchKey);
+      assert conCall != null;
+      List<Expression> dataTypesArgs = conCall.getDataTypeArguments();
+      substExpr = ConCallExpression.make(conCall.getDefinition(), conCall.getSortArgument(), dataTypesArgs, arguments);
+      conParameters = DependentLink.Helper.subst(branchKey.getParameters(), DependentLink.Helper.toSubstitution(conCall.getDefinition().getDataTypeParameters(), dataTypesArgs));
+    } else {
+      if (branchKey instanceof SingleConstructor) {
+        conParameters = someConPattern.getParameters();
+        Expression someExpr = someConPattern.getDataExpression();
+        if (someExpr instanceof ClassCallExpression) {
+          ClassCallExpression classCall = (ClassCallExpression) someExpr;
+          Map<ClassField, Expression> implementations = new ImplementationMap(classCall.getDefinition());
+          DependentLink link = conParameters;
+          for (ClassField field : classCall.getDefinition().getFields()) {
+            if (!classCall.isImplemented(field)) {
+              implementations.put(field, new ReferenceExpression(link));
+              link = link.getNext();
+            }
+          }
+          substExpr = new NewExpression(null, new ClassCallExpression(classCall.getDefinition(), classCall.getSortArgument(), implementations, Sort.PROP, UniverseKind.NO_UNIVERSES));
+        } else if (someExpr instanceof SigmaExpression) {
+          substExpr = new TupleExpression(arguments, (SigmaExpression) someExpr);
+          conParameters = DependentLink.Helper.copy(conParameters);
+        } else if (someExpr instanceof FunCallExpression) {
+          substExpr = someExpr;
+        } else {
+          throw new IllegalStateException();
+        }
+      } else if (branchKey instanceof Constructor) {
+        List<Expression> dataTypesArgs = new ArrayList<>();
+        for (Expression dataTypeArg : someConPattern.getDataTypeArguments()) {
+          dataTypesArgs.add(dataTypeArg.subst(conClause.substitution));
+        }
+        Constructor constructor = (Constructor) branchKey;
+        substExpr = ConCallExpression.make(constructor, someConPattern.getSortArgument(), dataTypesArgs, arguments);
+        conParameters = DependentLink.Helper.subst(constructor.getParameters(), DependentLink.Helper.toSubstitution(constructor.getDataTypeParameters(), someConPattern.getDataTypeArguments()));
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+
+    for (DependentLink link = conParameters; link.hasNext(); link = link.getNext()) {
+      arguments.add(new ReferenceExpression(link));
+    }
+    return new Pair<>(substExpr, conParameters);
+  }
+
   private void addMissingClause(List<Util.ClauseElem> clause, boolean isInterval) {
     if (myMissingClauses == null) {
       myMissingClauses = new ArrayList<>();
@@ -11,45 +11,59 @@ public abstract class BaseCallGraph<T> {
   BaseCallGraph() {
   }
 
+  /**
+   * Computes the closure of {@code g} under composition.
+   * Every edge is composed with the edges that are adjacent to it only once, when it is taken from the worklist,
+   * so that edges that are already composed with each other are not composed again.
+   */
   BaseCallGraph(BaseCallGraph<T> g) {
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> newGraph;
-    HashMap<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> oldGraph = g.myGraph;
-    int myNewEdges;
-
-    do {
-      myNewEdges = 0;
-      newGraph = new HashMap<>();
-
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundEdges.get(vCodom)) {
-            append(edge, newGraph);
+    Deque<BaseCallMatrix<T>> worklist = new ArrayDeque<>();
+    for (HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges : g.myGraph.values()) {
+      for (HashSet<BaseCallMatrix<T>> edges : outboundEdges.values()) {
+        for (BaseCallMatrix<T> edge : edges) {
+          if (append(edge, myGraph)) {
+            worklist.add(edge);
           }
         }
       }
+    }
+
+    HashMap<T, HashSet<T>> inboundVertices = new HashMap<>();
+    for (Map.Entry<T, HashMap<T, HashSet<BaseCallMatrix<T>>>> entry : myGraph.entrySet()) {
+      for (T vCodom : entry.getValue().keySet()) {
+        inboundVertices.computeIfAbsent(vCodom, k -> new HashSet<>()).add(entry.getKey());
+      }
+    }
 
-      for (T vDom : oldGraph.keySet()) {
-        HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = oldGraph.get(vDom);
-        for (T vCodom : outboundEdges.keySet()) {
-          for (BaseCallMatrix<T> edge : outboundEdges.get(vCodom)) {
-            HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges2 = oldGraph.get(edge.getCodomain());
-            if (outboundEdges2 != null) {
-              for (HashSet<BaseCallMatrix<T>> edgesSheaf : outboundEdges2.values()) {
-                for (BaseCallMatrix<T> edge2 : edgesSheaf) {
-                  if (append(new CompositeCallMatrix<>(edge, edge2), newGraph)) {
-                    myNewEdges++;
-                  }
-                }
-              }
-            }
+    List<BaseCallMatrix<T>> newEdges = new ArrayList<>();
+    while (!worklist.isEmpty()) {
+      BaseCallMatrix<T> edge = worklist.poll();
+      HashMap<T, HashSet<BaseCallMatrix<T>>> outboundEdges = myGraph.get(edge.getCodomain());
+      if (outboundEdges != null) {
+        for (HashSet<BaseCallMatrix<T>> edges : outboundEdges.values()) {
+          for (BaseCallMatrix<T> edge2 : edges) {
+            newEdges.add(new CompositeCallMatrix<>(edge, edge2));
+          }
+        }
+      }
+      HashSet<T> vDoms = inboundVertices.get(edge.getDomain());
+      if (vDoms != null) {
+        for (T vDom : vDoms) {
+          for (BaseCallMatrix<T> edge1 : myGraph.get(vDom).get(edge.getDomain())) {
+            newEdges.add(new CompositeCallMatrix<>(edge1, edge));
           }
         }
       }
-      oldGraph = newGraph;
-    } while (myNewEdges > 0);
 
-    myGraph = newGraph;
+      for (BaseCallMatrix<T> newEdge : newEdges) {
+        if (append(newEdge, myGraph)) {
+          inboundVertices.computeIfAbsent(newEdge.getCodomain(), k -> new HashSet<>()).add(newEdge.getDomain());
+          worklist.add(newEdge);
+        }
+      }
+      newEdges.clear();
+    }
+
     isCompositionClosed = true;
   }
 
@@ -95,21 +109,7 @@ public abstract class BaseCallGraph<T> {
         map.put(cm.getCodomain(), set);
         return true;
       } else {
-        set = map.get(cm.getCodomain());
-        boolean alreadyContainsEqual = false;
-
-        for (BaseCallMatrix<T> c : set) {
-          if (cm.equals(c)) {
-            alreadyContainsEqual = true;
-            break;
-          }
-        }
-
-        if (!(alreadyContainsEqual)) {
-          set.add(cm);
-        }
-
-        return !alreadyContainsEqual;
+        return map.get(cm.getCodomain()).add(cm);
       }
     }
   }
@@ -174,6 +174,20 @@ public abstract class BaseCallGraph<T> {
       return result;
     }
 
+    private boolean isDecreasing(int i) {
+      for (RecursiveBehavior<T> rb : myBehaviors) {
+        if (rb.behavior.get(i) == BaseCallMatrix.R.LessThan) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /*
+     * A column that decreases some behaviors and does not contain Unknown can always be chosen first:
+     * the remaining behaviors are a subset of the current ones, so any order that works for the current behaviors works for them too.
+     * Thus, the search does not backtrack and columns that do not decrease anything are skipped.
+     */
     private List<Integer> findTerminationOrder(RecursiveBehaviors<T> recBehaviors, List<Integer> indices) {
       if (recBehaviors == null) throw new IllegalArgumentException();
 
@@ -184,6 +198,7 @@ public abstract class BaseCallGraph<T> {
         myBestRbAttained = recBehaviors;
 
       for (int i = 0; i < recBehaviors.myLength; i++) {
+        if (!recBehaviors.isDecreasing(i)) continue;
         RecursiveBehaviors<T> shorterBehavior = recBehaviors.createShorterBehavior(i);
         if (shorterBehavior != null) {
           List<Integer> shorterIndices = new LinkedList<>(indices);
@@ -191,8 +206,8 @@ public abstract class BaseCallGraph<T> {
           List<Integer> termOrder = findTerminationOrder(shorterBehavior, shorterIndices);
           if (termOrder != null) {
             termOrder.add(0, indices.get(i));
-            return termOrder;
           }
+          return termOrder;
         }
       }
 
@@ -9,7 +9,6 @@ import org.arend.ext.prettyprinting.doc.DocStringBuilder;
 import org.arend.util.StringFormat;
 
 import java.util.Arrays;
-import java.util.HashMap;
 
 public abstract class BaseCallMatrix<T> {
   public enum R {
@@ -18,36 +17,6 @@ public abstract class BaseCallMatrix<T> {
     LessThan()
   }
 
-  private static BaseCallMatrix.R rmul(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    switch (a) {
-      case Equal:
-        switch (b) {
-          case Equal:
-            return BaseCallMatrix.R.Equal;
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      case LessThan:
-        switch (b) {
-          case Equal:
-          case LessThan:
-            return BaseCallMatrix.R.LessThan;
-          default:
-            return BaseCallMatrix.R.Unknown;
-        }
-      default:
-        return BaseCallMatrix.R.Unknown;
-    }
-  }
-
-  private static BaseCallMatrix.R radd(BaseCallMatrix.R a, BaseCallMatrix.R b) {
-    if (a == R.LessThan || b == R.LessThan) return R.LessThan;
-    if (a == R.Equal || b == R.Equal) return R.Equal;
-    return R.Unknown;
-  }
-
   static boolean rleq(BaseCallMatrix.R a, BaseCallMatrix.R b) {
     switch (a) {
       case LessThan:
@@ -59,8 +28,19 @@ public abstract class BaseCallMatrix<T> {
     }
   }
 
-  private HashMap<Integer, BaseCallMatrix.CallMatrixEntry> myMatrixMap = new HashMap<>();
-  private BaseCallMatrix.R[][] fallbackMatrix = null;
+  /*
+   * Every cell takes two bits: the lower bit is set if the relation is known and the upper bit is set if it is strict,
+   * that is, Unknown = 00, Equal = 01, LessThan = 11.
+   * With this encoding, the sum of relations is the bitwise disjunction and rleq(a, b) holds iff (a & ~b) == 0.
+   * Rows are stored one after another and every row occupies myRowLength longs.
+   */
+  private static final int CELLS_PER_LONG = 32;
+  private static final long LOWER_BITS = 0x5555555555555555L;
+  private static final int EQUAL_BITS = 1;
+  private static final int LESS_THAN_BITS = 3;
+
+  private final long[] myCells;
+  private final int myRowLength;
 
   private final int myWidth;
   private final int myHeight;
@@ -68,48 +48,40 @@ public abstract class BaseCallMatrix<T> {
   BaseCallMatrix(int width, int height) {
     myWidth = width;
     myHeight = height;
+    myRowLength = (width + CELLS_PER_LONG - 1) / CELLS_PER_LONG;
+    myCells = new long[myRowLength * height];
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m) {
     // copy constructor 
     myWidth = m.myWidth;
     myHeight = m.myHeight;
-    if (m.myMatrixMap != null) {
-      for (Integer j : m.myMatrixMap.keySet()) {
-        BaseCallMatrix.CallMatrixEntry cme = m.myMatrixMap.get(j);
-        myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(cme.myIndex, cme.myRel));
-      }
-    } else {
-      fallbackMatrix = new BaseCallMatrix.R[myHeight][myWidth];
-      for (int i = 0; i < myHeight; i++) System.arraycopy(m.fallbackMatrix[i], 0, fallbackMatrix[i], 0, myWidth);
-    }
+    myRowLength = m.myRowLength;
+    myCells = m.myCells.clone();
   }
 
   BaseCallMatrix(BaseCallMatrix<T> m1, BaseCallMatrix<T> m2) {
     // multiplication constructor 
+    this(m2.myWidth, m1.myHeight);
     if (m1.myWidth != m2.myHeight) {
       throw new IllegalArgumentException();
     }
-    myHeight = m1.myHeight;
-    myWidth = m2.myWidth;
 
-    if (m1.myMatrixMap != null && m2.myMatrixMap != null) {
-      for (int j = 0; j < myWidth; j++) {
-        BaseCallMatrix.CallMatrixEntry cme2 = m2.myMatrixMap.get(j);
-        if (cme2 != null) {
-          BaseCallMatrix.CallMatrixEntry cme = m1.myMatrixMap.get(cme2.myIndex);
-          if (cme != null) {
-            myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(cme.myIndex, rmul(cme.myRel, cme2.myRel)));
-          }
+    // The i-th row of the product is the sum of the k-th rows of m2 multiplied by m1[i][k].
+    // Multiplication by Equal does not change a row and multiplication by LessThan makes all known relations strict.
+    for (int i = 0; i < myHeight; i++) {
+      int row = i * myRowLength;
+      for (int k = 0; k < m1.myWidth; k++) {
+        int bits = m1.getBits(i, k);
+        if (bits == 0) {
+          continue;
         }
-      }
-    } else {
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++) {
-          BaseCallMatrix.R s = R.Unknown;
-          for (int k = 0; k < m1.myWidth; k++) s = radd(s, rmul(m1.getValue(i, k), m2.getValue(k, j)));
-          set(i, j, s);
+        int row2 = k * m2.myRowLength;
+        for (int l = 0; l < myRowLength; l++) {
+          long cells = m2.myCells[row2 + l];
+          myCells[row + l] |= bits == LESS_THAN_BITS ? cells | (cells & LOWER_BITS) << 1 : cells;
         }
+      }
     }
   }
 
@@ -127,62 +99,37 @@ public abstract class BaseCallMatrix<T> {
 
   public abstract int getCompositeLength();
 
+  private int getBits(int i, int j) {
+    return (int) (myCells[i * myRowLength + j / CELLS_PER_LONG] >>> 2 * (j % CELLS_PER_LONG)) & 3;
+  }
+
   public void set(int i, int j, BaseCallMatrix.R v) {
-    if (myMatrixMap != null) {
-      BaseCallMatrix.CallMatrixEntry cm = myMatrixMap.get(j);
-      if (cm != null) {
-        if (cm.myIndex != i && v != R.Unknown) {
-          enterFallBackMode();
-          fallbackMatrix[i][j] = v;
-        } else if (cm.myIndex == i) {
-          if (v == R.Unknown) myMatrixMap.put(j, null);
-          else cm.myRel = v;
-        }
-      } else if (v != R.Unknown) {
-        myMatrixMap.put(j, new BaseCallMatrix.CallMatrixEntry(i, v));
-      }
-    } else {
-      fallbackMatrix[i][j] = v;
-    }
+    int index = i * myRowLength + j / CELLS_PER_LONG;
+    int shift = 2 * (j % CELLS_PER_LONG);
+    long bits = v == R.LessThan ? LESS_THAN_BITS : v == R.Equal ? EQUAL_BITS : 0;
+    myCells[index] = myCells[index] & ~(3L << shift) | bits << shift;
   }
 
   public BaseCallMatrix.R getValue(int i, int j) {
-    if (myMatrixMap != null) {
-      BaseCallMatrix.CallMatrixEntry cme = myMatrixMap.get(j);
-      BaseCallMatrix.R result2 = BaseCallMatrix.R.Unknown;
-      if (cme != null && cme.myIndex == i) {
-        result2 = cme.myRel;
-      }
-      return result2;
-    } else {
-      return fallbackMatrix[i][j];
+    switch (getBits(i, j)) {
+      case LESS_THAN_BITS:
+        return R.LessThan;
+      case EQUAL_BITS:
+        return R.Equal;
+      default:
+        return R.Unknown;
     }
   }
 
-  private void enterFallBackMode() {
-    fallbackMatrix = new BaseCallMatrix.R[myHeight][myWidth];
-    for (int i = 0; i < myHeight; i++) for (int j = 0; j < myWidth; j++) fallbackMatrix[i][j] = getValue(i, j);
-    myMatrixMap = null;
-  }
-
   public final boolean leq(BaseCallMatrix<T> cm) {
-    if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) {
+    if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain() || myCells.length != cm.myCells.length) {
       return false;
     }
-    if (myMatrixMap != null && cm.myMatrixMap != null) {
-      for (int k : myMatrixMap.keySet()) {
-        BaseCallMatrix.CallMatrixEntry cme = cm.myMatrixMap.get(k);
-        BaseCallMatrix.CallMatrixEntry mme = myMatrixMap.get(k);
-        if (cme == null || cme.myIndex != mme.myIndex || !(BaseCallMatrix.rleq(mme.myRel, cme.myRel))) {
-          return false;
-        }
+    for (int k = 0; k < myCells.length; k++) {
+      if ((myCells[k] & ~cm.myCells[k]) != 0) {
+        return false;
       }
-    } else {
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++)
-          if (!rleq(getValue(i, j), cm.getValue(i, j))) return false;
     }
-
     return true;
   }
 
@@ -190,12 +137,7 @@ public abstract class BaseCallMatrix<T> {
   public final boolean equals(Object object) {
     if (object instanceof BaseCallMatrix) {
       BaseCallMatrix<?> cm = (BaseCallMatrix<?>) object;
-      if (getCodomain() != cm.getCodomain() || getDomain() != cm.getDomain()) return false;
-      if (myMatrixMap != null && cm.myMatrixMap != null) return myMatrixMap.equals(cm.myMatrixMap);
-      for (int i = 0; i < myHeight; i++)
-        for (int j = 0; j < myWidth; j++)
-          if (getValue(i, j) != cm.getValue(i, j)) return false;
-      return true;
+      return getCodomain() == cm.getCodomain() && getDomain() == cm.getDomain() && Arrays.equals(myCells, cm.myCells);
     } else {
       return false;
     }
@@ -204,7 +146,7 @@ public abstract class BaseCallMatrix<T> {
   @Override
   public final int hashCode() {
     int result = getCodomain().hashCode() * 31 + getDomain().hashCode();
-    return result * 31 + (myMatrixMap != null ? myMatrixMap.hashCode() : Arrays.deepHashCode(fallbackMatrix));
+    return result * 31 + Arrays.hashCode(myCells);
   }
 
   protected String[] getColumnLabels() {
@@ -266,28 +208,4 @@ public abstract class BaseCallMatrix<T> {
 
     return result.toString();
   }
-
-  private static class CallMatrixEntry {
-    final int myIndex;
-    BaseCallMatrix.R myRel;
-
-    CallMatrixEntry(int index, BaseCallMatrix.R rel) {
-      myIndex = index;
-      myRel = rel;
-    }
-
-    @Override
-    public int hashCode() {
-      return myIndex * 31 + myRel.hashCode();
-    }
-
-    @Override
-    public boolean equals(Object object) {
-      if (object instanceof BaseCallMatrix.CallMatrixEntry) {
-        BaseCallMatrix.CallMatrixEntry cm = (BaseCallMatrix.CallMatrixEntry) object;
-        return cm.myIndex == myIndex && cm.myRel == myRel;
-      }
-      return false;
-    }
-  }
 }
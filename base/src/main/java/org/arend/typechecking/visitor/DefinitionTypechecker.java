@@ -41,6 +41,7 @@ import org.arend.term.concrete.Concrete;
 import org.arend.term.concrete.ConcreteDefinitionVisitor;
 import org.arend.term.concrete.FreeReferablesVisitor;
 import org.arend.typechecking.FieldDFS;
+import org.arend.typechecking.computation.TypecheckingProfiler;
 import org.arend.typechecking.covariance.ParametersCovarianceChecker;
 import org.arend.typechecking.covariance.RecursiveDataChecker;
 import org.arend.typechecking.covariance.UniverseInParametersChecker;
@@ -146,6 +147,7 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
     FunctionDefinition definition = typechecked != null ? (FunctionDefinition) typechecked : def.getKind() == FunctionKind.CONS ? new DConstructor(def.getData()) : new FunctionDefinition(def.getData());
     try {
       typecheckFunctionHeader(definition, def, localInstancePool, typechecked == null);
+      TypecheckingProfiler.switchCategory(TypecheckingProfiler.Category.BODY);
       return typecheckFunctionBody(definition, def, typechecked == null);
     } catch (IncorrectExpressionException e) {
       errorReporter.report(new TypecheckingError(e.getMessage(), def));
@@ -163,6 +165,7 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
     DataDefinition definition = typechecked != null ? (DataDefinition) typechecked : new DataDefinition(def.getData());
     try {
       typecheckDataHeader(definition, def, localInstancePool, typechecked == null);
+      TypecheckingProfiler.switchCategory(TypecheckingProfiler.Category.BODY);
       if (definition.status().headerIsOK()) {
         typecheckDataBody(definition, def, true, Collections.singleton(definition), typechecked == null);
       }
@@ -1687,6 +1690,9 @@ public class DefinitionTypechecker extends BaseDefinitionTypechecker implements
         }
       }
     }
+    if (newDef) {
+      typedDef.updateAncestors();
+    }
 
     boolean hasClassifyingField = false;
     if (!def.isRecord() && !def.withoutClassifying()) {
@@ -0,0 +1,38 @@
+plugins {
+    java
+}
+
+val jmhVersion = "1.23"
+
+dependencies {
+    val annotationsVersion: String by rootProject.ext
+    val protobufVersion: String by rootProject.ext
+    val antlrVersion: String by rootProject.ext
+    implementation("org.jetbrains:annotations:$annotationsVersion")
+    implementation("com.google.protobuf:protobuf-java:$protobufVersion")
+    implementation("org.antlr:antlr4-runtime:$antlrVersion")
+    implementation(project(":api"))
+    implementation(project(":base"))
+    implementation(project(":cli"))
+    implementation(project(":parser"))
+    implementation(project(":proto"))
+
+    implementation("org.openjdk.jmh:jmh-core:$jmhVersion")
+    annotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:$jmhVersion")
+}
+
+// Benchmarks are not published
+tasks.withType<PublishToMavenRepository> {
+    enabled = false
+}
+
+task<JavaExec>("jmh") {
+    description = "Runs JMH benchmarks; JMH options can be passed with -PjmhArgs=\"...\""
+    group = "Verification"
+    main = "org.openjdk.jmh.Main"
+    classpath = sourceSets["main"].runtimeClasspath
+    // The prelude is loaded from lib/Prelude.ard
+    workingDir(rootProject.rootDir)
+    val jmhArgs: String? by project
+    args = jmhArgs?.split(" ")?.filter { it.isNotEmpty() } ?: emptyList()
+}
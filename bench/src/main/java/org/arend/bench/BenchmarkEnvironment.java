@@ -0,0 +1,87 @@
+package org.arend.bench;
+
+import org.arend.core.definition.Definition;
+import org.arend.error.ListErrorReporter;
+import org.arend.ext.error.GeneralError;
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.frontend.library.PreludeFileLibrary;
+import org.arend.library.Library;
+import org.arend.library.LibraryManager;
+import org.arend.naming.reference.Referable;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
+import org.arend.prelude.Prelude;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.ConcurrentTypecheckerState;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Loads and typechecks the prelude and libraries used by benchmarks.
+ * The prelude is loaded from {@code lib/Prelude.ard}, so benchmarks should be run from the root of the repository.
+ */
+public class BenchmarkEnvironment {
+  public final TypecheckerState typecheckerState = new ConcurrentTypecheckerState();
+  public final ListErrorReporter errorReporter = new ListErrorReporter();
+  public final LibraryManager libraryManager = new LibraryManager((lib, name) -> { throw new IllegalStateException(); }, new InstanceProviderSet(), errorReporter, errorReporter);
+
+  public BenchmarkEnvironment() {
+    Library preludeLibrary = new PreludeFileLibrary(null, typecheckerState);
+    libraryManager.loadLibrary(preludeLibrary, null);
+    new Prelude.PreludeTypechecking(new InstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, PositionComparator.INSTANCE).typecheckLibrary(preludeLibrary);
+    checkErrors();
+  }
+
+  public TypecheckingOrderingListener createTypechecking() {
+    return new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE);
+  }
+
+  /**
+   * Loads a library consisting of given modules.
+   */
+  public BenchmarkLibrary loadLibrary(Map<ModulePath, String> modules) {
+    BenchmarkLibrary library = new BenchmarkLibrary(typecheckerState);
+    for (Map.Entry<ModulePath, String> entry : modules.entrySet()) {
+      library.addModule(entry.getKey(), entry.getValue());
+    }
+    if (!libraryManager.loadLibrary(library, null)) {
+      throw new IllegalStateException("Cannot load the library");
+    }
+    checkErrors();
+    return library;
+  }
+
+  public void typecheckLibrary(BenchmarkLibrary library) {
+    if (!createTypechecking().typecheckLibrary(library)) {
+      throw new IllegalStateException("Typechecking was interrupted");
+    }
+    checkErrors();
+  }
+
+  public Definition getDefinition(BenchmarkLibrary library, ModulePath module, String name) {
+    ChildGroup group = library.getModuleGroup(module);
+    Referable referable = group == null ? null : Scope.Utils.resolveName(group.getGroupScope(), Arrays.asList(name.split("\\.")));
+    Definition definition = referable instanceof TCReferable ? typecheckerState.getTypechecked((TCReferable) referable) : null;
+    if (definition == null) {
+      throw new IllegalArgumentException("Cannot find definition " + name);
+    }
+    return definition;
+  }
+
+  public void checkErrors() {
+    if (!errorReporter.getErrorList().isEmpty()) {
+      StringBuilder builder = new StringBuilder();
+      for (GeneralError error : errorReporter.getErrorList()) {
+        builder.append(error).append('\n');
+      }
+      throw new IllegalStateException(builder.toString());
+    }
+  }
+}
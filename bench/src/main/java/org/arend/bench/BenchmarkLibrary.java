@@ -0,0 +1,59 @@
+package org.arend.bench;
+
+import org.arend.ext.error.ErrorReporter;
+import org.arend.ext.module.ModulePath;
+import org.arend.library.LibraryDependency;
+import org.arend.library.LibraryHeader;
+import org.arend.library.UnmodifiableSourceLibrary;
+import org.arend.source.BinarySource;
+import org.arend.source.Source;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.util.Range;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * An in-memory library without binary sources.
+ */
+public class BenchmarkLibrary extends UnmodifiableSourceLibrary {
+  private final Map<ModulePath, String> myModules = new LinkedHashMap<>();
+
+  public BenchmarkLibrary(TypecheckerState typecheckerState) {
+    super("bench_library", typecheckerState);
+  }
+
+  public void addModule(ModulePath module, String text) {
+    myModules.put(module, text);
+  }
+
+  public Collection<ModulePath> getModules() {
+    return myModules.keySet();
+  }
+
+  @Nullable
+  @Override
+  public Source getRawSource(ModulePath modulePath) {
+    String text = myModules.get(modulePath);
+    return text == null ? null : new StringRawSource(modulePath, text);
+  }
+
+  @Nullable
+  @Override
+  public BinarySource getBinarySource(ModulePath modulePath) {
+    return null;
+  }
+
+  @Nullable
+  @Override
+  protected LibraryHeader loadHeader(ErrorReporter errorReporter) {
+    return new LibraryHeader(new ArrayList<>(myModules.keySet()), Collections.emptyList(), Range.unbound(), null, null);
+  }
+
+  @NotNull
+  @Override
+  public List<? extends LibraryDependency> getDependencies() {
+    return Collections.emptyList();
+  }
+}
@@ -0,0 +1,155 @@
+package org.arend.bench;
+
+import org.arend.ext.module.ModulePath;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Generates sources of modules used by benchmarks.
+ */
+public final class BenchmarkSources {
+  public static final ModulePath MODULE = new ModulePath("Bench");
+
+  private BenchmarkSources() {}
+
+  /**
+   * A module with arithmetic on unary numbers, built-in numbers, integers, and a deep {@code \case}.
+   *
+   * @param caseDepth the number of nested {@code \case} expressions in {@code deepCase}.
+   */
+  public static Map<ModulePath, String> arithmetic(int caseDepth) {
+    StringBuilder builder = new StringBuilder();
+    builder.append(
+      "\\data N | z | s N\n" +
+      "\\func \\infixl 6 + (x y : N) : N \\elim x\n" +
+      "  | z => y\n" +
+      "  | s x => s (x + y)\n" +
+      "\\func \\infixl 7 * (x y : N) : N \\elim x\n" +
+      "  | z => z\n" +
+      "  | s x => y + x * y\n" +
+      "\\func fromNat (n : Nat) : N\n" +
+      "  | 0 => z\n" +
+      "  | suc n => s (fromNat n)\n" +
+      "\\func unaryMul => fromNat 30 * fromNat 20\n" +
+      "\\func unaryMul' => fromNat 20 * fromNat 30\n" +
+      "\\func natFib (n : Nat) : Nat\n" +
+      "  | 0 => 0\n" +
+      "  | 1 => 1\n" +
+      "  | suc (suc n) => natFib n Nat.+ natFib (suc n) Nat.* 1\n" +
+      "\\func natArith => natFib 18\n" +
+      "\\func intSum (n : Nat) : Int\n" +
+      "  | 0 => pos 0\n" +
+      "  | suc n => (n Nat.* 1000 Nat.+ 17) Nat.- (n Nat.* n)\n" +
+      "\\func intArith => intSum 123456\n");
+
+    builder.append("\\func deepCase (x0 : Nat) : Nat =>");
+    for (int i = 0; i < caseDepth; i++) {
+      builder.append(" \\case x").append(i).append(" \\with {\n");
+      builder.append("  | 0 => x0 Nat.* ").append(i).append(" Nat.+ x0\n");
+      builder.append("  | suc x").append(i + 1).append(" =>");
+    }
+    builder.append(" x").append(caseDepth);
+    for (int i = 0; i < caseDepth; i++) {
+      builder.append(" }");
+    }
+    builder.append("\n");
+    builder.append("\\func deepCaseCall => deepCase ").append(caseDepth + 1).append("\n");
+
+    Map<ModulePath, String> result = new LinkedHashMap<>();
+    result.put(MODULE, builder.toString());
+    return result;
+  }
+
+  /**
+   * A library in which every module imports the previous one.
+   * Every definition of a module refers to the previous definition of the same module and to a definition of the previous module.
+   */
+  public static Map<ModulePath, String> library(int modules, int definitions) {
+    Map<ModulePath, String> result = new LinkedHashMap<>();
+    for (int i = 0; i < modules; i++) {
+      StringBuilder builder = new StringBuilder();
+      if (i > 0) {
+        builder.append("\\import M").append(i - 1).append("\n");
+      }
+      for (int j = 0; j < definitions; j++) {
+        String name = "f" + i + "_" + j;
+        builder.append("\\func ").append(name).append(" (n : Nat) : Nat \\elim n\n");
+        builder.append("  | 0 => ").append(j).append("\n");
+        builder.append("  | suc n => ");
+        builder.append(j > 0 ? "f" + i + "_" + (j - 1) + " n" : "n");
+        builder.append(" Nat.+ ");
+        builder.append(i > 0 ? "f" + (i - 1) + "_" + j + " n" : "1");
+        builder.append("\n");
+        builder.append("\\func p").append(i).append("_").append(j).append(" : ").append(name).append(" 3 = ").append(name).append(" 3 => idp\n");
+        builder.append("\\data D").append(i).append("_").append(j).append(" (n : Nat) | c").append(i).append("_").append(j).append(" (").append(name).append(" n = n)\n");
+      }
+      result.put(new ModulePath("M" + i), builder.toString());
+    }
+    return result;
+  }
+
+  /**
+   * A module with wide pattern matching on a data type with many constructors.
+   * {@code diag} matches all parameters on the same constructor, {@code columns} matches a single parameter in every clause,
+   * and {@code table} lists all pairs of constructors.
+   *
+   * @param constructors the number of constructors of the data type.
+   * @param width        the number of eliminated parameters of {@code diag} and {@code columns}.
+   */
+  public static Map<ModulePath, String> widePatterns(int constructors, int width) {
+    StringBuilder builder = new StringBuilder();
+    builder.append("\\data D");
+    for (int i = 0; i < constructors; i++) {
+      builder.append(" | c").append(i);
+    }
+    builder.append("\n");
+
+    appendWideFunction(builder, "diag", width);
+    for (int i = 0; i < constructors; i++) {
+      builder.append("  |");
+      for (int j = 0; j < width; j++) {
+        builder.append(j > 0 ? ", c" : " c").append(i);
+      }
+      builder.append(" => ").append(i).append("\n");
+    }
+    appendCatchAllClause(builder, width, constructors);
+
+    appendWideFunction(builder, "columns", width);
+    for (int i = 0; i < constructors; i++) {
+      builder.append("  |");
+      for (int j = 0; j < width; j++) {
+        builder.append(j > 0 ? ", " : " ").append(j == i % width ? "c" + i : "_");
+      }
+      builder.append(" => ").append(i).append("\n");
+    }
+    appendCatchAllClause(builder, width, constructors);
+
+    appendWideFunction(builder, "table", 2);
+    for (int i = 0; i < constructors; i++) {
+      for (int j = 0; j < constructors; j++) {
+        builder.append("  | c").append(i).append(", c").append(j).append(" => ").append(i * constructors + j).append("\n");
+      }
+    }
+
+    Map<ModulePath, String> result = new LinkedHashMap<>();
+    result.put(MODULE, builder.toString());
+    return result;
+  }
+
+  private static void appendWideFunction(StringBuilder builder, String name, int width) {
+    builder.append("\\func ").append(name).append(" (");
+    for (int i = 0; i < width; i++) {
+      builder.append(i > 0 ? " x" : "x").append(i);
+    }
+    builder.append(" : D) : Nat\n");
+  }
+
+  private static void appendCatchAllClause(StringBuilder builder, int width, int result) {
+    builder.append("  |");
+    for (int i = 0; i < width; i++) {
+      builder.append(i > 0 ? ", _" : " _");
+    }
+    builder.append(" => ").append(result).append("\n");
+  }
+}
@@ -0,0 +1,64 @@
+package org.arend.bench;
+
+import org.arend.core.expr.DataCallExpression;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.CompareVisitor;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.WhnfCache;
+import org.arend.ext.core.ops.CMP;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.arend.typechecking.implicitargs.equations.DummyEquations;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompareBenchmark {
+  @Param({"false", "true"})
+  public boolean whnfCache;
+
+  private Expression myUnaryMul;
+  private Expression myUnaryMul2;
+  private Expression myNormalForm;
+  private Expression myNormalForm2;
+  private Expression myType;
+  private NormalizeVisitor myNormalizeVisitor;
+
+  @Setup
+  public void setup() {
+    BenchmarkEnvironment environment = new BenchmarkEnvironment();
+    BenchmarkLibrary library = environment.loadLibrary(BenchmarkSources.arithmetic(1));
+    environment.typecheckLibrary(library);
+
+    myUnaryMul = NormalizationBenchmark.getBody(environment, library, "unaryMul");
+    myUnaryMul2 = NormalizationBenchmark.getBody(environment, library, "unaryMul'");
+    myNormalForm = myUnaryMul.normalize(NormalizationMode.NF);
+    myNormalForm2 = myUnaryMul2.normalize(NormalizationMode.NF);
+    myType = myNormalForm.getType();
+    if (!(myType instanceof DataCallExpression)) {
+      throw new IllegalStateException();
+    }
+    myNormalizeVisitor = new NormalizeVisitor(NormalizeVisitor.Engine.SUBSTITUTION, whnfCache ? new WhnfCache(4096) : null);
+  }
+
+  /**
+   * Compares expressions which are equal only after normalization.
+   */
+  @Benchmark
+  public boolean compareCalls() {
+    return myNormalizeVisitor.run(() -> CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, myUnaryMul, myUnaryMul2, myType, null));
+  }
+
+  /**
+   * Compares large expressions in normal form.
+   */
+  @Benchmark
+  public boolean compareNormalForms() {
+    return myNormalizeVisitor.run(() -> CompareVisitor.compare(DummyEquations.getInstance(), CMP.EQ, myNormalForm, myNormalForm2, myType, null));
+  }
+}
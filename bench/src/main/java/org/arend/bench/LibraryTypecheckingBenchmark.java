@@ -0,0 +1,71 @@
+package org.arend.bench;
+
+import org.arend.ext.module.ModulePath;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads and typechecks synthetic libraries generated by {@link BenchmarkSources#library}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LibraryTypecheckingBenchmark {
+  @Param({"10"})
+  public int modules;
+
+  @Param({"50"})
+  public int definitions;
+
+  private BenchmarkEnvironment myEnvironment;
+  private Map<ModulePath, String> mySources;
+  private BenchmarkLibrary myLibrary;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    myEnvironment = new BenchmarkEnvironment();
+    mySources = BenchmarkSources.library(modules, definitions);
+  }
+
+  /**
+   * A library that is loaded before every invocation.
+   * The library loaded for the previous invocation is unloaded in the same method
+   * since JMH cannot pass the outer state to both a setup and a teardown method of this state.
+   */
+  @State(Scope.Benchmark)
+  public static class LoadedLibrary {
+    BenchmarkLibrary library;
+
+    @Setup(Level.Invocation)
+    public void load(LibraryTypecheckingBenchmark benchmark) {
+      if (library != null) {
+        benchmark.myEnvironment.libraryManager.unloadLibrary(library);
+      }
+      library = benchmark.myEnvironment.loadLibrary(benchmark.mySources);
+    }
+  }
+
+  @TearDown(Level.Invocation)
+  public void unload() {
+    if (myLibrary != null) {
+      myEnvironment.libraryManager.unloadLibrary(myLibrary);
+      myLibrary = null;
+    }
+  }
+
+  @Benchmark
+  public BenchmarkLibrary load() {
+    myLibrary = myEnvironment.loadLibrary(mySources);
+    return myLibrary;
+  }
+
+  @Benchmark
+  public void typecheck(LoadedLibrary loaded) {
+    myEnvironment.typecheckLibrary(loaded.library);
+  }
+}
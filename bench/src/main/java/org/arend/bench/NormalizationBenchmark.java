@@ -0,0 +1,79 @@
+package org.arend.bench;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.WhnfCache;
+import org.arend.ext.core.ops.NormalizationMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NormalizationBenchmark {
+  @Param({"SUBSTITUTION", "ENVIRONMENT"})
+  public NormalizeVisitor.Engine engine;
+
+  @Param({"false", "true"})
+  public boolean whnfCache;
+
+  @Param({"50"})
+  public int caseDepth;
+
+  private Expression myUnaryMul;
+  private Expression myNatArith;
+  private Expression myIntArith;
+  private Expression myDeepCase;
+  private NormalizeVisitor myNormalizeVisitor;
+
+  static Expression getBody(BenchmarkEnvironment environment, BenchmarkLibrary library, String name) {
+    return (Expression) ((FunctionDefinition) environment.getDefinition(library, BenchmarkSources.MODULE, name)).getBody();
+  }
+
+  @Setup
+  public void setup() {
+    BenchmarkEnvironment environment = new BenchmarkEnvironment();
+    BenchmarkLibrary library = environment.loadLibrary(BenchmarkSources.arithmetic(caseDepth));
+    environment.typecheckLibrary(library);
+
+    myUnaryMul = getBody(environment, library, "unaryMul");
+    myNatArith = getBody(environment, library, "natArith");
+    myIntArith = getBody(environment, library, "intArith");
+    myDeepCase = getBody(environment, library, "deepCaseCall");
+    myNormalizeVisitor = new NormalizeVisitor(engine, whnfCache ? new WhnfCache(4096) : null);
+  }
+
+  private Expression normalize(Expression expr, NormalizationMode mode) {
+    return myNormalizeVisitor.run(() -> expr.normalize(mode));
+  }
+
+  @Benchmark
+  public Expression unaryWHNF() {
+    return normalize(myUnaryMul, NormalizationMode.WHNF);
+  }
+
+  @Benchmark
+  public Expression unaryNF() {
+    return normalize(myUnaryMul, NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression natNF() {
+    return normalize(myNatArith, NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression intNF() {
+    return normalize(myIntArith, NormalizationMode.NF);
+  }
+
+  @Benchmark
+  public Expression deepCaseWHNF() {
+    return normalize(myDeepCase, NormalizationMode.WHNF);
+  }
+}
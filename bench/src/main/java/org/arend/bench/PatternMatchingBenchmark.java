@@ -0,0 +1,51 @@
+package org.arend.bench;
+
+import org.arend.ext.module.ModulePath;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typechecks wide pattern matching generated by {@link BenchmarkSources#widePatterns}.
+ * Most of the time is spent in the coverage checking and the compilation of clauses into elimination trees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PatternMatchingBenchmark {
+  @Param({"10", "40"})
+  public int constructors;
+
+  @Param({"4"})
+  public int width;
+
+  private BenchmarkEnvironment myEnvironment;
+  private Map<ModulePath, String> mySources;
+  private BenchmarkLibrary myLibrary;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    myEnvironment = new BenchmarkEnvironment();
+    mySources = BenchmarkSources.widePatterns(constructors, width);
+  }
+
+  @Setup(Level.Invocation)
+  public void load() {
+    myLibrary = myEnvironment.loadLibrary(mySources);
+  }
+
+  @TearDown(Level.Invocation)
+  public void unload() {
+    myEnvironment.libraryManager.unloadLibrary(myLibrary);
+    myLibrary = null;
+  }
+
+  @Benchmark
+  public void typecheck() {
+    myEnvironment.typecheckLibrary(myLibrary);
+  }
+}
@@ -0,0 +1,103 @@
+package org.arend.bench;
+
+import org.arend.core.definition.Definition;
+import org.arend.module.serialization.DeserializationException;
+import org.arend.module.serialization.ModuleDeserialization;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.module.serialization.ModuleSerialization;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.order.dependency.DummyDependencyListener;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializes and deserializes a typechecked module.
+ * Deserialized definitions are recorded in a separate state, so that the state of the environment does not grow.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+  @Param({"50"})
+  public int caseDepth;
+
+  private BenchmarkEnvironment myEnvironment;
+  private BenchmarkLibrary myLibrary;
+  private ChildGroup myGroup;
+  private byte[] myBytes;
+
+  private static class OverlayTypecheckerState implements TypecheckerState {
+    private final TypecheckerState myParent;
+    private final Map<TCReferable, Definition> myTypechecked = new HashMap<>();
+
+    OverlayTypecheckerState(TypecheckerState parent) {
+      myParent = parent;
+    }
+
+    @Override
+    public Definition record(TCReferable def, Definition res) {
+      return myTypechecked.putIfAbsent(def, res);
+    }
+
+    @Override
+    public void rewrite(TCReferable def, Definition res) {
+      myTypechecked.put(def, res);
+    }
+
+    @Override
+    public Definition getTypechecked(TCReferable def) {
+      Definition definition = myTypechecked.get(def);
+      return definition != null ? definition : myParent.getTypechecked(def);
+    }
+
+    @Override
+    public Definition reset(TCReferable def) {
+      return myTypechecked.remove(def);
+    }
+
+    @Override
+    public void reset() {
+      myTypechecked.clear();
+    }
+  }
+
+  @Setup
+  public void setup() {
+    myEnvironment = new BenchmarkEnvironment();
+    myLibrary = myEnvironment.loadLibrary(BenchmarkSources.arithmetic(caseDepth));
+    myEnvironment.typecheckLibrary(myLibrary);
+    myGroup = myLibrary.getModuleGroup(BenchmarkSources.MODULE);
+    myBytes = serialize().toByteArray();
+  }
+
+  private ModuleProtos.Module serialize() {
+    ModuleProtos.Module module = new ModuleSerialization(myEnvironment.typecheckerState, myEnvironment.errorReporter).writeModule(myGroup, BenchmarkSources.MODULE, IdReferableConverter.INSTANCE);
+    if (module == null) {
+      throw new IllegalStateException();
+    }
+    return module;
+  }
+
+  @Benchmark
+  public byte[] write() {
+    return serialize().toByteArray();
+  }
+
+  @Benchmark
+  public ChildGroup read() throws IOException, DeserializationException {
+    ModuleDeserialization deserialization = new ModuleDeserialization(ModuleProtos.Module.parseFrom(myBytes), new OverlayTypecheckerState(myEnvironment.typecheckerState), null);
+    ChildGroup group = deserialization.readGroup(BenchmarkSources.MODULE);
+    deserialization.readModule(myEnvironment.libraryManager.getAvailableModuleScopeProvider(myLibrary), DummyDependencyListener.INSTANCE);
+    return group;
+  }
+}
@@ -0,0 +1,34 @@
+package org.arend.bench;
+
+import org.arend.ext.module.ModulePath;
+import org.arend.frontend.source.StreamRawSource;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class StringRawSource extends StreamRawSource {
+  private final String myText;
+
+  public StringRawSource(ModulePath modulePath, String text) {
+    super(modulePath);
+    myText = text;
+  }
+
+  @NotNull
+  @Override
+  protected InputStream getInputStream() {
+    return new ByteArrayInputStream(myText.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Override
+  public long getTimeStamp() {
+    return 0;
+  }
+
+  @Override
+  public boolean isAvailable() {
+    return true;
+  }
+}
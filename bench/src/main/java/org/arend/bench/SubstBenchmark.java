@@ -0,0 +1,48 @@
+package org.arend.bench;
+
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.expr.Expression;
+import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.sort.Sort;
+import org.arend.core.subst.ExprSubstitution;
+import org.arend.core.subst.LevelSubstitution;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SubstBenchmark {
+  @Param({"50"})
+  public int caseDepth;
+
+  private Expression myBody;
+  private ExprSubstitution mySubstitution;
+  private LevelSubstitution myLevelSubstitution;
+
+  @Setup
+  public void setup() {
+    BenchmarkEnvironment environment = new BenchmarkEnvironment();
+    BenchmarkLibrary library = environment.loadLibrary(BenchmarkSources.arithmetic(caseDepth));
+    environment.typecheckLibrary(library);
+
+    FunctionDefinition definition = (FunctionDefinition) environment.getDefinition(library, BenchmarkSources.MODULE, "deepCase");
+    myBody = (Expression) definition.getBody();
+    mySubstitution = new ExprSubstitution(definition.getParameters(), new SmallIntegerExpression(7));
+    myLevelSubstitution = new Sort(3, 2).toLevelSubstitution();
+  }
+
+  @Benchmark
+  public Expression substExpression() {
+    return myBody.subst(mySubstitution);
+  }
+
+  @Benchmark
+  public Expression substLevels() {
+    return myBody.subst(new ExprSubstitution(), myLevelSubstitution);
+  }
+}
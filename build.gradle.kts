@@ -88,3 +88,8 @@ dependencies {
     testImplementation("junit:junit:4.12")
     testImplementation("org.hamcrest:hamcrest-library:1.3")
 }
+
+// Benchmarks have no tests, but they are compiled with the tests so that they do not go stale
+tasks.test {
+    dependsOn(":bench:classes")
+}
@@ -16,8 +16,9 @@ import org.arend.naming.reference.converter.IdReferableConverter;
 import org.arend.prelude.Prelude;
 import org.arend.prelude.PreludeResourceLibrary;
 import org.arend.term.group.Group;
-import org.arend.typechecking.SimpleTypecheckerState;
+import org.arend.typechecking.ConcurrentTypecheckerState;
 import org.arend.typechecking.TypecheckerState;
+import org.arend.typechecking.computation.TypecheckingProfiler;
 import org.arend.typechecking.doubleChecker.CoreModuleChecker;
 import org.arend.typechecking.error.local.GoalError;
 import org.arend.typechecking.instance.provider.InstanceProviderSet;
@@ -25,8 +26,13 @@ import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.arend.util.FileUtils;
 import org.arend.util.Range;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -35,7 +41,7 @@ import java.util.*;
 
 public abstract class BaseCliFrontend {
   // Typechecking
-  private final TypecheckerState myTypecheckerState = new SimpleTypecheckerState();
+  private final TypecheckerState myTypecheckerState = new ConcurrentTypecheckerState();
   private final ListErrorReporter myErrorReporter = new ListErrorReporter();
   private final Map<ModulePath, GeneralError.Level> myModuleResults = new LinkedHashMap<>();
 
@@ -43,6 +49,9 @@ public abstract class BaseCliFrontend {
   private final FileLibraryResolver myLibraryResolver = new FileLibraryResolver(new ArrayList<>(), myTypecheckerState, System.err::println);
   private final LibraryManager myLibraryManager = new MyLibraryManager();
 
+  private static final int PROFILE_REPORT_SIZE = 20;
+  private static final String DAEMON_READY = "--- Ready ---";
+
   private static String timeToString(long time) {
     if (time < 10000) {
       return time + "ms";
@@ -87,18 +96,67 @@ public abstract class BaseCliFrontend {
 
 
   private class MyTypechecking extends TypecheckingOrderingListener {
-    MyTypechecking() {
+    private final TypecheckingProfiler myProfiler;
+
+    MyTypechecking(TypecheckingProfiler profiler) {
       super(myLibraryManager.getInstanceProviderSet(), myTypecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, myErrorReporter, PositionComparator.INSTANCE);
+      myProfiler = profiler;
+    }
+
+    @Override
+    public void typecheckingHeaderStarted(TCReferable definition) {
+      if (myProfiler != null) {
+        myProfiler.typecheckingStarted(definition, TypecheckingProfiler.Category.HEADER);
+      }
+    }
+
+    @Override
+    public void typecheckingBodyStarted(TCReferable definition) {
+      if (myProfiler != null) {
+        myProfiler.typecheckingStarted(definition, TypecheckingProfiler.Category.BODY);
+      }
+    }
+
+    @Override
+    public void typecheckingUnitStarted(TCReferable definition) {
+      if (myProfiler != null) {
+        // DefinitionTypechecker switches to the body when the header of a function or a data type is finished
+        myProfiler.typecheckingStarted(definition, TypecheckingProfiler.Category.HEADER);
+      }
+    }
+
+    @Override
+    public void typecheckingHeaderFinished(TCReferable referable, Definition definition) {
+      if (myProfiler != null) {
+        myProfiler.typecheckingFinished(referable);
+      }
     }
 
     @Override
     public void typecheckingBodyFinished(TCReferable referable, Definition definition) {
-      flushErrors();
+      if (myProfiler != null) {
+        myProfiler.typecheckingFinished(referable);
+      }
+      if (getThreads() == 1) {
+        flushErrors();
+      }
     }
 
     @Override
     public void typecheckingUnitFinished(TCReferable referable, Definition definition) {
-      flushErrors();
+      if (myProfiler != null) {
+        myProfiler.typecheckingFinished(referable);
+      }
+      if (getThreads() == 1) {
+        flushErrors();
+      }
+    }
+
+    @Override
+    public void typecheckingInterrupted(TCReferable definition, @Nullable Definition typechecked) {
+      if (myProfiler != null) {
+        myProfiler.typecheckingFinished(definition);
+      }
     }
   }
 
@@ -113,7 +171,14 @@ public abstract class BaseCliFrontend {
       cmdOptions.addOption(Option.builder("e").longOpt("extensions").hasArg().argName("dir").desc("language extensions directory").build());
       cmdOptions.addOption(Option.builder("m").longOpt("extension-main").hasArg().argName("class").desc("main extension class").build());
       cmdOptions.addOption(Option.builder().longOpt("recompile").desc("recompile files").build());
+      cmdOptions.addOption(Option.builder().longOpt("uncompressed").desc("persist binary files without compression and memory-map them on loading").build());
+      cmdOptions.addOption(Option.builder().longOpt("incremental").desc("recompile only changed definitions and their dependents").build());
       cmdOptions.addOption(Option.builder().longOpt("double-check").desc("double check correctness of the result").build());
+      cmdOptions.addOption(Option.builder().longOpt("check-binaries").desc("double check definitions loaded from binary files without typechecking modules").build());
+      cmdOptions.addOption(Option.builder().longOpt("profile").desc("print the slowest definitions").build());
+      cmdOptions.addOption(Option.builder().longOpt("profile-output").hasArg().argName("file").desc("write typechecking times of definitions to a .json or .csv file").build());
+      cmdOptions.addOption(Option.builder().longOpt("daemon").desc("keep libraries loaded and typecheck changed modules on commands from the standard input").build());
+      cmdOptions.addOption(Option.builder("j").longOpt("jobs").hasArg().argName("n").desc("number of threads used for loading and typechecking").build());
       cmdOptions.addOption("v", "version", false, "print language version");
       addCommandOptions(cmdOptions);
       CommandLine cmdLine = new DefaultParser().parse(cmdOptions, args);
@@ -236,75 +301,238 @@ public abstract class BaseCliFrontend {
       return cmdLine;
     }
 
-    MyTypechecking typechecking = new MyTypechecking();
+    String profileOutput = cmdLine.getOptionValue("profile-output");
+    TypecheckingProfiler profiler = cmdLine.hasOption("profile") || profileOutput != null ? new TypecheckingProfiler() : null;
+    TypecheckingProfiler.setProfiler(profiler);
+    MyTypechecking typechecking = new MyTypechecking(profiler);
+    String jobsStr = cmdLine.getOptionValue("j");
+    if (jobsStr != null) {
+      try {
+        int jobs = Integer.parseInt(jobsStr);
+        if (jobs < 1) {
+          throw new NumberFormatException();
+        }
+        typechecking.setThreads(jobs);
+        myLibraryManager.setLoadingThreads(jobs);
+      } catch (NumberFormatException e) {
+        System.err.println("[ERROR] Illegal number of jobs: " + jobsStr);
+      }
+    }
     boolean recompile = cmdLine.hasOption("recompile");
+    boolean incremental = cmdLine.hasOption("incremental");
+    boolean uncompressed = cmdLine.hasOption("uncompressed");
     boolean doubleCheck = cmdLine.hasOption("double-check");
+    boolean checkBinaries = cmdLine.hasOption("check-binaries");
     for (UnmodifiableSourceLibrary library : requestedLibraries) {
-      myModuleResults.clear();
       if (recompile) {
         library.addFlag(SourceLibrary.Flag.RECOMPILE);
       }
+      if (incremental) {
+        library.addFlag(SourceLibrary.Flag.INCREMENTAL);
+      }
+      if (uncompressed) {
+        library.addFlag(SourceLibrary.Flag.UNCOMPRESSED);
+      }
       if (!myLibraryManager.loadLibrary(library, typechecking)) {
         continue;
       }
 
-      Collection<? extends ModulePath> modules = library.getUpdatedModules();
-      if (modules.isEmpty()) {
-        continue;
+      if (checkBinaries) {
+        checkBinaries(library, typechecking.getThreads());
+      } else {
+        typecheckLibrary(library, typechecking, doubleCheck);
       }
+    }
 
-      System.out.println("--- Typechecking " + library.getName() + " ---");
-      long time = System.currentTimeMillis();
-      typechecking.typecheckLibrary(library);
-      time = System.currentTimeMillis() - time;
-      flushErrors();
-
-      // Output nice per-module typechecking results
-      int numWithErrors = 0;
-      int numWithGoals = 0;
-      for (ModulePath module : modules) {
-        GeneralError.Level result = myModuleResults.get(module);
-        if (result == null && library.getModuleGroup(module) == null) {
-          result = GeneralError.Level.ERROR;
-        }
-        reportTypeCheckResult(module, result);
-        if (result == GeneralError.Level.ERROR) numWithErrors++;
-        if (result == GeneralError.Level.GOAL) numWithGoals++;
+    if (profiler != null) {
+      TypecheckingProfiler.setProfiler(null);
+      if (cmdLine.hasOption("profile")) {
+        System.out.println("--- Slowest definitions ---");
+        profiler.printReport(System.out, PROFILE_REPORT_SIZE);
       }
-
-      if (numWithErrors > 0) {
-        System.out.println("Number of modules with errors: " + numWithErrors);
+      if (profileOutput != null) {
+        writeProfile(profiler, Paths.get(profileOutput));
       }
-      if (numWithGoals > 0) {
-        System.out.println("Number of modules with goals: " + numWithGoals);
+    }
+
+    if (cmdLine.hasOption("daemon")) {
+      runDaemon(requestedLibraries, typechecking, doubleCheck);
+    }
+
+    return cmdLine;
+  }
+
+  private void typecheckLibrary(UnmodifiableSourceLibrary library, MyTypechecking typechecking, boolean doubleCheck) {
+    myModuleResults.clear();
+    Collection<? extends ModulePath> modules = new ArrayList<>(library.getUpdatedModules());
+    if (modules.isEmpty()) {
+      return;
+    }
+
+    System.out.println("--- Typechecking " + library.getName() + " ---");
+    long time = System.currentTimeMillis();
+    typechecking.typecheckLibrary(library);
+    time = System.currentTimeMillis() - time;
+    flushErrors();
+
+    // Output nice per-module typechecking results
+    int numWithErrors = 0;
+    int numWithGoals = 0;
+    for (ModulePath module : modules) {
+      GeneralError.Level result = myModuleResults.get(module);
+      if (result == null && library.getModuleGroup(module) == null) {
+        result = GeneralError.Level.ERROR;
       }
-      System.out.println("--- Done (" + timeToString(time) + ") ---");
+      reportTypeCheckResult(module, result);
+      if (result == GeneralError.Level.ERROR) numWithErrors++;
+      if (result == GeneralError.Level.GOAL) numWithGoals++;
+    }
+
+    if (numWithErrors > 0) {
+      System.out.println("Number of modules with errors: " + numWithErrors);
+    }
+    if (numWithGoals > 0) {
+      System.out.println("Number of modules with goals: " + numWithGoals);
+    }
+    System.out.println("--- Done (" + timeToString(time) + ") ---");
+
+    // Persist updated modules
+    if (library.supportsPersisting()) {
+      library.persistUpdateModules(System.err::println);
+    }
+    library.clearUpdateModules();
 
-      // Persist updated modules
-      if (library.supportsPersisting()) {
-        library.persistUpdateModules(System.err::println);
-        library.clearUpdateModules();
+    if (doubleCheck && numWithErrors == 0) {
+      doubleCheckLibrary(library, typechecking.getThreads());
+    }
+  }
+
+  private void doubleCheckLibrary(UnmodifiableSourceLibrary library, int threads) {
+    System.out.println("--- Checking " + library.getName() + " ---");
+    long time = System.currentTimeMillis();
+
+    List<Group> groups = new ArrayList<>();
+    for (ModulePath module : library.getLoadedModules()) {
+      Group group = library.getModuleGroup(module);
+      if (group != null) {
+        groups.add(group);
       }
+    }
+    new CoreModuleChecker(myErrorReporter, myTypecheckerState).checkGroups(groups, threads);
 
-      if (doubleCheck && numWithErrors == 0) {
-        System.out.println("--- Checking " + library.getName() + " ---");
-        time = System.currentTimeMillis();
+    time = System.currentTimeMillis() - time;
+    flushErrors();
+    System.out.println("--- Done (" + timeToString(time) + ") ---");
+  }
 
-        CoreModuleChecker checker = new CoreModuleChecker(myErrorReporter, myTypecheckerState);
-        for (ModulePath module : library.getLoadedModules()) {
-          Group group = library.getModuleGroup(module);
-          if (group != null) {
-            checker.checkGroup(group);
+  /**
+   * Double checks definitions of a library that were loaded from binary files.
+   * Modules that were not loaded from binary files are not typechecked and reported instead.
+   */
+  private void checkBinaries(UnmodifiableSourceLibrary library, int threads) {
+    Collection<? extends ModulePath> modules = library.getUpdatedModules();
+    for (ModulePath module : modules) {
+      System.out.println("[WARN] " + module + ": not loaded from a binary file");
+    }
+    if (!modules.isEmpty()) {
+      System.out.println("Number of modules without binary files: " + modules.size());
+    }
+    doubleCheckLibrary(library, threads);
+  }
+
+  /**
+   * Reads commands from the standard input until it is closed or the {@code quit} command is received.
+   * The command {@code check [MODULES]} reloads modules that changed since the last check together with modules importing them
+   * and typechecks them; given modules are loaded if they were not loaded before.
+   * Every command is followed by a line {@code --- Ready ---}.
+   */
+  private void runDaemon(List<UnmodifiableSourceLibrary> libraries, MyTypechecking typechecking, boolean doubleCheck) {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+    while (true) {
+      System.out.println(DAEMON_READY);
+      System.out.flush();
+
+      String line;
+      try {
+        line = reader.readLine();
+      } catch (IOException e) {
+        System.err.println("[ERROR] Cannot read a command: " + e.getMessage());
+        return;
+      }
+      if (line == null) {
+        return;
+      }
+
+      List<String> words = new ArrayList<>(Arrays.asList(line.trim().split("\\s+")));
+      String command = words.remove(0);
+      switch (command) {
+        case "":
+          break;
+        case "quit":
+          return;
+        case "check": {
+          List<ModulePath> newModules = new ArrayList<>();
+          for (String word : words) {
+            ModulePath modulePath = FileUtils.modulePath(word);
+            if (modulePath == null) {
+              myLibraryManager.getLibraryErrorReporter().report(FileUtils.illegalModuleName(word));
+            } else {
+              newModules.add(modulePath);
+            }
           }
+          typecheckChangedModules(libraries, newModules, typechecking, doubleCheck);
+          break;
         }
+        default:
+          System.err.println("[ERROR] Unknown command: " + command);
+      }
+    }
+  }
 
-        time = System.currentTimeMillis() - time;
-        flushErrors();
-        System.out.println("--- Done (" + timeToString(time) + ") ---");
+  /**
+   * Reloads changed modules of all loaded libraries, including dependencies of requested libraries, and typechecks them.
+   * Libraries are reloaded after their dependencies, so modules that import reloaded modules of other libraries are reloaded too.
+   */
+  private void typecheckChangedModules(List<UnmodifiableSourceLibrary> libraries, List<ModulePath> newModules, MyTypechecking typechecking, boolean doubleCheck) {
+    Map<SourceLibrary, Set<ModulePath>> changedModules = new LinkedHashMap<>(myLibraryManager.getChangedModules());
+    for (UnmodifiableSourceLibrary library : libraries) {
+      if (!library.isLoaded()) {
+        continue;
+      }
+      for (ModulePath module : newModules) {
+        if (library.getModuleGroup(module) == null && library.containsModule(module)) {
+          changedModules.computeIfAbsent(library, k -> new LinkedHashSet<>()).add(module);
+        }
       }
     }
 
-    return cmdLine;
+    for (Map.Entry<SourceLibrary, Set<ModulePath>> entry : changedModules.entrySet()) {
+      SourceLibrary library = entry.getKey();
+      Set<ModulePath> modules = entry.getValue();
+
+      System.out.println("[INFO] Reloading " + modules.size() + " module" + (modules.size() == 1 ? "" : "s") + " of library " + library.getName());
+      boolean reloaded = library.reloadModules(modules, myLibraryManager);
+      flushErrors();
+      if (!reloaded) {
+        System.out.println("[INFO] Reloading of library " + library.getName() + " was interrupted");
+        return;
+      }
+      if (library instanceof UnmodifiableSourceLibrary) {
+        typecheckLibrary((UnmodifiableSourceLibrary) library, typechecking, doubleCheck);
+      }
+    }
+  }
+
+  private static void writeProfile(TypecheckingProfiler profiler, Path path) {
+    try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(path))) {
+      if (path.toString().toLowerCase(Locale.ROOT).endsWith(".csv")) {
+        profiler.writeCsv(writer);
+      } else {
+        profiler.writeJson(writer);
+      }
+    } catch (IOException e) {
+      System.err.println("[ERROR] Cannot write the profile to " + path + ": " + e.getMessage());
+    }
   }
 
   private void flushErrors() {
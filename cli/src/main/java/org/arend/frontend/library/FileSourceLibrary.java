@@ -8,7 +8,6 @@ import org.arend.library.LibraryHeader;
 import org.arend.library.UnmodifiableSourceLibrary;
 import org.arend.source.BinarySource;
 import org.arend.source.FileBinarySource;
-import org.arend.source.GZIPStreamBinarySource;
 import org.arend.source.Source;
 import org.arend.typechecking.TypecheckerState;
 import org.arend.util.Range;
@@ -72,7 +71,7 @@ public class FileSourceLibrary extends UnmodifiableSourceLibrary {
   @Nullable
   @Override
   public BinarySource getBinarySource(ModulePath modulePath) {
-    return myBinaryBasePath == null ? null : new GZIPStreamBinarySource(new FileBinarySource(myBinaryBasePath, modulePath));
+    return myBinaryBasePath == null ? null : new FileBinarySource(myBinaryBasePath, modulePath, !hasFlag(Flag.UNCOMPRESSED));
   }
 
   @Nullable
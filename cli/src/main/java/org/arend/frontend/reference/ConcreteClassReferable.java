@@ -23,14 +23,12 @@ public class ConcreteClassReferable extends ConcreteLocatedReferable implements
   private final ChildGroup myGroup;
   private final Collection<? extends ConcreteClassFieldReferable> myFields;
   private final List<? extends Reference> myUnresolvedSuperClasses;
-  private final List<TCClassReferable> mySuperClasses;
-  private boolean myResolved = false;
+  private volatile List<TCClassReferable> mySuperClasses;
 
   public ConcreteClassReferable(Position position, @NotNull String name, Precedence precedence, Collection<? extends ConcreteClassFieldReferable> fields, List<? extends Reference> superClasses, ChildGroup group, TCReferable parent) {
     super(position, name, precedence, parent, Kind.TYPECHECKABLE);
     myFields = fields;
     myUnresolvedSuperClasses = superClasses;
-    mySuperClasses = new ArrayList<>(superClasses.size());
     myGroup = group;
   }
 
@@ -38,7 +36,6 @@ public class ConcreteClassReferable extends ConcreteLocatedReferable implements
     super(position, name, precedence, parent, Kind.TYPECHECKABLE);
     myFields = fields;
     myUnresolvedSuperClasses = superClasses;
-    mySuperClasses = new ArrayList<>(superClasses.size());
     myGroup = group;
   }
 
@@ -54,25 +51,33 @@ public class ConcreteClassReferable extends ConcreteLocatedReferable implements
       return Collections.emptyList();
     }
 
-    resolve();
-    return mySuperClasses;
+    List<TCClassReferable> superClasses = mySuperClasses;
+    return superClasses != null ? superClasses : resolve();
   }
 
-  protected void resolve() {
-    if (!myResolved) {
-      resolve(CachingScope.make(myGroup.getGroupScope()));
-      myResolved = true;
+  /**
+   * Resolves references to super classes once.
+   * Other modules may ask for super classes while names are resolved concurrently,
+   * so the list is published only when it is complete and it is never modified afterwards.
+   */
+  protected synchronized List<TCClassReferable> resolve() {
+    List<TCClassReferable> superClasses = mySuperClasses;
+    if (superClasses == null) {
+      superClasses = resolve(CachingScope.make(myGroup.getGroupScope()));
+      mySuperClasses = superClasses;
     }
+    return superClasses;
   }
 
-  protected void resolve(Scope scope) {
-    mySuperClasses.clear();
+  protected List<TCClassReferable> resolve(Scope scope) {
+    List<TCClassReferable> superClasses = new ArrayList<>(myUnresolvedSuperClasses.size());
     for (Reference superClass : myUnresolvedSuperClasses) {
       Referable ref = ExpressionResolveNameVisitor.resolve(superClass.getReferent(), scope, true, null);
       if (ref instanceof TCClassReferable) {
-        mySuperClasses.add((TCClassReferable) ref);
+        superClasses.add((TCClassReferable) ref);
       }
     }
+    return Collections.unmodifiableList(superClasses);
   }
 
   @NotNull
@@ -87,6 +92,10 @@ public class ConcreteClassReferable extends ConcreteLocatedReferable implements
     return myFields;
   }
 
+  /**
+   * Implemented fields are resolved by the first pass of {@link org.arend.naming.resolving.visitor.DefinitionResolveNameVisitor},
+   * which does not run concurrently, so they do not change while other modules read them.
+   */
   @NotNull
   @Override
   public Collection<? extends Referable> getImplementedFields() {
@@ -1,32 +1,46 @@
 package org.arend.frontend.source;
 
 import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Interval;
 import org.arend.error.CompositeErrorReporter;
 import org.arend.error.CountingErrorReporter;
+import org.arend.error.ListErrorReporter;
 import org.arend.ext.error.ErrorReporter;
 import org.arend.ext.module.ModulePath;
 import org.arend.frontend.ConcreteReferableProvider;
 import org.arend.frontend.parser.*;
 import org.arend.library.SourceLibrary;
 import org.arend.module.error.ExceptionError;
+import org.arend.naming.reference.LocatedReferable;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.resolving.visitor.DefinitionResolveNameVisitor;
 import org.arend.naming.scope.CachingScope;
 import org.arend.naming.scope.ScopeFactory;
-import org.arend.source.Source;
+import org.arend.source.ParsableSource;
+import org.arend.source.SourceHash;
 import org.arend.source.SourceLoader;
 import org.arend.term.NamespaceCommand;
+import org.arend.term.concrete.Concrete;
 import org.arend.term.group.FileGroup;
+import org.arend.term.group.Group;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Represents a source that loads a raw module from an {@link InputStream}.
  */
-public abstract class StreamRawSource implements Source {
+public abstract class StreamRawSource implements ParsableSource {
   private final ModulePath myModulePath;
   private FileGroup myGroup;
+  private boolean myIOFailure;
+  private long myHash;
+  private ListErrorReporter myParsingErrors;
   private byte myPass = 0;
 
   protected StreamRawSource(ModulePath modulePath) {
@@ -47,13 +61,12 @@ public abstract class StreamRawSource implements Source {
   @NotNull
   protected abstract InputStream getInputStream() throws IOException;
 
-  @Override
-  public boolean preload(SourceLoader sourceLoader) {
-    SourceLibrary library = sourceLoader.getLibrary();
+  private void parse(ErrorReporter errorReporter) {
     ModulePath modulePath = getModulePath();
-    ErrorReporter errorReporter = sourceLoader.getTypecheckingErrorReporter();
     CountingErrorReporter countingErrorReporter = new CountingErrorReporter();
     final CompositeErrorReporter compositeErrorReporter = new CompositeErrorReporter(errorReporter, countingErrorReporter);
+    myGroup = null;
+    myIOFailure = false;
 
     try {
       BaseErrorListener errorListener = new BaseErrorListener() {
@@ -63,7 +76,9 @@ public abstract class StreamRawSource implements Source {
         }
       };
 
-      ArendLexer lexer = new ArendLexer(CharStreams.fromStream(getInputStream()));
+      CharStream stream = CharStreams.fromStream(getInputStream());
+      myHash = SourceHash.hash(stream.getText(Interval.of(0, stream.size() - 1)));
+      ArendLexer lexer = new ArendLexer(stream);
       lexer.removeErrorListeners();
       lexer.addErrorListener(errorListener);
 
@@ -73,33 +88,88 @@ public abstract class StreamRawSource implements Source {
 
       ArendParser.StatementsContext tree = parser.statements();
       if (countingErrorReporter.getErrorsNumber() > 0) {
-        return false;
+        return;
       }
 
       myGroup = new BuildVisitor(modulePath, errorReporter).visitStatements(tree);
-      library.onGroupLoaded(modulePath, myGroup, true);
-
-      for (NamespaceCommand command : myGroup.getNamespaceCommands()) {
-        if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
-          ModulePath module = new ModulePath(command.getPath());
-          if (library.containsModule(module) && !sourceLoader.preloadRaw(module)) {
-            library.onGroupLoaded(modulePath, null, true);
-            myGroup = null;
-            return false;
-          }
-        }
-      }
-
-      return true;
     } catch (IOException e) {
       errorReporter.report(new ExceptionError(e, "loading", modulePath));
-      library.onGroupLoaded(modulePath, null, true);
+      myIOFailure = true;
+    }
+  }
+
+  @Override
+  public void parse() {
+    myParsingErrors = new ListErrorReporter();
+    parse(myParsingErrors);
+  }
+
+  @NotNull
+  @Override
+  public Collection<? extends ModulePath> getImportedModules() {
+    if (myGroup == null) {
+      return Collections.emptyList();
+    }
+
+    List<ModulePath> modules = new ArrayList<>();
+    for (NamespaceCommand command : myGroup.getNamespaceCommands()) {
+      if (command.getKind() == NamespaceCommand.Kind.IMPORT) {
+        modules.add(new ModulePath(command.getPath()));
+      }
+    }
+    return modules;
+  }
+
+  @Override
+  public boolean preload(SourceLoader sourceLoader) {
+    SourceLibrary library = sourceLoader.getLibrary();
+    ModulePath modulePath = getModulePath();
+    // The source may be loaded again when the library reloads modules, so names must be resolved from scratch
+    myPass = 0;
+    if (myParsingErrors != null) {
+      myParsingErrors.reportTo(sourceLoader.getTypecheckingErrorReporter());
+      myParsingErrors = null;
+    } else {
+      parse(sourceLoader.getTypecheckingErrorReporter());
+    }
+
+    if (myGroup == null) {
+      if (myIOFailure) {
+        library.onGroupLoaded(modulePath, null, true);
+      }
       return false;
     }
+
+    library.onGroupLoaded(modulePath, myGroup, true);
+    Collection<? extends ModulePath> importedModules = getImportedModules();
+    library.recordModuleHash(modulePath, myHash, importedModules);
+    for (ModulePath module : importedModules) {
+      if (library.containsModule(module) && !sourceLoader.preloadRaw(module)) {
+        library.onGroupLoaded(modulePath, null, true);
+        myGroup = null;
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * The first pass resolves references to type classes and rewrites the corresponding expressions in place,
+   * while other modules may read them, so only the second pass is concurrent.
+   */
+  @Override
+  public boolean isNextPassConcurrent() {
+    return myGroup != null && myPass == 2;
   }
 
   @Override
   public LoadResult load(SourceLoader sourceLoader) {
+    return load(sourceLoader, sourceLoader.getTypecheckingErrorReporter());
+  }
+
+  @Override
+  public LoadResult load(SourceLoader sourceLoader, ErrorReporter errorReporter) {
     if (myGroup == null) {
       return LoadResult.FAIL;
     }
@@ -110,12 +180,39 @@ public abstract class StreamRawSource implements Source {
       return LoadResult.CONTINUE;
     }
 
-    new DefinitionResolveNameVisitor(ConcreteReferableProvider.INSTANCE, myPass == 1, sourceLoader.getTypecheckingErrorReporter()).resolveGroup(myGroup, null, myGroup.getGroupScope());
-    if (myPass == 1) {
-      myPass = 2;
+    if (myPass != 3) {
+      new DefinitionResolveNameVisitor(ConcreteReferableProvider.INSTANCE, myPass == 1, errorReporter).resolveGroup(myGroup, null, myGroup.getGroupScope());
+      myPass++;
       return LoadResult.CONTINUE;
     }
     sourceLoader.getInstanceProviderSet().collectInstances(myGroup, CachingScope.make(ScopeFactory.parentScopeForGroup(myGroup, sourceLoader.getModuleScopeProvider(), true)), ConcreteReferableProvider.INSTANCE, null);
+    SourceLibrary library = sourceLoader.getLibrary();
+    library.recordSignatureHash(getModulePath(), recordSourceHashes(library, myGroup, SourceHash.hash("")));
     return LoadResult.SUCCESS;
   }
+
+  /**
+   * Records hashes of definitions of a group.
+   *
+   * @return the hash of signatures of these definitions combined with {@code signatureHash}.
+   */
+  private static long recordSourceHashes(SourceLibrary library, Group group, long signatureHash) {
+    LocatedReferable referable = group.getReferable();
+    if (referable instanceof TCReferable) {
+      Concrete.ReferableDefinition definition = ConcreteReferableProvider.INSTANCE.getConcrete(referable);
+      if (definition instanceof Concrete.Definition) {
+        long hash = SourceHash.hash((Concrete.Definition) definition);
+        library.recordSourceHash((TCReferable) referable, hash);
+        signatureHash = SourceHash.combine(signatureHash, SourceHash.hashSignature((Concrete.Definition) definition, hash));
+      }
+    }
+
+    for (Group subgroup : group.getSubgroups()) {
+      signatureHash = recordSourceHashes(library, subgroup, signatureHash);
+    }
+    for (Group subgroup : group.getDynamicSubgroups()) {
+      signatureHash = recordSourceHashes(library, subgroup, signatureHash);
+    }
+    return signatureHash;
+  }
 }
@@ -39,11 +39,15 @@ public abstract class ArendTestCase {
   protected Library preludeLibrary;
   protected ModuleScopeProvider moduleScopeProvider;
 
-  protected final TypecheckerState typecheckerState = new SimpleTypecheckerState();
+  protected final TypecheckerState typecheckerState = createTypecheckerState();
   protected final List<GeneralError> errorList = new ArrayList<>();
   protected final ListErrorReporter errorReporter = new ListErrorReporter(errorList);
   protected final TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(new InstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE);
 
+  protected TypecheckerState createTypecheckerState() {
+    return new SimpleTypecheckerState();
+  }
+
   @Before
   public void loadPrelude() {
     libraryManager = new LibraryManager((lib,name) -> { throw new IllegalStateException(); }, new InstanceProviderSet(), errorReporter, errorReporter);
@@ -3,19 +3,19 @@ package org.arend.classes;
 import org.arend.core.definition.ClassDefinition;
 import org.arend.core.definition.ClassField;
 import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.definition.UniverseKind;
 import org.arend.core.expr.*;
 import org.arend.core.sort.Sort;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
-import java.util.Collections;
+import java.util.*;
 
 import static org.arend.Matchers.*;
 import static org.arend.core.expr.ExpressionFactory.Suc;
 import static org.arend.core.expr.ExpressionFactory.Zero;
-import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.*;
 
 public class ExtensionsTest extends TypeCheckingTestCase {
   @Test
@@ -430,4 +430,32 @@ public class ExtensionsTest extends TypeCheckingTestCase {
       "  | y : X\n" +
       "\\func test (d : D) => d.x = {d.X} y");
   }
+
+  @Test
+  public void implementationMapTest() {
+    typeCheckModule(
+      "\\class A { | x : Nat | y : Nat }\n" +
+      "\\class B \\extends A { | z : Nat }\n" +
+      "\\class C { | w : Nat }");
+    ClassDefinition classDef = (ClassDefinition) getDefinition("B");
+    ClassField x = (ClassField) getDefinition("A.x");
+    ClassField y = (ClassField) getDefinition("A.y");
+    ClassField z = (ClassField) getDefinition("B.z");
+    ClassField w = (ClassField) getDefinition("C.w");
+
+    Map<ClassField, Expression> implementations = new ImplementationMap(classDef);
+    ClassCallExpression classCall = new ClassCallExpression(classDef, Sort.STD, implementations, Sort.PROP, UniverseKind.NO_UNIVERSES);
+    implementations.put(z, Zero());
+    implementations.put(w, Zero());
+    implementations.put(x, Suc(Zero()));
+    assertEquals(Arrays.asList(x, z, w), new ArrayList<>(classCall.getImplementedHere().keySet()));
+    assertEquals(Suc(Zero()), classCall.getAbsImplementationHere(x));
+    assertTrue(classCall.isImplemented(z));
+    assertFalse(classCall.isImplemented(y));
+
+    implementations.remove(x);
+    assertFalse(classCall.isImplemented(x));
+    assertEquals(2, classCall.getImplementedHere().size());
+    assertEquals(new HashMap<>(implementations), new ImplementationMap(classDef, implementations));
+  }
 }
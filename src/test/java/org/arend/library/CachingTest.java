@@ -1,14 +1,29 @@
 package org.arend.library;
 
+import org.arend.core.definition.ClassDefinition;
+import org.arend.core.definition.DataDefinition;
 import org.arend.core.definition.Definition;
+import org.arend.core.definition.FunctionDefinition;
+import org.arend.core.elimtree.Body;
+import org.arend.core.elimtree.BranchElimTree;
+import org.arend.core.elimtree.ElimBody;
+import org.arend.core.expr.FunCallExpression;
 import org.arend.ext.module.ModulePath;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.module.serialization.ModuleProtos;
+import org.arend.naming.reference.TCReferable;
 import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.naming.scope.Scope;
 import org.arend.source.Source;
 import org.arend.term.group.ChildGroup;
 import org.arend.term.group.Group;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
 import org.junit.Test;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.arend.Matchers.goal;
@@ -46,6 +61,89 @@ public class CachingTest extends LibraryTestCase {
     assertThat(typecheckerState.getTypechecked(get(aClass.getGroupScope(), "b2")), is(nullValue()));
   }
 
+  @Test
+  public void superClassesSerialization() {
+    library.addModule(new ModulePath("A"),
+        "\\class D \\extends C\n" +
+        "\\class C \\extends B\n" +
+        "\\class B \\extends A\n" +
+        "\\class A\n" +
+        "\\class E");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    assertTrue(libraryManager.loadLibrary(library, null));
+    ChildGroup aGroup = library.getModuleGroup(new ModulePath("A"));
+    assertThat(aGroup, is(notNullValue()));
+    ClassDefinition classA = (ClassDefinition) typecheckerState.getTypechecked(get(aGroup.getGroupScope(), "A"));
+    ClassDefinition classC = (ClassDefinition) typecheckerState.getTypechecked(get(aGroup.getGroupScope(), "C"));
+    ClassDefinition classD = (ClassDefinition) typecheckerState.getTypechecked(get(aGroup.getGroupScope(), "D"));
+    ClassDefinition classE = (ClassDefinition) typecheckerState.getTypechecked(get(aGroup.getGroupScope(), "E"));
+    assertTrue(classD.isSubClassOf(classA));
+    assertTrue(classD.isSubClassOf(classC));
+    assertTrue(classC.isSubClassOf(classA));
+    assertFalse(classA.isSubClassOf(classD));
+    assertFalse(classD.isSubClassOf(classE));
+  }
+
+  @Test
+  public void elimTreeSerialization() {
+    library.addModule(new ModulePath("A"),
+        "\\data Color | red | green | blue\n" +
+        "\\func f (c : Color) : Nat | red => 0 | green => 1 | blue => 2\n" +
+        "\\func g (c : Color) (n : Nat) : Nat | blue, suc n => n | _, _ => 7");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.addModule(new ModulePath("B"),
+        "\\import A\n" +
+        "\\func t1 : f blue = 2 => idp\n" +
+        "\\func t2 : g blue 3 = 2 => idp\n" +
+        "\\func t3 : g red 3 = 7 => idp");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    ChildGroup aGroup = library.getModuleGroup(new ModulePath("A"));
+    assertThat(aGroup, is(notNullValue()));
+    DataDefinition color = (DataDefinition) typecheckerState.getTypechecked(get(aGroup.getGroupScope(), "Color"));
+    FunctionDefinition f = (FunctionDefinition) typecheckerState.getTypechecked(get(aGroup.getGroupScope(), "f"));
+    BranchElimTree elimTree = (BranchElimTree) ((ElimBody) f.getBody()).getElimTree();
+    assertEquals(3, elimTree.getNumberOfChildren());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, color.getConstructors().get(i).getIndex());
+      assertThat(elimTree.getChild(color.getConstructors().get(i)), is(notNullValue()));
+    }
+
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, is(empty()));
+  }
+
+  @Test
+  public void importHashNames() throws IOException {
+    library.addModule(new ModulePath("Data", "A"), "\\func a => 0");
+    library.addModule(new ModulePath("B"), "\\import Data.A \\func b => a");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+
+    ModuleProtos.Module module = ModuleProtos.Module.parseFrom(((MemoryBinarySource) library.getBinarySource(new ModulePath("B"))).getInputStream());
+    assertEquals(1, module.getImportHashCount());
+    List<String> names = new ArrayList<>();
+    for (Integer index : module.getImportHash(0).getNameList()) {
+      names.add(module.getStringTable(index));
+    }
+    assertEquals(Arrays.asList("Data", "A"), names);
+    libraryManager.unloadLibrary(library);
+
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(library.getUpdatedModules(), is(empty()));
+  }
+
   @Test
   public void circularDependencies() {
     library.addModule(new ModulePath("A"), "\\import B() \\func a (n : Nat) : Nat | zero => zero | suc n => B.b n");
@@ -163,6 +261,230 @@ public class CachingTest extends LibraryTestCase {
     assertThat(errorList, is(empty()));
   }
 
+  @Test
+  public void lazyBody() {
+    library.addModule(new ModulePath("A"),
+      "\\func f (n : Nat) : Nat \\elim n\n" +
+      "  | 0 => 1\n" +
+      "  | suc n => suc (f n)\n" +
+      "\\lemma p : f 0 = 1 => idp");
+    library.addModule(new ModulePath("B"), "\\import A \\func g : f 2 = 3 => idp");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("B"), "\\import A \\func g : f 3 = 4 => idp", false);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, is(empty()));
+
+    Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+    assertThat(scope, is(notNullValue()));
+    Definition f = typecheckerState.getTypechecked(get(scope, "f"));
+    assertThat(f, instanceOf(FunctionDefinition.class));
+    // The body of f is evaluated when g is typechecked
+    assertTrue(((FunctionDefinition) f).isBodyLoaded());
+    assertThat(((FunctionDefinition) f).getBody(), is(notNullValue()));
+    Definition p = typecheckerState.getTypechecked(get(scope, "p"));
+    assertThat(p, instanceOf(FunctionDefinition.class));
+    assertFalse(((FunctionDefinition) p).isBodyLoaded());
+    assertThat(((FunctionDefinition) p).getActualBody(), is(notNullValue()));
+    assertTrue(((FunctionDefinition) p).isBodyLoaded());
+  }
+
+  @Test
+  public void sourceTouched() {
+    library.addModule(new ModulePath("A"), "\\func a => 0");
+    library.addModule(new ModulePath("B"), "\\import A \\func b => a");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "\\func a => 0", true);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    assertThat(library.getUpdatedModules(), is(empty()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("A")), "a")), is(notNullValue()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("B")), "b")), is(notNullValue()));
+  }
+
+  @Test
+  public void importedSourceChanged() {
+    library.addModule(new ModulePath("A"), "\\func a => 0");
+    library.addModule(new ModulePath("B"), "\\import A \\func b => a");
+    library.addModule(new ModulePath("C"), "\\func c => 0");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "\\func a => 1", false);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    assertThat(library.getUpdatedModules(), containsInAnyOrder(new ModulePath("A"), new ModulePath("B")));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("C")), "c")), is(notNullValue()));
+
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, is(empty()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("B")), "b")), is(notNullValue()));
+  }
+
+  @Test
+  public void interfaceHash() {
+    library.addModule(new ModulePath("A"), "\\lemma p : 0 = 0 => idp");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    Long hash = library.getInterfaceHash(new ModulePath("A"));
+    assertThat(hash, is(notNullValue()));
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "-- comment\n\\lemma p : 0 = 0 => idp {Nat} {0}", false);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    assertThat(library.getInterfaceHash(new ModulePath("A")), is(hash));
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "\\lemma p : 1 = 1 => idp", false);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    assertThat(library.getInterfaceHash(new ModulePath("A")), is(not(hash)));
+  }
+
+  @Test
+  public void importedProofChanged() {
+    library.addModule(new ModulePath("A"), "\\lemma p : 0 = 0 => idp");
+    library.addModule(new ModulePath("B"), "\\import A \\func b : 0 = 0 => p");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"), "\\lemma p : 0 = 0 => idp {Nat} {0}", false);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    assertThat(library.getUpdatedModules(), contains(new ModulePath("A")));
+
+    List<TCReferable> typechecked = new ArrayList<>();
+    TypecheckingOrderingListener typechecking = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE) {
+      @Override
+      public void typecheckingHeaderStarted(TCReferable definition) {
+        typechecked.add(definition);
+      }
+
+      @Override
+      public void typecheckingUnitStarted(TCReferable definition) {
+        typechecked.add(definition);
+      }
+    };
+    assertTrue(typechecking.typecheckLibrary(library));
+    assertThat(errorList, is(empty()));
+    assertThat(library.getUpdatedModules(), contains(new ModulePath("A")));
+
+    Definition p = typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("A")), "p"));
+    Definition b = typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("B")), "b"));
+    assertThat(typechecked, contains(p.getReferable()));
+    assertThat(b, instanceOf(FunctionDefinition.class));
+    // b is linked against the new definition of p
+    Body body = ((FunctionDefinition) b).getBody();
+    assertThat(body, instanceOf(FunCallExpression.class));
+    assertThat(((FunCallExpression) body).getDefinition(), is(p));
+  }
+
+  @Test
+  public void importedProofAndDependentChanged() {
+    library.addModule(new ModulePath("A"), "\\lemma p : 0 = 0 => idp");
+    library.addModule(new ModulePath("B"), "\\import A \\func b : 0 = 0 => p");
+    library.addModule(new ModulePath("C"), "\\import B \\func c : 0 = 0 => b");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    // C is typechecked from its raw source, so B cannot wait for A to be typechecked
+    library.updateModule(new ModulePath("A"), "\\lemma p : 0 = 0 => idp {Nat} {0}", false);
+    library.updateModule(new ModulePath("C"), "\\import B \\func c : 0 = 0 => idp", false);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    assertThat(library.getUpdatedModules(), containsInAnyOrder(new ModulePath("A"), new ModulePath("B"), new ModulePath("C")));
+
+    assertTrue(typechecking.typecheckLibrary(library));
+    assertThat(errorList, is(empty()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("B")), "b")), is(notNullValue()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("C")), "c")), is(notNullValue()));
+  }
+
+  @Test
+  public void incrementalUpdate() {
+    library.addFlag(SourceLibrary.Flag.INCREMENTAL);
+    library.addModule(new ModulePath("A"),
+      "\\func a => 0\n" +
+      "\\func b => a\n" +
+      "\\func c => 1");
+    library.addModule(new ModulePath("B"), "\\import A \\func d => c");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("A"),
+      "\\func a => 1\n" +
+      "\\func b => a\n" +
+      "\\func c => 1", true);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    Scope scope = library.getModuleScopeProvider().forModule(new ModulePath("A"));
+    assertThat(scope, is(notNullValue()));
+    assertThat(typecheckerState.getTypechecked(get(scope, "a")), is(nullValue()));
+    assertThat(typecheckerState.getTypechecked(get(scope, "b")), is(nullValue()));
+    assertThat(typecheckerState.getTypechecked(get(scope, "c")), is(notNullValue()));
+    assertThat(library.getUpdatedModules(), contains(new ModulePath("A")));
+
+    typechecking.typecheckLibrary(library);
+    assertThat(errorList, is(empty()));
+    assertThat(typecheckerState.getTypechecked(get(scope, "a")), is(notNullValue()));
+    assertThat(typecheckerState.getTypechecked(get(scope, "b")), is(notNullValue()));
+  }
+
+  @Test
+  public void incrementalImportChanged() {
+    library.addFlag(SourceLibrary.Flag.INCREMENTAL);
+    library.addModule(new ModulePath("A"), "\\func x => 0");
+    library.addModule(new ModulePath("B"), "\\func x => 1");
+    library.addModule(new ModulePath("C"), "\\import A \\func c => x");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.updateModule(new ModulePath("C"), "\\import B \\func c => x", true);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("C")), "c")), is(nullValue()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("A")), "x")), is(notNullValue()));
+  }
+
+  @Test
+  public void incrementalAfterFullBuild() {
+    library.addModule(new ModulePath("A"), "\\func a => 0");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    typechecking.typecheckLibrary(library);
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, is(empty()));
+    libraryManager.unloadLibrary(library);
+
+    library.addFlag(SourceLibrary.Flag.INCREMENTAL);
+    library.updateModule(new ModulePath("A"), "\\func a => 0", true);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, is(empty()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(new ModulePath("A")), "a")), is(notNullValue()));
+  }
+
   /* These tests does not make sense with the current implementation of libraries.
   @Test
   public void removeRawSource() {
@@ -1,11 +1,17 @@
 package org.arend.library;
 
+import org.arend.core.definition.Definition;
 import org.arend.ext.module.ModulePath;
 import org.arend.source.Source;
 import org.arend.source.SourceLoader;
 import org.arend.term.group.Group;
+import org.arend.typechecking.instance.provider.InstanceProviderSet;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -69,4 +75,138 @@ public class LibraryLoadingTest extends LibraryTestCase {
     assertThat(library.getModuleGroup(modulePath), is(nullValue()));
     assertThat(errorList, is(not(empty())));
   }
+
+  @Test
+  public void loadModulesInParallel() {
+    libraryManager.setLoadingThreads(4);
+    ModulePath moduleA = new ModulePath("A");
+    ModulePath moduleB = new ModulePath("B");
+    ModulePath moduleC = new ModulePath("C");
+    ModulePath moduleD = new ModulePath("D");
+    library.addModule(moduleA, "\\func f => 0");
+    library.addModule(moduleB, "\\import A\n\\func g => f");
+    library.addModule(moduleC, "\\import A\n\\func h => f");
+    library.addModule(moduleD, "\\import B\n\\import C\n\\func k => (g, h)");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, containsErrors(0));
+    assertThat(library.getModuleGroup(moduleA), is(notNullValue()));
+    assertThat(library.getModuleGroup(moduleB), is(notNullValue()));
+    assertThat(library.getModuleGroup(moduleC), is(notNullValue()));
+    assertThat(library.getModuleGroup(moduleD), is(notNullValue()));
+    assertTrue(typechecking.typecheckLibrary(library));
+    assertThat(errorList, containsErrors(0));
+  }
+
+  @Test
+  public void loadClassesInParallel() {
+    libraryManager.setLoadingThreads(4);
+    ModulePath moduleA = new ModulePath("A");
+    library.addModule(moduleA, "\\class C (x y : Nat)\n\\class D \\extends C | x => 0");
+    for (int i = 0; i < 8; i++) {
+      library.addModule(new ModulePath("B" + i), "\\import A\n\\class E \\extends D | y => " + i + "\n\\func f (e : E) : e.x = 0 => idp\n\\func g => \\new E");
+    }
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, containsErrors(0));
+    assertTrue(typechecking.typecheckLibrary(library));
+    assertThat(errorList, containsErrors(0));
+  }
+
+  @Test
+  public void moduleWithErrorsInParallel() {
+    libraryManager.setLoadingThreads(4);
+    ModulePath moduleA = new ModulePath("A");
+    ModulePath moduleB = new ModulePath("B");
+    library.addModule(moduleA, "hello world");
+    library.addModule(moduleB, "\\func g => x");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(library.getModuleGroup(moduleA), is(nullValue()));
+    assertThat(library.getModuleGroup(moduleB), is(notNullValue()));
+    assertThat(errorList, is(not(empty())));
+  }
+
+  @Test
+  public void loadBinariesInParallel() {
+    ModulePath moduleA = new ModulePath("A");
+    ModulePath moduleB = new ModulePath("B");
+    ModulePath moduleC = new ModulePath("C");
+    library.addModule(moduleA, "\\func f => 0");
+    library.addModule(moduleB, "\\import A\n\\func g => f");
+    library.addModule(moduleC, "\\import A\n\\import B\n\\func h => (f, g)");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(typechecking.typecheckLibrary(library));
+    library.persistUpdateModules(errorReporter);
+    assertThat(errorList, containsErrors(0));
+    libraryManager.unloadLibrary(library);
+
+    libraryManager.setLoadingThreads(4);
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertThat(errorList, containsErrors(0));
+    assertThat(library.getUpdatedModules(), is(empty()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(moduleA), "f")), is(notNullValue()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(moduleB), "g")), is(notNullValue()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(moduleC), "h")), is(notNullValue()));
+  }
+
+  @Test
+  public void reloadChangedModules() {
+    ModulePath moduleA = new ModulePath("A");
+    ModulePath moduleB = new ModulePath("B");
+    ModulePath moduleC = new ModulePath("C");
+    library.addModule(moduleA, "\\func f => 0");
+    library.addModule(moduleB, "\\import A\n\\func g => f");
+    library.addModule(moduleC, "\\func h => 1");
+    assertTrue(libraryManager.loadLibrary(library, null));
+    assertTrue(typechecking.typecheckLibrary(library));
+    library.clearUpdateModules();
+    assertThat(errorList, containsErrors(0));
+    assertThat(library.getChangedModules(), is(empty()));
+
+    Group groupC = library.getModuleGroup(moduleC);
+    library.updateModule(moduleA, "\\func f => 1", true);
+    assertThat(library.getChangedModules(), containsInAnyOrder(moduleA, moduleB));
+    library.reloadModules(library.getChangedModules(), libraryManager);
+    assertThat(errorList, containsErrors(0));
+    assertThat(library.getModuleGroup(moduleC), is(sameInstance(groupC)));
+    assertThat(library.getUpdatedModules(), containsInAnyOrder(moduleA, moduleB));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(moduleB), "g")), is(nullValue()));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(moduleC), "h")), is(notNullValue()));
+
+    assertTrue(typechecking.typecheckLibrary(library));
+    assertThat(errorList, containsErrors(0));
+    assertThat(typecheckerState.getTypechecked(get(library.getModuleScopeProvider().forModule(moduleB), "g")), is(notNullValue()));
+    assertThat(library.getChangedModules(), is(empty()));
+  }
+
+  @Test
+  public void reloadChangedDependency() {
+    MemoryLibrary dependency = new MemoryLibrary("dependency", typecheckerState, Collections.emptyList());
+    MemoryLibrary dependent = new MemoryLibrary("dependent", typecheckerState, Collections.singletonList(new LibraryDependency("dependency")));
+    libraryManager = new LibraryManager((lib, name) -> name.equals("dependency") ? dependency : null, new InstanceProviderSet(), errorReporter, errorReporter);
+    assertTrue(libraryManager.loadLibrary(preludeLibrary, null));
+
+    ModulePath moduleA = new ModulePath("A");
+    ModulePath moduleB = new ModulePath("B");
+    ModulePath moduleC = new ModulePath("C");
+    dependency.addModule(moduleA, "\\func f => 0");
+    dependent.addModule(moduleB, "\\import A\n\\func g : f = 0 => idp");
+    dependent.addModule(moduleC, "\\func h => 1");
+    assertTrue(libraryManager.loadLibrary(dependent, null));
+    assertTrue(typechecking.typecheckLibrary(dependency));
+    assertTrue(typechecking.typecheckLibrary(dependent));
+    assertThat(errorList, containsErrors(0));
+    assertThat(libraryManager.getChangedModules().entrySet(), is(empty()));
+
+    dependency.updateModule(moduleA, "\\func f => 1", true);
+    Map<SourceLibrary, Set<ModulePath>> changedModules = libraryManager.getChangedModules();
+    assertThat(changedModules.keySet(), contains(dependency, dependent));
+    assertThat(changedModules.get(dependency), contains(moduleA));
+    assertThat(changedModules.get(dependent), contains(moduleB));
+
+    for (Map.Entry<SourceLibrary, Set<ModulePath>> entry : changedModules.entrySet()) {
+      assertTrue(entry.getKey().reloadModules(entry.getValue(), libraryManager));
+      typechecking.typecheckLibrary(entry.getKey());
+    }
+    assertThat(errorList, containsErrors(1));
+    assertThat(typecheckerState.getTypechecked(get(dependent.getModuleScopeProvider().forModule(moduleB), "g")).status(), is(Definition.TypeCheckingStatus.HAS_ERRORS));
+  }
 }
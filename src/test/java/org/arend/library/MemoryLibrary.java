@@ -14,9 +14,15 @@ import java.util.*;
 public class MemoryLibrary extends UnmodifiableSourceLibrary {
   private final Map<ModulePath, MemoryRawSource> myRawSources = new LinkedHashMap<>();
   private final Map<ModulePath, BinarySource> myBinarySources = new LinkedHashMap<>();
+  private final List<LibraryDependency> myDependencies;
+
+  protected MemoryLibrary(String name, TypecheckerState typecheckerState, List<LibraryDependency> dependencies) {
+    super(name, typecheckerState);
+    myDependencies = dependencies;
+  }
 
   protected MemoryLibrary(TypecheckerState typecheckerState) {
-    super("test_library", typecheckerState);
+    this("test_library", typecheckerState, Collections.emptyList());
   }
 
   @Nullable
@@ -34,7 +40,7 @@ public class MemoryLibrary extends UnmodifiableSourceLibrary {
   @Nullable
   @Override
   protected LibraryHeader loadHeader(ErrorReporter errorReporter) {
-    return new LibraryHeader(new ArrayList<>(myRawSources.keySet()), Collections.emptyList(), Range.unbound(), null, null);
+    return new LibraryHeader(new ArrayList<>(myRawSources.keySet()), myDependencies, Range.unbound(), null, null);
   }
 
   public void addModule(ModulePath module, String text) {
@@ -57,7 +63,7 @@ public class MemoryLibrary extends UnmodifiableSourceLibrary {
   @NotNull
   @Override
   public List<? extends LibraryDependency> getDependencies() {
-    return Collections.emptyList();
+    return myDependencies;
   }
 
   @Override
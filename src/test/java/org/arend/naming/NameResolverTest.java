@@ -7,12 +7,17 @@ import org.arend.naming.reference.GlobalReferable;
 import org.arend.naming.reference.LocatedReferableImpl;
 import org.arend.naming.reference.Referable;
 import org.arend.naming.scope.EmptyScope;
+import org.arend.naming.scope.LexicalScope;
 import org.arend.naming.scope.ListScope;
+import org.arend.naming.scope.Scope;
 import org.arend.naming.scope.SingletonScope;
 import org.arend.prelude.Prelude;
 import org.arend.term.FunctionKind;
 import org.arend.term.concrete.Concrete;
 import org.arend.term.group.ChildGroup;
+import org.arend.term.group.EmptyGroup;
+import org.arend.term.group.Group;
+import org.arend.term.group.GroupNameIndex;
 import org.junit.Ignore;
 import org.junit.Test;
 
@@ -188,6 +193,33 @@ public class NameResolverTest extends NameResolverTestCase {
     resolveNamesModule("\\class A \\where { \\func x => 0 } \\func y => x \\open A");
   }
 
+  @Test
+  public void manyDefinitionsTest() {
+    StringBuilder builder = new StringBuilder();
+    builder.append("\\data D | con0 | con1 D\n");
+    for (int i = 0; i < 100; i++) {
+      builder.append("\\func f").append(i).append(" => ").append(i == 0 ? "con0" : "con1 f" + (i - 1)).append("\n");
+    }
+    ChildGroup group = resolveNamesModule(builder.toString());
+
+    Scope scope = LexicalScope.insideOf(group, EmptyScope.INSTANCE);
+    List<Group> subgroups = new ArrayList<>(group.getSubgroups());
+    assertEquals(subgroups.get(100).getReferable(), scope.resolveName("f99"));
+    assertEquals(subgroups.get(0).getConstructors().iterator().next().getReferable(), scope.resolveName("con0"));
+    assertNotNull(scope.resolveNamespace("D", false));
+    assertNull(scope.resolveName("f100"));
+    assertEquals(103, scope.getElements().size());
+
+    GroupNameIndex index = group.getNameIndex();
+    assertSame(index, group.getNameIndex());
+    group.invalidateNameIndex();
+    assertNotSame(index, group.getNameIndex());
+
+    Group emptyGroup = new EmptyGroup(subgroups.get(1).getReferable(), group);
+    assertSame(GroupNameIndex.EMPTY, emptyGroup.getNameIndex());
+    assertNull(LexicalScope.insideOf(emptyGroup, EmptyScope.INSTANCE).resolveName("f0"));
+  }
+
   @Ignore
   @Test
   public void exportTest() {
@@ -0,0 +1,37 @@
+package org.arend.term.expr.visitor;
+
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.model.Statement;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs {@link NormalizationTest} with the environment-based normalization engine.
+ */
+public class EnvironmentNormalizationTest extends NormalizationTest {
+  @Rule
+  public final TestRule environmentEngine = (base, description) -> new Statement() {
+    @Override
+    public void evaluate() throws Throwable {
+      Throwable error = new NormalizeVisitor(NormalizeVisitor.Engine.ENVIRONMENT, null).run(() -> {
+        try {
+          base.evaluate();
+          return null;
+        } catch (Throwable e) {
+          return e;
+        }
+      });
+      if (error != null) {
+        throw error;
+      }
+    }
+  };
+
+  @Test
+  public void environmentEngineTest() {
+    assertEquals(NormalizeVisitor.Engine.ENVIRONMENT, NormalizeVisitor.getInstance().getEngine());
+  }
+}
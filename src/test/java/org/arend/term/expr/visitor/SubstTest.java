@@ -5,12 +5,16 @@ import org.arend.core.context.binding.TypedBinding;
 import org.arend.core.context.param.DependentLink;
 import org.arend.core.context.param.SingleDependentLink;
 import org.arend.core.expr.Expression;
+import org.arend.core.expr.visitor.FreeVariablesCollector;
+import org.arend.core.subst.ExprSubstitution;
 import org.arend.typechecking.TypeCheckingTestCase;
 import org.junit.Test;
 
+import java.util.Collections;
+
 import static org.arend.ExpressionFactory.*;
 import static org.arend.core.expr.ExpressionFactory.*;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class SubstTest extends TypeCheckingTestCase {
   @Test
@@ -118,4 +122,62 @@ public class SubstTest extends TypeCheckingTestCase {
     Expression expr2 = let(lets(let("x", Lam(z, Ref(z))), let("y", Lam(w, Zero()))), Zero());
     assertEquals(expr2, expr1.subst(a, Zero()));
   }
+
+  @Test
+  public void substUnchangedShared() {
+    // suc (A x) [y := zero] = suc (A x)
+    Binding A = new TypedBinding("A", Pi(Nat(), Nat()));
+    Expression expr = Suc(Apps(Ref(A), Ref(new TypedBinding("x", Nat()))));
+    assertSame(expr, expr.subst(new TypedBinding("y", Nat()), Zero()));
+  }
+
+  @Test
+  public void addSubstTest() {
+    // [x := A y, z := y] + [y := zero] = [x := A zero, y := zero, z := zero]
+    Binding x = new TypedBinding("x", Nat());
+    Binding y = new TypedBinding("y", Nat());
+    Binding z = new TypedBinding("z", Nat());
+    Binding A = new TypedBinding("A", Pi(Nat(), Nat()));
+    ExprSubstitution substitution = new ExprSubstitution(x, Apps(Ref(A), Ref(y)));
+    substitution.add(z, Ref(y));
+    ExprSubstitution copy = new ExprSubstitution(substitution);
+    substitution.addSubst(y, Zero());
+    assertEquals(Apps(Ref(A), Zero()), substitution.get(x));
+    assertEquals(Zero(), substitution.get(y));
+    assertEquals(Zero(), substitution.get(z));
+    assertEquals(Apps(Ref(A), Ref(y)), copy.get(x));
+    assertNull(copy.get(y));
+    assertEquals(2, copy.size());
+  }
+
+  @Test
+  public void substSubstitutionTest() {
+    // [x := y] [y := A z] [z := zero] + [y := z] = [x := A zero, y := z]
+    Binding x = new TypedBinding("x", Nat());
+    Binding y = new TypedBinding("y", Nat());
+    Binding z = new TypedBinding("z", Nat());
+    Binding A = new TypedBinding("A", Pi(Nat(), Nat()));
+    ExprSubstitution substitution = new ExprSubstitution(x, Ref(y));
+    ExprSubstitution substitution1 = new ExprSubstitution(y, Apps(Ref(A), Ref(z)));
+    substitution.subst(substitution1);
+    substitution1.add(y, Zero());
+    substitution.subst(new ExprSubstitution(z, Zero()));
+    substitution.add(y, Ref(z));
+    assertEquals(Apps(Ref(A), Zero()), substitution.get(x));
+    assertEquals(Ref(z), substitution.get(y));
+    assertEquals(2, substitution.getEntries().size());
+  }
+
+  @Test
+  public void closedSubexpressionTest() {
+    // (A -> Nat -> Nat) [A := Nat] = Nat -> Nat -> Nat
+    Binding A = new TypedBinding("A", Universe(0));
+    Expression closed = Pi(Nat(), Nat());
+    Expression expr = Pi(Ref(A), closed);
+    assertTrue(closed.isClosed());
+    assertFalse(expr.isClosed());
+    assertTrue(expr.findBinding(A));
+    assertEquals(Collections.singleton(A), FreeVariablesCollector.getFreeVariables(expr));
+    assertEquals(Pi(Nat(), closed), expr.subst(A, Nat()));
+  }
 }
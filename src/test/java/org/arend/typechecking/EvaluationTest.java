@@ -4,6 +4,8 @@ import org.arend.core.definition.FunctionDefinition;
 import org.arend.core.expr.BigIntegerExpression;
 import org.arend.core.expr.Expression;
 import org.arend.core.expr.SmallIntegerExpression;
+import org.arend.core.expr.visitor.NormalizeVisitor;
+import org.arend.core.expr.visitor.WhnfCache;
 import org.arend.ext.core.ops.NormalizationMode;
 import org.junit.Test;
 
@@ -12,6 +14,7 @@ import java.math.BigInteger;
 import static org.arend.core.expr.ExpressionFactory.Neg;
 import static org.arend.core.expr.ExpressionFactory.Pos;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class EvaluationTest extends TypeCheckingTestCase {
   @Test
@@ -63,4 +66,26 @@ public class EvaluationTest extends TypeCheckingTestCase {
     assertEquals(Neg(new SmallIntegerExpression(22)), ((Expression) ((FunctionDefinition) getDefinition("f6")).getBody()).normalize(NormalizationMode.WHNF));
     assertEquals(Pos(new SmallIntegerExpression(0)),  ((Expression) ((FunctionDefinition) getDefinition("f7")).getBody()).normalize(NormalizationMode.WHNF));
   }
+
+  @Test
+  public void whnfCacheTest() {
+    typeCheckModule(
+      "\\func fib (n : Nat) : Nat\n" +
+      "  | 0 => 0\n" +
+      "  | 1 => 1\n" +
+      "  | suc (suc n) => fib n Nat.+ fib (suc n)\n" +
+      "\\func f => fib 15");
+    Expression call = (Expression) ((FunctionDefinition) getDefinition("f")).getBody();
+    WhnfCache cache = new WhnfCache(4096);
+    NormalizeVisitor visitor = new NormalizeVisitor(NormalizeVisitor.Engine.SUBSTITUTION, cache);
+    assertEquals(new SmallIntegerExpression(610), visitor.run(() -> call.normalize(NormalizationMode.WHNF)));
+    assertEquals(0, cache.getHits());
+    assertTrue(cache.size() > 0);
+
+    assertEquals(new SmallIntegerExpression(610), visitor.run(() -> call.normalize(NormalizationMode.WHNF)));
+    assertEquals(1, cache.getHits());
+
+    assertEquals(new SmallIntegerExpression(610), call.normalize(NormalizationMode.WHNF));
+    assertEquals(1, cache.getHits());
+  }
 }
@@ -0,0 +1,86 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.ext.error.GeneralError;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.term.group.ChildGroup;
+import org.arend.typechecking.doubleChecker.CoreModuleChecker;
+import org.arend.typechecking.error.local.GoalError;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ParallelTypecheckingTest extends TypeCheckingTestCase {
+  @Override
+  protected TypecheckerState createTypecheckerState() {
+    return new ConcurrentTypecheckerState();
+  }
+
+  private void typeCheckModuleInParallel(ChildGroup group) {
+    TypecheckingOrderingListener listener = new TypecheckingOrderingListener(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE);
+    listener.setThreads(4);
+    assertTrue(listener.typecheckModules(Collections.singletonList(group), null));
+  }
+
+  @Test
+  public void independentAndMutualTest() {
+    lastGroup = resolveNamesModule(
+      "\\func a0 => 0\n" +
+      "\\func a1 => suc a0\n" +
+      "\\func b0 (n : Nat) : Nat => n\n" +
+      "\\func b1 => b0 a1\n" +
+      "\\func even (n : Nat) : Nat \\elim n | 0 => 1 | suc n => odd n\n" +
+      "\\func odd (n : Nat) : Nat \\elim n | 0 => 0 | suc n => even n\n" +
+      "\\data Tree : \\Set0 | node Forest\n" +
+      "\\data Forest : \\Set0 | fnil | fcons Tree Forest\n" +
+      "\\func c => even b1");
+    typeCheckModuleInParallel(lastGroup);
+    assertThat(errorList, containsErrors(0));
+    for (String name : new String[] { "a0", "a1", "b0", "b1", "even", "odd", "Tree", "Forest", "c" }) {
+      Definition definition = getDefinition(name);
+      assertNotNull(definition);
+      assertEquals(Definition.TypeCheckingStatus.NO_ERRORS, definition.status());
+    }
+  }
+
+  @Test
+  public void errorOrderTest() {
+    // The first unit is slow, so later units finish before it
+    lastGroup = resolveNamesModule(
+      "\\func d (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (d n))\n" +
+      "\\func f1 : Nat => \\let p : d 3000 = 6000 => idp \\in {?g1}\n" +
+      "\\func f2 : Nat => {?g2}\n" +
+      "\\func f3 => f1\n" +
+      "\\func f4 : Nat => {?g4}\n" +
+      "\\func f5 : Nat => {?g5}\n" +
+      "\\func f6 : Nat => {?g6}");
+    typeCheckModuleInParallel(lastGroup);
+
+    // Units may finish in any order, but errors are reported in the order of units
+    List<String> goals = new ArrayList<>();
+    for (GeneralError error : errorList) {
+      assertTrue(error instanceof GoalError);
+      goals.add(((GoalError) error).name);
+    }
+    assertEquals(Arrays.asList("g1", "g2", "g4", "g5", "g6"), goals);
+  }
+
+  @Test
+  public void doubleCheckTest() {
+    lastGroup = resolveNamesModule(
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (f n))\n" +
+      "\\func g : f 10 = 20 => idp\n" +
+      "\\data List (A : \\Type) | nil | cons A (List A)\n" +
+      "\\record R (x : Nat) (p : x = x)\n" +
+      "\\func h : R 0 \\cowith | p => idp");
+    typeCheckModuleInParallel(lastGroup);
+    assertThat(errorList, containsErrors(0));
+    assertTrue(new CoreModuleChecker(errorReporter, typecheckerState).checkGroups(Collections.singletonList(lastGroup), 4));
+    assertThat(errorList, containsErrors(0));
+  }
+}
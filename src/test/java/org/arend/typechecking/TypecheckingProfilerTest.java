@@ -0,0 +1,108 @@
+package org.arend.typechecking;
+
+import org.arend.core.definition.Definition;
+import org.arend.frontend.ConcreteReferableProvider;
+import org.arend.frontend.PositionComparator;
+import org.arend.naming.reference.TCReferable;
+import org.arend.naming.reference.converter.IdReferableConverter;
+import org.arend.typechecking.computation.TypecheckingProfiler;
+import org.arend.typechecking.order.listener.TypecheckingOrderingListener;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class TypecheckingProfilerTest extends TypeCheckingTestCase {
+  private final TypecheckingProfiler profiler = new TypecheckingProfiler();
+
+  private class ProfilingListener extends TypecheckingOrderingListener {
+    ProfilingListener() {
+      super(libraryManager.getInstanceProviderSet(), typecheckerState, ConcreteReferableProvider.INSTANCE, IdReferableConverter.INSTANCE, errorReporter, PositionComparator.INSTANCE);
+    }
+
+    @Override
+    public void typecheckingHeaderStarted(TCReferable definition) {
+      profiler.typecheckingStarted(definition, TypecheckingProfiler.Category.HEADER);
+    }
+
+    @Override
+    public void typecheckingBodyStarted(TCReferable definition) {
+      profiler.typecheckingStarted(definition, TypecheckingProfiler.Category.BODY);
+    }
+
+    @Override
+    public void typecheckingUnitStarted(TCReferable definition) {
+      profiler.typecheckingStarted(definition, TypecheckingProfiler.Category.HEADER);
+    }
+
+    @Override
+    public void typecheckingHeaderFinished(TCReferable referable, Definition definition) {
+      profiler.typecheckingFinished(referable);
+    }
+
+    @Override
+    public void typecheckingBodyFinished(TCReferable referable, Definition definition) {
+      profiler.typecheckingFinished(referable);
+    }
+
+    @Override
+    public void typecheckingUnitFinished(TCReferable referable, Definition definition) {
+      profiler.typecheckingFinished(referable);
+    }
+  }
+
+  @After
+  public void resetProfiler() {
+    TypecheckingProfiler.setProfiler(null);
+  }
+
+  @Test
+  public void timesTest() {
+    TypecheckingProfiler.setProfiler(profiler);
+    lastGroup = resolveNamesModule(
+      "\\func f (n : Nat) : Nat | 0 => 0 | suc n => suc (suc (f n))\n" +
+      "\\func g : f 100 = 200 => idp\n" +
+      "\\func even (n : Nat) : Nat \\elim n | 0 => 1 | suc n => odd n\n" +
+      "\\func odd (n : Nat) : Nat \\elim n | 0 => 0 | suc n => even n");
+    assertTrue(new ProfilingListener().typecheckModules(Collections.singletonList(lastGroup), null));
+    assertThat(errorList, containsErrors(0));
+
+    List<TypecheckingProfiler.Times> times = profiler.getTimes();
+    Set<TCReferable> referables = new HashSet<>();
+    for (int i = 0; i < times.size(); i++) {
+      referables.add(times.get(i).referable);
+      if (i > 0) {
+        assertTrue(times.get(i - 1).getTotalNanos() >= times.get(i).getTotalNanos());
+      }
+    }
+    for (String name : new String[] { "f", "g", "even", "odd" }) {
+      assertTrue(referables.contains(get(name)));
+    }
+    for (TypecheckingProfiler.Times time : times) {
+      if (time.referable == get("g")) {
+        assertTrue(time.getNanos(TypecheckingProfiler.Category.HEADER) > 0);
+        assertTrue(time.getNanos(TypecheckingProfiler.Category.BODY) > 0);
+      }
+    }
+
+    StringWriter json = new StringWriter();
+    profiler.writeJson(new PrintWriter(json));
+    assertTrue(json.toString().contains("\"normalization\""));
+    StringWriter csv = new StringWriter();
+    profiler.writeCsv(new PrintWriter(csv));
+    assertEquals(times.size() + 1, csv.toString().split("\n").length);
+  }
+
+  @Test
+  public void disabledTest() {
+    typeCheckModule("\\func f => 0");
+    assertTrue(profiler.getTimes().isEmpty());
+  }
+}
@@ -0,0 +1,87 @@
+package org.arend.typechecking.implicitargs.equations;
+
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LevelEquationsTest {
+  private static LevelEquations<String> equations(String... vars) {
+    LevelEquations<String> equations = new LevelEquations<>();
+    for (String var : vars) {
+      equations.addVariable(var);
+    }
+    return equations;
+  }
+
+  @Test
+  public void chainTest() {
+    LevelEquations<String> equations = equations("x", "y", "z");
+    equations.addEquation(new LevelEquation<>("x", "y", -1));
+    equations.addEquation(new LevelEquation<>("y", "z", -2));
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(0), solution.get("x"));
+    assertEquals(Integer.valueOf(-1), solution.get("y"));
+    assertEquals(Integer.valueOf(-3), solution.get("z"));
+  }
+
+  @Test
+  public void infinityTest() {
+    LevelEquations<String> equations = equations("x", "y", "z");
+    equations.addEquation(new LevelEquation<>("x"));
+    equations.addEquation(new LevelEquation<>("x", "y", -1));
+    equations.addEquation(new LevelEquation<>("z", "y", -1));
+    Map<String, Integer> solution = new HashMap<>();
+    assertNull(equations.solve(solution));
+    assertEquals(Integer.valueOf(LevelEquations.INFINITY), solution.get("x"));
+    assertEquals(Integer.valueOf(LevelEquations.INFINITY), solution.get("y"));
+    assertEquals(Integer.valueOf(0), solution.get("z"));
+  }
+
+  @Test
+  public void cycleTest() {
+    LevelEquations<String> equations = equations("x", "y");
+    LevelEquation<String> equation1 = new LevelEquation<>("x", "y", -1);
+    LevelEquation<String> equation2 = new LevelEquation<>("y", "x", 0);
+    equations.addEquation(equation1);
+    equations.addEquation(equation2);
+    List<LevelEquation<String>> cycle = equations.solve(new HashMap<>());
+    assertNotNull(cycle);
+    assertEquals(cycle, equations.solveWithPaths(new HashMap<>()));
+  }
+
+  @Test
+  public void sameAsRelaxationTest() {
+    Random random = new Random(239);
+    for (int test = 0; test < 2000; test++) {
+      int numberOfVariables = 1 + random.nextInt(8);
+      List<String> vars = new ArrayList<>();
+      for (int i = 0; i < numberOfVariables; i++) {
+        vars.add("v" + i);
+      }
+
+      LevelEquations<String> equations = equations(vars.toArray(new String[0]));
+      int numberOfEquations = random.nextInt(12);
+      for (int i = 0; i < numberOfEquations; i++) {
+        String var1 = random.nextInt(6) == 0 ? null : vars.get(random.nextInt(numberOfVariables));
+        String var2 = random.nextInt(6) == 0 ? null : vars.get(random.nextInt(numberOfVariables));
+        if (random.nextInt(10) == 0) {
+          equations.addEquation(new LevelEquation<>(vars.get(random.nextInt(numberOfVariables))));
+        } else if (random.nextBoolean()) {
+          equations.addEquation(new LevelEquation<>(var1, var2, random.nextInt(4) - 2, random.nextInt(4) - 2));
+        } else {
+          equations.addEquation(new LevelEquation<>(var1, var2, random.nextInt(4) - 2));
+        }
+      }
+
+      Map<String, Integer> solution = new HashMap<>();
+      Map<String, Integer> expectedSolution = new HashMap<>();
+      List<LevelEquation<String>> cycle = equations.solve(solution);
+      List<LevelEquation<String>> expectedCycle = equations.solveWithPaths(expectedSolution);
+      assertEquals(expectedCycle, cycle);
+      assertEquals(expectedSolution, solution);
+    }
+  }
+}
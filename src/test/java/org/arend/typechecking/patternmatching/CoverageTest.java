@@ -95,4 +95,36 @@ public class CoverageTest extends TypeCheckingTestCase {
       "\\func test (x : S1) : \\Sigma", 1);
     assertThatErrorsAre(missingClauses(1));
   }
+
+  @Test
+  public void wideEmptyCoverage() {
+    typeCheckModule(
+      "\\data D | d1 | d2 | d3\n" +
+      "\\func foo (x y z : D) : Nat", 1);
+    assertThatErrorsAre(missingClauses(27));
+  }
+
+  @Test
+  public void emptyCoverageWithIndicesAndIndependentParameter() {
+    typeCheckModule(
+      "\\data Fin Nat \\with | _ => fzero | suc n => fsuc (Fin n)\n" +
+      "\\func foo (n : Nat) (x : Fin n) (m : Nat) : Nat", 1);
+    assertThatErrorsAre(missingClauses(6));
+  }
+
+  @Test
+  public void wideCoverage() {
+    typeCheckModule(
+      "\\data D | d1 | d2 | d3 | d4\n" +
+      "\\func foo (x y z : D) : Nat\n" +
+      "  | d1, d1, d1 => 1\n" +
+      "  | d2, d2, d2 => 2\n" +
+      "  | d3, _, d3 => 3\n" +
+      "  | _, _, d4 => 4\n" +
+      "  | _, _, _ => 0\n" +
+      "\\func test1 : foo d2 d2 d2 = 2 => idp\n" +
+      "\\func test2 : foo d3 d1 d3 = 3 => idp\n" +
+      "\\func test3 : foo d1 d2 d4 = 4 => idp\n" +
+      "\\func test4 : foo d4 d4 d1 = 0 => idp");
+  }
 }
@@ -21,6 +21,9 @@ import org.junit.Test;
 import java.util.HashSet;
 import java.util.Set;
 
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 public class TerminationCheckTest extends TypeCheckingTestCase {
 
   @Test
@@ -264,4 +267,46 @@ public class TerminationCheckTest extends TypeCheckingTestCase {
     assert !callCategory.checkTermination();
   }
 
+  private static Object[] diagonal(int size, int decreasing) {
+    Object[] data = new Object[2 * size];
+    for (int i = 0; i < size; i++) {
+      data[2 * i] = i == decreasing ? '<' : '=';
+      data[2 * i + 1] = i;
+    }
+    return data;
+  }
+
+  @Test
+  public void wideMatrixComposition() {
+    String[] args = new String[40];
+    for (int i = 0; i < args.length; i++) {
+      args[i] = "x" + i;
+    }
+    TestVertex f = new TestVertex("f", args);
+    TestCallMatrix m1 = new TestCallMatrix("1", f, f, diagonal(args.length, 35));
+    TestCallMatrix m2 = new TestCallMatrix("2", f, f, diagonal(args.length, 2));
+    BaseCallMatrix<TestVertex> m = new CompositeCallMatrix<>(m1, m2);
+    assert m.getValue(35, 35) == BaseCallMatrix.R.LessThan;
+    assert m.getValue(2, 2) == BaseCallMatrix.R.LessThan;
+    assert m.getValue(34, 34) == BaseCallMatrix.R.Equal;
+    assert m.getValue(0, 35) == BaseCallMatrix.R.Unknown;
+    assert m1.leq(m);
+    assert !m.leq(m1);
+    assert m.equals(new CompositeCallMatrix<>(m2, m1));
+  }
+
+  @Test
+  public void wideMatrixTermination() {
+    String[] args = new String[40];
+    for (int i = 0; i < args.length; i++) {
+      args[i] = "x" + i;
+    }
+    TestVertex f = new TestVertex("f", args);
+    Set<BaseCallMatrix<TestVertex>> cms = new HashSet<>();
+    cms.add(new TestCallMatrix("1", f, f, diagonal(args.length, 35)));
+    cms.add(new TestCallMatrix("2", f, f, diagonal(args.length, 38)));
+    assertTrue(TestCallGraph.calculateClosure(cms).checkTermination());
+    cms.add(new TestCallMatrix("3", f, f, diagonal(args.length, -1)));
+    assertFalse(TestCallGraph.calculateClosure(cms).checkTermination());
+  }
 }
@@ -54,6 +54,24 @@ public class TypeClassesGlobal extends TypeCheckingTestCase {
       "\\func g => B left");
   }
 
+  @Test
+  public void manyInstancesRepeatedResolution() {
+    StringBuilder builder = new StringBuilder();
+    builder.append(
+      "\\class X (A : \\Type0) {\n" +
+      "  | B : A -> \\Type0\n" +
+      "}\n");
+    for (int i = 0; i < 20; i++) {
+      builder.append("\\data D").append(i).append(" | con").append(i).append("\n");
+      builder.append("\\instance X").append(i).append(" : X | A => D").append(i).append(" | B => \\lam n => Nat\n");
+    }
+    for (int i = 0; i < 20; i++) {
+      builder.append("\\func f").append(i).append(" : B con").append(i).append(" = Nat => idp\n");
+      builder.append("\\func g").append(i).append(" : B con").append(19 - i).append(" = Nat => idp\n");
+    }
+    typeCheckModule(builder.toString());
+  }
+
   @Test
   public void localInstance() {
     typeCheckModule(